@@ -1,7 +1,6 @@
 package cluedo.board;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import cluedo.exceptions.IllegalMethodCallException;
 import cluedo.exceptions.InvalidMoveException;
@@ -12,33 +11,136 @@ import cluedo.utility.Heading.Direction;
 /**
  * The Board for the Cluedo game
  * Keeps track of the location of Pieces in the game
+ * 
+ * Cells are numbered by their index (y*WIDTH + x).
+ * Pieces are kept under their Piece.getPieceNumber(), so finding a piece's
+ * cell is an array read. The occupied cells are also kept as a bitboard,
+ * one bit per cell index, for searches over the whole board.
+ * 
+ * Moves are checked with an adjacency table, which has the index of the
+ * neighbouring cell in each direction, or -1 if there is a wall in the way
+ * (on either cell) or the neighbour would be off the board.
  *
  */
 public class Board 
 {
 	public static final int WIDTH = 24;
 	public static final int HEIGHT = 25;
+	public static final int NUM_CELLS = WIDTH * HEIGHT;
+	/**
+	 * The number of longs in an occupancy bitboard
+	 */
+	public static final int OCCUPANCY_WORDS = (NUM_CELLS + Long.SIZE - 1) / Long.SIZE;
+	/**
+	 * Enough for every Player and Weapon in a game
+	 */
+	private static final int INITIAL_PIECES = 12;
+	private static final int NUM_DIRECTIONS = Direction.values().length;
+	/**
+	 * The change in x and y for moving in each direction, by ordinal
+	 */
+	private static final int[] DX = new int[NUM_DIRECTIONS];
+	private static final int[] DY = new int[NUM_DIRECTIONS];
+	static
+	{
+		DY[Direction.North.ordinal()] = -1;
+		DY[Direction.South.ordinal()] = 1;
+		DX[Direction.East.ordinal()] = 1;
+		DX[Direction.West.ordinal()] = -1;
+	}
 	
 	/**
-	 * A map of only the cells that contains a Piece on it.
+	 * The Piece on each cell index, null if the cell is empty.
+	 */
+	private final Piece[] cellHasPiece = new Piece[NUM_CELLS];
+	/**
+	 * The Pieces that are on the board by piece number, null for numbers not on the board.
+	 * Every Piece must be on a Cell, whose index is in pieceOnCell.
 	 */
-	private Map<Cell, Piece> cellHasPiece;
+	private Piece[] pieces = new Piece[INITIAL_PIECES];
+	private int[] pieceOnCell = new int[INITIAL_PIECES];
 	/**
-	 * A map of all Pieces that are on the board
-	 * Every Piece must be on a Cell (Cell cannot be null)
+	 * Bit (index % 64) of word (index / 64) is set if the cell has a Piece on it.
 	 */
-	private Map<Piece, Cell> pieceOnCell;
+	private final long[] occupied = new long[OCCUPANCY_WORDS];
 	
 	/**
 	 * Representation of the Board
 	 */
 	private final Cell[][] cells;
+	/**
+	 * The neighbour of each cell in each direction (index*4 + ordinal),
+	 * -1 if the move is blocked by a wall or the board's edge.
+	 */
+	private final int[] adjacency;
 	
+	/**
+	 * @param cells - The cells of the board, indexed by x then y.
+	 * Must be WIDTH by HEIGHT.
+	 */
 	public Board(Cell[][] cells) 
 	{ 
+		this(cells, buildAdjacency(cells));
+	}
+
+	/**
+	 * A board for cells whose adjacency table has already been built,
+	 * so boards with the same cells can share it.
+	 * @param cells - The cells of the board, indexed by x then y.
+	 * Must be WIDTH by HEIGHT.
+	 * @param adjacency - The table from buildAdjacency(cells). Will not be modified.
+	 */
+	public Board(Cell[][] cells, int[] adjacency) 
+	{ 
+		if(cells == null || adjacency == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		if(adjacency.length != NUM_CELLS * NUM_DIRECTIONS)
+		{
+			throw new IllegalArgumentException("Adjacency table is the wrong size");
+		}
 		this.cells = cells;
-		cellHasPiece = new HashMap<Cell, Piece>();
-		pieceOnCell = new HashMap<Piece, Cell>();
+		this.adjacency = adjacency;
+	}
+
+	/**
+	 * Work out the neighbour of every cell in every direction.
+	 * @param cells - The cells of a board, indexed by x then y.
+	 * Must be WIDTH by HEIGHT.
+	 * @return The index of the neighbouring cell for (index*4 + Direction.ordinal()),
+	 * or -1 if a wall on either cell is in the way or the neighbour would be off the board.
+	 */
+	public static int[] buildAdjacency(Cell[][] cells)
+	{
+		int[] adjacency = new int[NUM_CELLS * NUM_DIRECTIONS];
+		for(int y = 0; y < HEIGHT; y++)
+		{
+			for(int x = 0; x < WIDTH; x++)
+			{
+				Cell cell = cells[x][y];
+				for(Direction direction : Direction.values())
+				{
+					int i = direction.ordinal();
+					int nx = x + DX[i];
+					int ny = y + DY[i];
+					int neighbour = -1;
+					/*
+					 * Walls are not defined in both cells 
+					 * (i.e. cell may not have a South wall
+					 * but neighbouring cell will have North wall)
+					 *  so have to check both cells if there is a wall
+					 */
+					if(!cell.hasWall(direction) && nx >= 0 && nx < WIDTH && ny >= 0 && ny < HEIGHT
+							&& !cells[nx][ny].hasWall(Heading.opposite(direction)))
+					{
+						neighbour = cellIndex(nx, ny);
+					}
+					adjacency[cellIndex(x, y) * NUM_DIRECTIONS + i] = neighbour;
+				}
+			}
+		}
+		return adjacency;
 	}
 	
 	/**
@@ -56,42 +158,142 @@ public class Board
 	 * If the arguments are null
 	 */
 	public Cell move(Piece piece, Direction direction) throws InvalidMoveException
+	{
+		MoveStatus status = tryMove(piece, direction);
+		if(status == MoveStatus.OFF_BOARD)
+		{
+			throw new IllegalArgumentException(status.getMessage());
+		}
+		if(status != MoveStatus.OK)
+		{
+			throw new InvalidMoveException(status.getMessage());
+		}
+		return getPosition(piece);
+	}
+
+	/**
+	 * Move a piece to the neighbouring cell in the direction
+	 * if no wall or other piece is in the way, without throwing an exception if it cannot.
+	 * @param piece - Piece on the board to move
+	 * @param direction - The direction the piece is moving to
+	 * @return OK if the piece moved, otherwise WALL, OFF_BOARD or OCCUPIED
+	 * @throws IllegalMethodCallException 
+	 * If the piece does not exist
+	 * @throws IllegalArgumentException 
+	 * If the arguments are null
+	 */
+	public MoveStatus tryMove(Piece piece, Direction direction)
 	{
 		if(piece == null || direction == null)
 		{
 			throw new IllegalArgumentException("Arguments cannot be null");
 		}
-		if(!pieceOnCell.containsKey(piece))
+		int number = pieceNumber(piece);
+		if(number < 0)
 		{
 			throw new IllegalMethodCallException("Cannot move the piece as it does not exist");
 		}
-		Cell onPiece = pieceOnCell.get(piece);
-		/*
-		 * Walls are not defined in both cells 
-		 * (i.e. cell may not have a South wall
-		 * but neighbouring cell will have North wall)
-		 *  so have to check both cells if there is a wall
-		 */
-		if(onPiece.hasWall(direction))
+		int from = pieceOnCell[number];
+		int index = getNeighbour(from, direction);
+		if(index < 0)
 		{
-			throw new InvalidMoveException("Cannot move in that direction as a wall is blocking the way");
+			return getBlockedStatus(from, direction);
 		}
-		Cell newPos = getNeighbouringCell(onPiece,direction);
-		if(newPos.hasWall(Heading.opposite(direction)))
+		if(isOccupied(index))
 		{
-			throw new InvalidMoveException("Cannot move in that direction as a wall is blocking the way");
+			return MoveStatus.OCCUPIED;
 		}
-		if(containsPiece(newPos))
+		place(number, piece, index);
+		return MoveStatus.OK;
+	}
+
+	/**
+	 * Why a piece on the cell cannot move in the direction, ignoring other pieces
+	 * @param index - The index of a cell (y*WIDTH + x) with no neighbour in the direction
+	 * @param direction
+	 * @return WALL if a wall is in the way, or OFF_BOARD if the move would leave the board
+	 */
+	public MoveStatus getBlockedStatus(int index, Direction direction)
+	{
+		int x = index % WIDTH + DX[direction.ordinal()];
+		int y = index / WIDTH + DY[direction.ordinal()];
+		Cell cell = getCell(index);
+		if(!cell.hasWall(direction) && (x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT))
 		{
-			throw new InvalidMoveException("Cannot move to a cell with another player on it");
+			return MoveStatus.OFF_BOARD;
 		}
-		this.setPosition(piece, newPos);
-		return newPos;
+		return MoveStatus.WALL;
 	}
-	
+
+	/**
+	 * @param index - The index of a cell (y*WIDTH + x)
+	 * @param direction
+	 * @return The index of the neighbouring cell in the direction,
+	 * or -1 if a wall is in the way or it would be off the board
+	 */
+	public int getNeighbour(int index, Direction direction)
+	{
+		return adjacency[index * NUM_DIRECTIONS + direction.ordinal()];
+	}
+
 	public boolean containsPiece(Cell cell)
 	{
-		return cellHasPiece.get(cell) != null;
+		return isOccupied(cellIndex(cell));
+	}
+
+	/**
+	 * @param index - The index of a cell (y*WIDTH + x)
+	 * @return true if there is a Piece on the cell
+	 */
+	public boolean isOccupied(int index)
+	{
+		return (occupied[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param index - The index of a cell (y*WIDTH + x)
+	 * @return The Piece on the cell, or null if there isn't one
+	 */
+	public Piece getPiece(int index)
+	{
+		return cellHasPiece[index];
+	}
+
+	/**
+	 * @return A copy of the occupancy bitboard.
+	 * Bit (index % 64) of word (index / 64) is set if that cell has a Piece on it.
+	 */
+	public long[] getOccupancy()
+	{
+		return Arrays.copyOf(occupied, OCCUPANCY_WORDS);
+	}
+
+	/**
+	 * @param cell
+	 * @return The index of the cell (y*WIDTH + x)
+	 */
+	public static int cellIndex(Cell cell)
+	{
+		return cellIndex(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return The index of the cell at x and y (y*WIDTH + x)
+	 */
+	public static int cellIndex(int x, int y)
+	{
+		return y * WIDTH + x;
+	}
+
+	/**
+	 * @param index - The index of a cell (y*WIDTH + x)
+	 * @return The cell at that index
+	 */
+	public Cell getCell(int index)
+	{
+		return cells[index % WIDTH][index / WIDTH];
 	}
 	
 	/**
@@ -107,10 +309,11 @@ public class Board
 		{
 			throw new IllegalArgumentException("Argument is null");
 		}
-		if(!pieceOnCell.containsKey(piece)){
+		int number = pieceNumber(piece);
+		if(number < 0){
 			throw new IllegalArgumentException("Not a valid piece: " + piece);
 		}
-		return pieceOnCell.get(piece);
+		return getCell(pieceOnCell[number]);
 	}
 	/**
 	 * Sets the piece to the specified cell position
@@ -138,12 +341,7 @@ public class Board
 		{
 			throw new IllegalArgumentException("Cell is not a cell on the board");
 		}
-		//Remove previous position
-		Cell previous = pieceOnCell.get(piece);
-		cellHasPiece.remove(previous);
-		//Put new position
-		cellHasPiece.put(cell,piece);
-		pieceOnCell.put(piece,cell);
+		place(pieceNumber(piece), piece, cellIndex(x, y));
 	}
 	/**
 	 * Sets the piece to the specified cell position
@@ -167,13 +365,53 @@ public class Board
 		{
 			throw new IllegalArgumentException("Coordinates out of the board's boundaries");
 		}
-		//Remove previous position
-		Cell previous = pieceOnCell.get(piece);
-		cellHasPiece.remove(previous);
+		place(pieceNumber(piece), piece, cellIndex(x, y));
+	}
+
+	/**
+	 * Find the number of a piece on the board
+	 * @param piece
+	 * @return The piece's number, or -1 if it is not on the board
+	 */
+	private int pieceNumber(Piece piece)
+	{
+		int number = piece.getPieceNumber();
+		return number < pieces.length && pieces[number] != null ? number : -1;
+	}
+
+	/**
+	 * Move a piece from its previous position (if it has one) to the cell
+	 * @param number - The piece's number, or -1 if it is not on the board yet
+	 * @param piece
+	 * @param index - The index of the cell to put the piece on
+	 */
+	private void place(int number, Piece piece, int index)
+	{
+		if(number < 0)
+		{
+			number = piece.getPieceNumber();
+			if(number >= pieces.length)
+			{
+				int length = Math.max(number + 1, pieces.length * 2);
+				pieces = Arrays.copyOf(pieces, length);
+				pieceOnCell = Arrays.copyOf(pieceOnCell, length);
+			}
+			pieces[number] = piece;
+		}
+		else
+		{
+			//Remove previous position
+			int previous = pieceOnCell[number];
+			if(cellHasPiece[previous] == pieces[number])
+			{
+				cellHasPiece[previous] = null;
+				occupied[previous >>> 6] &= ~(1L << previous);
+			}
+		}
 		//Put new position
-		Cell cell = cells[x][y];
-		cellHasPiece.put(cell,piece);
-		pieceOnCell.put(piece,cell);
+		cellHasPiece[index] = pieces[number];
+		occupied[index >>> 6] |= 1L << index;
+		pieceOnCell[number] = index;
 	}
 	
 	/**
@@ -206,23 +444,8 @@ public class Board
 		{
 			throw new IllegalArgumentException("Cell is outside the board's boundaries");
 		}
-		switch(direction)
-		{
-			case North:
-				y--;
-				break;
-			case South:
-				y++;
-				break;
-			case East:
-				x++;
-				break;
-			case West:
-				x--;
-				break;
-			default:
-				throw new IllegalArgumentException("Direction not recognised - internal error");
-		}
+		x += DX[direction.ordinal()];
+		y += DY[direction.ordinal()];
 		if(x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT)
 		{
 			throw new IllegalArgumentException("Movement outside the board boundaries - internal error");
@@ -0,0 +1,63 @@
+package cluedo.board;
+
+/**
+ * Why a move was or was not allowed.
+ * Returned by the tryMove and tryExit methods, which do not throw an exception
+ * for an ordinary illegal move, so bots can try many moves cheaply.
+ * The move and takeExit methods throw an exception with the status's message instead.
+ */
+public enum MoveStatus
+{
+	/**
+	 * The move was made
+	 */
+	OK("Moved"),
+	/**
+	 * A wall is blocking the way
+	 */
+	WALL("Cannot move in that direction as a wall is blocking the way"),
+	/**
+	 * The move would leave the board (without a wall in the way)
+	 */
+	OFF_BOARD("Movement outside the board boundaries - internal error"),
+	/**
+	 * Another piece is on the cell
+	 */
+	OCCUPIED("Cannot move to a cell with another player on it"),
+	/**
+	 * The player has already been on the cell this turn
+	 */
+	REVISIT("Cannot move to the same cell in the same turn"),
+	/**
+	 * The player exited the room this turn
+	 */
+	NO_REENTRY("Cannot reenter the same room they exited"),
+	/**
+	 * The player has no moves left
+	 */
+	NO_MOVES("Cannot move as no moves left"),
+	/**
+	 * The cell is in a room but is not one of its entrances
+	 */
+	BAD_ENTRANCE("Did not enter the room through a valid entrance"),
+	/**
+	 * The player must be in a room to take an exit
+	 */
+	NOT_IN_ROOM("Not in a room therefore cannot exit");
+
+	private final String message;
+
+	private MoveStatus(String message)
+	{
+		this.message = message;
+	}
+
+	/**
+	 * @return A description of the status, used as the message of the exception
+	 * thrown for it by the methods that throw
+	 */
+	public String getMessage()
+	{
+		return message;
+	}
+}
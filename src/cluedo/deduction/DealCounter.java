@@ -0,0 +1,384 @@
+package cluedo.deduction;
+
+import java.util.Arrays;
+
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+
+/**
+ * Counts every deal that is consistent with a Notebook, so the chance of each answer is known exactly.
+ *
+ * For each answer that the CaseFile could hold, the other unplaced cards are split between the seats
+ * one seat at a time. The number of ways to deal the cards still left to the remaining seats
+ * only depends on the seat and the mask of cards left, so it is worked out once and remembered.
+ * Late in a game there are only a few of these, so counting is quick enough to do before every
+ * accusation decision. With six players at the start of a game it takes a few hundred milliseconds,
+ * so counting gives up once it has remembered maxStates of them.
+ */
+public class DealCounter
+{
+	/**
+	 * The number of counts remembered before count gives up, by default
+	 */
+	public static final int DEFAULT_MAX_STATES = 1 << 20;
+
+	private final int numPlayers;
+	private final int[] possible;
+	/**
+	 * How many more cards each seat needs
+	 */
+	private final int[] room;
+	/**
+	 * The cards any seat after each seat might hold
+	 */
+	private final int[] laterPossible;
+	/**
+	 * The clauses of each seat, as masks of the cards it might still hold
+	 */
+	private final int[][] clauses;
+	private final int maxStates;
+	private final CountMap memo;
+
+	/**
+	 * The number of consistent deals for each answer, indexed by
+	 * [suspect * NUM_WEAPONS * NUM_ROOMS + weapon * NUM_ROOMS + room], where each is an index in its type
+	 */
+	private final long[] answerCounts = new long[Game.MAX_PLAYERS * Game.NUM_WEAPONS * Game.NUM_ROOMS];
+	private long total;
+
+	private DealCounter(Notebook notebook, int maxStates)
+	{
+		numPlayers = notebook.getNumPlayers();
+		possible = new int[numPlayers];
+		room = new int[numPlayers];
+		laterPossible = new int[numPlayers];
+		clauses = new int[numPlayers][];
+		this.maxStates = maxStates;
+		memo = new CountMap(Math.min(maxStates, 1 << 12));
+		int[] numClauses = new int[numPlayers];
+		for (int i = 0; i < notebook.getClauseCount(); i++)
+		{
+			numClauses[notebook.getClauseSeat(i)]++;
+		}
+		for (int seat = 0; seat < numPlayers; seat++)
+		{
+			int held = notebook.getHeld(seat);
+			possible[seat] = notebook.getPossible(seat) & ~held;
+			room[seat] = notebook.getHandSize(seat) - Integer.bitCount(held);
+			clauses[seat] = new int[numClauses[seat]];
+			numClauses[seat] = 0;
+		}
+		for (int i = 0; i < notebook.getClauseCount(); i++)
+		{
+			int seat = notebook.getClauseSeat(i);
+			clauses[seat][numClauses[seat]++] = notebook.getClauseMask(i);
+		}
+		for (int seat = numPlayers - 2; seat >= 0; seat--)
+		{
+			laterPossible[seat] = laterPossible[seat + 1] | possible[seat + 1];
+		}
+	}
+
+	/**
+	 * Count the deals with the default limit
+	 * @param notebook - May not be null
+	 * @return The counts, or null if there were too many states to count
+	 */
+	public static DealCounter count(Notebook notebook)
+	{
+		return count(notebook, DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * @param notebook - May not be null
+	 * @param maxStates - The most counts to remember before giving up
+	 * @return The counts, or null if there were too many states to count
+	 * @throws IllegalArgumentException
+	 * If the notebook is null or maxStates is not positive
+	 */
+	public static DealCounter count(Notebook notebook, int maxStates)
+	{
+		if (notebook == null || maxStates <= 0)
+		{
+			throw new IllegalArgumentException("Must have a notebook and a positive number of states");
+		}
+		DealCounter counter = new DealCounter(notebook, maxStates);
+		int caseFile = notebook.getPossible(Notebook.CASE_FILE);
+		int unplaced = 0;
+		for (int seat = 0; seat < counter.numPlayers; seat++)
+		{
+			unplaced |= counter.possible[seat];
+		}
+		unplaced |= caseFile & ~notebook.getHeld(Notebook.CASE_FILE);
+		for (int s = 0; s < Game.MAX_PLAYERS; s++)
+		{
+			int suspect = 1 << s;
+			for (int w = 0; w < Game.NUM_WEAPONS; w++)
+			{
+				int weapon = 1 << (Game.MAX_PLAYERS + w);
+				for (int r = 0; r < Game.NUM_ROOMS; r++)
+				{
+					int roomCard = 1 << (Game.MAX_PLAYERS + Game.NUM_WEAPONS + r);
+					int answer = suspect | weapon | roomCard;
+					if ((caseFile & answer) != answer)
+					{
+						continue;
+					}
+					long deals = counter.countFrom(0, unplaced & ~answer);
+					if (deals < 0)
+					{
+						return null;
+					}
+					counter.answerCounts[(s * Game.NUM_WEAPONS + w) * Game.NUM_ROOMS + r] = deals;
+					counter.total += deals;
+				}
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * @param seat - The first seat that has not been dealt to
+	 * @param remaining - The cards left to deal
+	 * @return The number of ways to deal the cards to the seats from seat on,
+	 * or -1 if there were too many states to remember
+	 */
+	private long countFrom(int seat, int remaining)
+	{
+		if (seat == numPlayers)
+		{
+			return remaining == 0 ? 1 : 0;
+		}
+		//Cards no later seat can hold must go to this one
+		int forced = remaining & ~laterPossible[seat];
+		int need = room[seat] - Integer.bitCount(forced);
+		int choices = remaining & possible[seat] & ~forced;
+		if ((forced & ~possible[seat]) != 0 || need < 0 || Integer.bitCount(choices) < need)
+		{
+			return 0;
+		}
+		long key = (long) seat << Integer.SIZE | remaining;
+		long known = memo.get(key);
+		if (known >= 0)
+		{
+			return known;
+		}
+		if (memo.size() >= maxStates)
+		{
+			return -1;
+		}
+		long count = choose(seat, remaining, choices, need, forced);
+		if (count >= 0)
+		{
+			memo.put(key, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Give the seat every set of need cards from choices, along with the chosen cards
+	 * @return The number of ways to deal the rest for all of the sets, or -1 if counting gave up
+	 */
+	private long choose(int seat, int remaining, int choices, int need, int chosen)
+	{
+		if (need == 0)
+		{
+			for (int clause : clauses[seat])
+			{
+				if ((clause & chosen) == 0)
+				{
+					return 0;
+				}
+			}
+			return countFrom(seat + 1, remaining & ~chosen);
+		}
+		long count = 0;
+		//Each set is made once, by picking its cards from lowest to highest
+		while (Integer.bitCount(choices) >= need)
+		{
+			int card = choices & -choices;
+			choices &= choices - 1;
+			long ways = choose(seat, remaining, choices, need - 1, chosen | card);
+			if (ways < 0)
+			{
+				return -1;
+			}
+			count += ways;
+		}
+		return count;
+	}
+
+	/**
+	 * @return The number of deals consistent with the notebook
+	 */
+	public long getTotal()
+	{
+		return total;
+	}
+
+	/**
+	 * @param suspect - A suspect card's ID
+	 * @param weapon - A weapon card's ID
+	 * @param room - A room card's ID
+	 * @return The number of consistent deals with that answer
+	 * @throws IllegalArgumentException
+	 * If a card is not of the right type
+	 */
+	public long getCount(int suspect, int weapon, int room)
+	{
+		int w = weapon - Game.MAX_PLAYERS;
+		int r = room - Game.MAX_PLAYERS - Game.NUM_WEAPONS;
+		if (suspect < 0 || suspect >= Game.MAX_PLAYERS || w < 0 || w >= Game.NUM_WEAPONS || r < 0 || r >= Game.NUM_ROOMS)
+		{
+			throw new IllegalArgumentException("Not a valid answer");
+		}
+		return answerCounts[(suspect * Game.NUM_WEAPONS + w) * Game.NUM_ROOMS + r];
+	}
+
+	/**
+	 * @param card - A card ID
+	 * @return The exact chance that the card is in the answer
+	 * @throws IllegalArgumentException
+	 * If there is no card with the ID
+	 */
+	public double getProbability(int card)
+	{
+		if (card < 0 || card >= GameBuilder.NUM_CARDS)
+		{
+			throw new IllegalArgumentException("Not a valid card ID: " + card);
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+		long with = 0;
+		for (int i = 0; i < answerCounts.length; i++)
+		{
+			int s = i / (Game.NUM_WEAPONS * Game.NUM_ROOMS);
+			int w = Game.MAX_PLAYERS + i / Game.NUM_ROOMS % Game.NUM_WEAPONS;
+			int r = Game.MAX_PLAYERS + Game.NUM_WEAPONS + i % Game.NUM_ROOMS;
+			if (s == card || w == card || r == card)
+			{
+				with += answerCounts[i];
+			}
+		}
+		return (double) with / total;
+	}
+
+	/**
+	 * @return The suspect, weapon and room card IDs of the answer with the most consistent deals
+	 */
+	public int[] getMostLikely()
+	{
+		int best = 0;
+		for (int i = 1; i < answerCounts.length; i++)
+		{
+			if (answerCounts[i] > answerCounts[best])
+			{
+				best = i;
+			}
+		}
+		return answer(best);
+	}
+
+	/**
+	 * @return The answer if it is certain (it is the only answer with a consistent deal),
+	 * otherwise null
+	 */
+	public int[] getSolution()
+	{
+		int[] best = getMostLikely();
+		return total > 0 && getCount(best[0], best[1], best[2]) == total ? best : null;
+	}
+
+	/**
+	 * @return The card IDs of the answer at an index of answerCounts
+	 */
+	private static int[] answer(int index)
+	{
+		int r = index % Game.NUM_ROOMS;
+		int w = index / Game.NUM_ROOMS % Game.NUM_WEAPONS;
+		int s = index / (Game.NUM_ROOMS * Game.NUM_WEAPONS);
+		return new int[] { s, Game.MAX_PLAYERS + w, Game.MAX_PLAYERS + Game.NUM_WEAPONS + r };
+	}
+
+	/**
+	 * A hash map from long keys to non negative long counts, without boxing.
+	 * Open addressing with linear probing, doubling when half full.
+	 */
+	private static class CountMap
+	{
+		private static final long EMPTY = -1;
+
+		private long[] keys;
+		private long[] values;
+		private int size;
+
+		CountMap(int capacity)
+		{
+			int length = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1);
+			keys = new long[length];
+			values = new long[length];
+			Arrays.fill(keys, EMPTY);
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		/**
+		 * @return The count for the key, or -1 if there is none
+		 */
+		long get(long key)
+		{
+			int mask = keys.length - 1;
+			for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask)
+			{
+				if (keys[i] == key)
+				{
+					return values[i];
+				}
+			}
+			return -1;
+		}
+
+		void put(long key, long value)
+		{
+			if (size * 2 >= keys.length)
+			{
+				long[] oldKeys = keys;
+				long[] oldValues = values;
+				keys = new long[oldKeys.length * 2];
+				values = new long[oldKeys.length * 2];
+				Arrays.fill(keys, EMPTY);
+				size = 0;
+				for (int i = 0; i < oldKeys.length; i++)
+				{
+					if (oldKeys[i] != EMPTY)
+					{
+						put(oldKeys[i], oldValues[i]);
+					}
+				}
+			}
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while (keys[i] != EMPTY && keys[i] != key)
+			{
+				i = (i + 1) & mask;
+			}
+			if (keys[i] == EMPTY)
+			{
+				size++;
+			}
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		private static int hash(long key)
+		{
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ h >>> 32);
+		}
+	}
+}
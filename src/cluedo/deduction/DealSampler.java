@@ -0,0 +1,323 @@
+package cluedo.deduction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import cluedo.game.GameBuilder;
+import cluedo.utility.RandomSource;
+
+/**
+ * Estimates the chance of each card being in the answer by sampling deals
+ * that are consistent with a Notebook, with every consistent deal treated as equally likely.
+ *
+ * A deal is made by giving the unplaced cards to owners one at a time, most constrained card first,
+ * each to a random owner that might hold it and still has room for it.
+ * This makes some deals more likely than others, so each deal is weighted by
+ * the product of the number of owners each card could have gone to (the inverse of its chance),
+ * and deals that break a clause or run out of owners get no weight.
+ *
+ * The sampling is split into one task per core on a ForkJoinPool.
+ * The tasks add their totals to an Estimate after every batch,
+ * so it can be read while they are running (see Estimate).
+ */
+public class DealSampler
+{
+	/**
+	 * The number of deals a task samples between adding them to the estimate
+	 */
+	static final int BATCH = 256;
+
+	private final int numPlayers;
+	/**
+	 * The cards each owner holds or might hold, indexed by seat with the CaseFile last
+	 */
+	private final int[] held;
+	private final int[] possible;
+	/**
+	 * How many more cards each seat needs
+	 */
+	private final int[] room;
+	/**
+	 * The types of card the CaseFile does not have yet, as a mask of the categories
+	 */
+	private final int caseFileRoom;
+	/**
+	 * The cards that are not placed yet, most constrained first
+	 */
+	private final int[] unplaced;
+	private final int[] clauseSeat;
+	private final int[] clauseMask;
+	/**
+	 * The notebook's own estimate, used until a deal is sampled
+	 */
+	private final double[] prior;
+
+	/**
+	 * @param notebook - The knowledge to sample deals for. Later changes to it are not seen.
+	 * @throws IllegalArgumentException
+	 * If the notebook is null
+	 */
+	public DealSampler(Notebook notebook)
+	{
+		if (notebook == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		numPlayers = notebook.getNumPlayers();
+		held = new int[numPlayers + 1];
+		possible = new int[numPlayers + 1];
+		room = new int[numPlayers];
+		int placed = 0;
+		for (int owner = 0; owner <= numPlayers; owner++)
+		{
+			int seat = owner == numPlayers ? Notebook.CASE_FILE : owner;
+			held[owner] = notebook.getHeld(seat);
+			possible[owner] = notebook.getPossible(seat);
+			placed |= held[owner];
+			if (owner < numPlayers)
+			{
+				room[owner] = notebook.getHandSize(seat) - Integer.bitCount(held[owner]);
+			}
+		}
+		int free = 0;
+		for (int c = 0; c < Notebook.CATEGORIES.length; c++)
+		{
+			if ((held[numPlayers] & Notebook.CATEGORIES[c]) == 0)
+			{
+				free |= 1 << c;
+			}
+		}
+		caseFileRoom = free;
+
+		List<Integer> cards = new ArrayList<Integer>();
+		int all = ((1 << GameBuilder.NUM_CARDS) - 1) & ~notebook.getPublicCards() & ~placed;
+		for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+		{
+			if ((all & 1 << card) != 0)
+			{
+				cards.add(card);
+			}
+		}
+		cards.sort((a, b) -> countOwners(a) - countOwners(b));
+		unplaced = new int[cards.size()];
+		for (int i = 0; i < unplaced.length; i++)
+		{
+			unplaced[i] = cards.get(i);
+		}
+
+		clauseSeat = new int[notebook.getClauseCount()];
+		clauseMask = new int[clauseSeat.length];
+		for (int i = 0; i < clauseSeat.length; i++)
+		{
+			clauseSeat[i] = notebook.getClauseSeat(i);
+			clauseMask[i] = notebook.getClauseMask(i);
+		}
+		prior = new double[GameBuilder.NUM_CARDS];
+		for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+		{
+			prior[card] = notebook.getSolutionProbability(card);
+		}
+	}
+
+	private int countOwners(int card)
+	{
+		int count = 0;
+		for (int owner = 0; owner <= numPlayers; owner++)
+		{
+			if ((possible[owner] & 1 << card) != 0)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Start sampling on the common ForkJoinPool, and return straight away
+	 * @param maxDeals - The most deals to sample
+	 * @param budgetMillis - The most time to spend sampling, in milliseconds, or Long.MAX_VALUE for no limit
+	 * @param seed - The seed each task's random numbers are made from
+	 * @return The estimate, which the tasks keep adding to until they finish
+	 */
+	public Estimate start(long maxDeals, long budgetMillis, long seed)
+	{
+		return start(maxDeals, budgetMillis, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Start sampling on the given pool, and return straight away
+	 * @param maxDeals - The most deals to sample
+	 * @param budgetMillis - The most time to spend sampling, in milliseconds, or Long.MAX_VALUE for no limit
+	 * @param seed - The seed each task's random numbers are made from
+	 * @param pool - The pool to sample on, with one task for each of its threads
+	 * @return The estimate, which the tasks keep adding to until they finish
+	 * @throws IllegalArgumentException
+	 * If maxDeals or budgetMillis is negative or the pool is null
+	 */
+	public Estimate start(long maxDeals, long budgetMillis, long seed, ForkJoinPool pool)
+	{
+		if (maxDeals < 0 || budgetMillis < 0 || pool == null)
+		{
+			throw new IllegalArgumentException("Must have a pool and a non negative number of deals and time");
+		}
+		int numTasks = pool.getParallelism();
+		//toNanos saturates at Long.MAX_VALUE instead of overflowing, and the tasks compare
+		//times by subtraction, so the sum may wrap around but still ends up that far ahead
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		List<SampleTask> tasks = new ArrayList<SampleTask>();
+		Estimate estimate = new Estimate(prior, tasks);
+		RandomSource random = new RandomSource(seed);
+		for (int i = 0; i < numTasks; i++)
+		{
+			long deals = maxDeals / numTasks + (i < maxDeals % numTasks ? 1 : 0);
+			tasks.add(new SampleTask(deals, deadline, random.split(), estimate));
+		}
+		for (SampleTask task : tasks)
+		{
+			pool.execute(task);
+		}
+		return estimate;
+	}
+
+	/**
+	 * Sample on the common ForkJoinPool and wait for it to finish
+	 * @param maxDeals - The most deals to sample
+	 * @param budgetMillis - The most time to spend sampling, in milliseconds, or Long.MAX_VALUE for no limit
+	 * @param seed - The seed each task's random numbers are made from
+	 * @return The finished estimate
+	 */
+	public Estimate sample(long maxDeals, long budgetMillis, long seed)
+	{
+		Estimate estimate = start(maxDeals, budgetMillis, seed);
+		estimate.await();
+		return estimate;
+	}
+
+	/**
+	 * Deal the unplaced cards
+	 * @param random - Where to get the random choices from
+	 * @param owners - Filled with the cards each owner ends up with
+	 * @param left - Space for how many more cards each seat needs
+	 * @param eligible - Space for the owners a card could go to
+	 * @return The deal's weight, 0 if it is not consistent
+	 */
+	private double deal(RandomSource random, int[] owners, int[] left, int[] eligible)
+	{
+		System.arraycopy(held, 0, owners, 0, owners.length);
+		System.arraycopy(room, 0, left, 0, left.length);
+		int caseFileLeft = caseFileRoom;
+		double weight = 1;
+		for (int card : unplaced)
+		{
+			int bit = 1 << card;
+			int count = 0;
+			for (int seat = 0; seat < numPlayers; seat++)
+			{
+				if (left[seat] > 0 && (possible[seat] & bit) != 0)
+				{
+					eligible[count++] = seat;
+				}
+			}
+			int category = category(bit);
+			if ((caseFileLeft & 1 << category) != 0 && (possible[numPlayers] & bit) != 0)
+			{
+				eligible[count++] = numPlayers;
+			}
+			if (count == 0)
+			{
+				return 0;
+			}
+			int owner = eligible[count == 1 ? 0 : random.nextInt(count)];
+			weight *= count;
+			owners[owner] |= bit;
+			if (owner == numPlayers)
+			{
+				caseFileLeft &= ~(1 << category);
+			}
+			else
+			{
+				left[owner]--;
+			}
+		}
+		for (int i = 0; i < clauseSeat.length; i++)
+		{
+			if ((owners[clauseSeat[i]] & clauseMask[i]) == 0)
+			{
+				return 0;
+			}
+		}
+		return weight;
+	}
+
+	private static int category(int bit)
+	{
+		for (int c = 0; c < Notebook.CATEGORIES.length; c++)
+		{
+			if ((Notebook.CATEGORIES[c] & bit) != 0)
+			{
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("Not a card");
+	}
+
+	/**
+	 * Samples deals until it has done its share, the time is up or the estimate is cancelled
+	 */
+	private class SampleTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final long deals;
+		private final long deadline;
+		private final RandomSource random;
+		private final Estimate estimate;
+
+		SampleTask(long deals, long deadline, RandomSource random, Estimate estimate)
+		{
+			this.deals = deals;
+			this.deadline = deadline;
+			this.random = random;
+			this.estimate = estimate;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int[] owners = new int[numPlayers + 1];
+			int[] left = new int[numPlayers];
+			int[] eligible = new int[numPlayers + 1];
+			double[] cardWeight = new double[GameBuilder.NUM_CARDS];
+			long done = 0;
+			while (done < deals && !estimate.isCancelled() && System.nanoTime() - deadline < 0)
+			{
+				int batch = (int) Math.min(BATCH, deals - done);
+				double total = 0;
+				int accepted = 0;
+				for (int i = 0; i < batch; i++)
+				{
+					double weight = deal(random, owners, left, eligible);
+					if (weight == 0)
+					{
+						continue;
+					}
+					accepted++;
+					total += weight;
+					int answer = owners[numPlayers];
+					while (answer != 0)
+					{
+						cardWeight[Integer.numberOfTrailingZeros(answer)] += weight;
+						answer &= answer - 1;
+					}
+				}
+				estimate.add(batch, accepted, total, cardWeight);
+				Arrays.fill(cardWeight, 0);
+				done += batch;
+			}
+		}
+	}
+}
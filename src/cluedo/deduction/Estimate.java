@@ -0,0 +1,154 @@
+package cluedo.deduction;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import cluedo.game.GameBuilder;
+
+/**
+ * The chance of each card being in the answer, from the deals sampled by a DealSampler.
+ *
+ * The sampling tasks add to the totals after every batch, using adders so they never wait
+ * on each other, and the estimate can be read at any time while they run.
+ * A read while the tasks are running may mix totals from slightly different moments,
+ * which only matters until the next batch. The totals are exact once isDone() is true.
+ */
+public class Estimate
+{
+	/**
+	 * The notebook's estimate, returned until a consistent deal has been sampled
+	 */
+	private final double[] prior;
+	private final List<? extends ForkJoinTask<?>> tasks;
+	private final LongAdder deals = new LongAdder();
+	private final LongAdder acceptedDeals = new LongAdder();
+	private final DoubleAdder totalWeight = new DoubleAdder();
+	/**
+	 * The total weight of the deals with each card in the answer, by card ID
+	 */
+	private final DoubleAdder[] cardWeight = new DoubleAdder[GameBuilder.NUM_CARDS];
+	private volatile boolean cancelled;
+
+	Estimate(double[] prior, List<? extends ForkJoinTask<?>> tasks)
+	{
+		this.prior = prior;
+		this.tasks = tasks;
+		for (int i = 0; i < cardWeight.length; i++)
+		{
+			cardWeight[i] = new DoubleAdder();
+		}
+	}
+
+	/**
+	 * Add a batch of deals to the totals
+	 * @param batch - The number of deals sampled
+	 * @param accepted - The number of them that were consistent
+	 * @param total - Their total weight
+	 * @param weights - Their total weight with each card in the answer
+	 */
+	void add(int batch, int accepted, double total, double[] weights)
+	{
+		for (int card = 0; card < weights.length; card++)
+		{
+			if (weights[card] != 0)
+			{
+				cardWeight[card].add(weights[card]);
+			}
+		}
+		totalWeight.add(total);
+		acceptedDeals.add(accepted);
+		deals.add(batch);
+	}
+
+	/**
+	 * @param card - A card ID
+	 * @return The estimated chance that the card is in the answer
+	 * @throws IllegalArgumentException
+	 * If there is no card with the ID
+	 */
+	public double getProbability(int card)
+	{
+		if (card < 0 || card >= GameBuilder.NUM_CARDS)
+		{
+			throw new IllegalArgumentException("Not a valid card ID: " + card);
+		}
+		double total = totalWeight.sum();
+		if (total == 0)
+		{
+			return prior[card];
+		}
+		return Math.min(1, cardWeight[card].sum() / total);
+	}
+
+	/**
+	 * @return The estimated chance of each card being in the answer, by card ID
+	 */
+	public double[] getProbabilities()
+	{
+		double[] probabilities = new double[GameBuilder.NUM_CARDS];
+		for (int card = 0; card < probabilities.length; card++)
+		{
+			probabilities[card] = getProbability(card);
+		}
+		return probabilities;
+	}
+
+	/**
+	 * @return The number of deals sampled so far
+	 */
+	public long getDeals()
+	{
+		return deals.sum();
+	}
+
+	/**
+	 * @return The number of sampled deals that were consistent with the notebook
+	 */
+	public long getAcceptedDeals()
+	{
+		return acceptedDeals.sum();
+	}
+
+	/**
+	 * Stop sampling after the current batch
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * @return true if every sampling task has finished
+	 */
+	public boolean isDone()
+	{
+		for (ForkJoinTask<?> task : tasks)
+		{
+			if (!task.isDone())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Wait for every sampling task to finish
+	 * @return This estimate
+	 */
+	public Estimate await()
+	{
+		for (ForkJoinTask<?> task : tasks)
+		{
+			task.join();
+		}
+		return this;
+	}
+}
@@ -0,0 +1,616 @@
+package cluedo.deduction;
+
+import java.util.Arrays;
+import java.util.List;
+
+import cluedo.game.EventLog;
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.Player;
+import cluedo.model.cards.CardSet;
+
+/**
+ * A detective's notebook that works out who holds each card from everything
+ * a player has seen: their own hand, the public extra cards, the cards shown to them,
+ * and who could or could not disprove every suggestion.
+ *
+ * The knowledge is a matrix of the owners (each seat, and the answer CaseFile) by the cards,
+ * kept as two CardSet masks per owner: the cards they are known to hold and the cards
+ * they are known not to hold. A disproved suggestion the player did not see the card for
+ * adds a clause, "the disprover holds at least one of these cards".
+ * After every observation the rules below are applied until nothing changes:
+ * <ul>
+ * <li>A card is held by exactly one owner, or by nobody if it is a public extra card</li>
+ * <li>Each seat holds exactly their hand size of cards</li>
+ * <li>The CaseFile holds exactly one suspect, one weapon and one room</li>
+ * <li>A clause with one card left that the disprover might hold means they hold it</li>
+ * </ul>
+ * Everything is a bitwise operation on ints, so an observation takes a few microseconds.
+ *
+ * Seats are indexes in Game.getSeats(), and cards are card IDs (see GameBuilder.getCard).
+ */
+public final class Notebook
+{
+	/**
+	 * The seat to pass to the query methods for the answer CaseFile
+	 */
+	public static final int CASE_FILE = -1;
+
+	/**
+	 * What is known about whether an owner holds a card, see getStatus
+	 */
+	public static final int UNKNOWN = 0;
+	public static final int HOLDS = 1;
+	public static final int DOES_NOT_HOLD = 2;
+
+	/**
+	 * The three types of card, as masks of their IDs
+	 */
+	static final int SUSPECTS = (1 << Game.MAX_PLAYERS) - 1;
+	static final int WEAPONS = ((1 << Game.NUM_WEAPONS) - 1) << Game.MAX_PLAYERS;
+	static final int ROOMS = ((1 << Game.NUM_ROOMS) - 1) << (Game.MAX_PLAYERS + Game.NUM_WEAPONS);
+	static final int[] CATEGORIES = { SUSPECTS, WEAPONS, ROOMS };
+
+	private final int numPlayers;
+	/**
+	 * The number of cards each seat holds
+	 */
+	private final int[] handSize;
+	/**
+	 * The extra cards every player can see, which nobody holds
+	 */
+	private final int publicCards;
+	/**
+	 * The cards that are held by a seat or in the CaseFile
+	 */
+	private final int universe;
+	/**
+	 * The cards each owner is known to hold and known not to hold,
+	 * indexed by seat with the CaseFile last
+	 */
+	private final int[] holds;
+	private final int[] holdsNot;
+	/**
+	 * The seat and cards of each clause, see the class comment
+	 */
+	private int[] clauseSeat = new int[16];
+	private int[] clauseMask = new int[16];
+	private int numClauses;
+
+	/**
+	 * A copy of the knowledge before the current observation,
+	 * restored if the observation turns out to contradict it
+	 */
+	private final int[] savedHolds;
+	private final int[] savedHoldsNot;
+	private int[] savedClauseSeat = new int[16];
+	private int[] savedClauseMask = new int[16];
+	private int savedNumClauses;
+
+	/**
+	 * A notebook that knows nothing but the size of every hand
+	 * @param handSizes - The number of cards held by each seat
+	 * @param publicCards - The mask of the extra cards every player can see
+	 * @throws IllegalArgumentException
+	 * If the array is null or empty, or the hands and public cards do not add up to the deck
+	 */
+	public Notebook(int[] handSizes, int publicCards)
+	{
+		if (handSizes == null || handSizes.length == 0)
+		{
+			throw new IllegalArgumentException("There must be at least one hand");
+		}
+		int all = (1 << GameBuilder.NUM_CARDS) - 1;
+		int total = 0;
+		for (int size : handSizes)
+		{
+			total += size;
+		}
+		if ((publicCards & ~all) != 0 || total + Integer.bitCount(publicCards) + 3 != GameBuilder.NUM_CARDS
+				|| (publicCards & SUSPECTS) == SUSPECTS || (publicCards & WEAPONS) == WEAPONS
+				|| (publicCards & ROOMS) == ROOMS)
+		{
+			throw new IllegalArgumentException("The hands and public cards must add up to the deck");
+		}
+		numPlayers = handSizes.length;
+		handSize = handSizes.clone();
+		this.publicCards = publicCards;
+		universe = all & ~publicCards;
+		holds = new int[numPlayers + 1];
+		holdsNot = new int[numPlayers + 1];
+		savedHolds = new int[numPlayers + 1];
+		savedHoldsNot = new int[numPlayers + 1];
+		Arrays.fill(holdsNot, publicCards);
+		begin();
+		propagate();
+	}
+
+	/**
+	 * @param game - May not be null
+	 * @return A notebook of what the current player knows at the start of the game:
+	 * their hand and the extra cards
+	 */
+	public static Notebook forPlayer(Game game)
+	{
+		if (game == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		List<Player> seats = game.getSeats();
+		int publicCards = CardSet.of(game.getExtraCards()).getMask();
+		int[] handSizes = new int[seats.size()];
+		Arrays.fill(handSizes, (GameBuilder.NUM_CARDS - 3 - Integer.bitCount(publicCards)) / seats.size());
+		Notebook notebook = new Notebook(handSizes, publicCards);
+		notebook.observeHand(seats.indexOf(game.getCurrentPlayer()), CardSet.of(game.getPlayerHand()).getMask());
+		return notebook;
+	}
+
+	/**
+	 * A seat's whole hand is known, usually the player's own hand
+	 * @param seat - The seat holding the cards
+	 * @param hand - The mask of the cards in the hand
+	 * @throws IllegalArgumentException
+	 * If the seat is not valid or the hand contradicts what is already known
+	 */
+	public void observeHand(int seat, int hand)
+	{
+		checkSeat(seat);
+		begin();
+		holds[seat] |= hand;
+		holdsNot[seat] |= universe & ~hand;
+		propagate();
+	}
+
+	/**
+	 * A seat showed the player a card
+	 * @param seat - The seat that showed the card
+	 * @param card - The card's ID
+	 * @throws IllegalArgumentException
+	 * If the seat or card is not valid or the card contradicts what is already known
+	 */
+	public void observeCard(int seat, int card)
+	{
+		checkSeat(seat);
+		checkCard(card);
+		begin();
+		holds[seat] |= 1 << card;
+		propagate();
+	}
+
+	/**
+	 * A suggestion was made and disproved by the first seat after the suggester that could,
+	 * so every seat in between holds none of the suggested cards.
+	 * @param suggester - The seat that made the suggestion
+	 * @param suspect - The suggested suspect card's ID
+	 * @param weapon - The suggested weapon card's ID
+	 * @param room - The suggested room card's ID
+	 * @param disprover - The seat that disproved it, or -1 if nobody could
+	 * @param shown - The ID of the card shown, or -1 if the player did not see it
+	 * @throws IllegalArgumentException
+	 * If the seats or cards are not valid or the suggestion contradicts what is already known
+	 */
+	public void observeSuggestion(int suggester, int suspect, int weapon, int room, int disprover, int shown)
+	{
+		checkSeat(suggester);
+		if (disprover != -1)
+		{
+			checkSeat(disprover);
+		}
+		checkCard(suspect);
+		checkCard(weapon);
+		checkCard(room);
+		if ((SUSPECTS & 1 << suspect) == 0 || (WEAPONS & 1 << weapon) == 0 || (ROOMS & 1 << room) == 0
+				|| disprover == suggester)
+		{
+			throw new IllegalArgumentException("Not a valid suggestion");
+		}
+		int suggested = 1 << suspect | 1 << weapon | 1 << room;
+		if (shown != -1)
+		{
+			checkCard(shown);
+			if (disprover == -1 || (suggested & 1 << shown) == 0)
+			{
+				throw new IllegalArgumentException("The card shown must be one of the suggested cards");
+			}
+		}
+		begin();
+		int end = disprover == -1 ? suggester : disprover;
+		for (int seat = (suggester + 1) % numPlayers; seat != end; seat = (seat + 1) % numPlayers)
+		{
+			holdsNot[seat] |= suggested;
+		}
+		if (shown != -1)
+		{
+			holds[disprover] |= 1 << shown;
+		}
+		else if (disprover != -1)
+		{
+			addClause(disprover, suggested);
+		}
+		propagate();
+	}
+
+	/**
+	 * Observe the suggestions in a game's events, and the cards shown to the player
+	 * @param log - The game's events
+	 * @param from - The index of the first event that has not been observed
+	 * @param viewer - The seat of the player whose notebook this is
+	 * @return The index to pass as from next time, to only observe the new events
+	 * @throws IllegalArgumentException
+	 * If the log is null, the seat is not valid or an event contradicts what is already known
+	 */
+	public int observe(EventLog log, int from, int viewer)
+	{
+		if (log == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		checkSeat(viewer);
+		for (int i = from; i < log.size(); i++)
+		{
+			long event = log.get(i);
+			switch (EventLog.getType(event))
+			{
+				case EventLog.SUGGEST:
+					int disprover = EventLog.getArg(event, 3);
+					observeSuggestion(EventLog.getSeat(event), EventLog.getArg(event, 0), EventLog.getArg(event, 1),
+							EventLog.getArg(event, 2), disprover == EventLog.NONE ? -1 : disprover, -1);
+					break;
+				case EventLog.REVEAL:
+					if (EventLog.getArg(event, 1) == viewer)
+					{
+						observeCard(EventLog.getSeat(event), EventLog.getArg(event, 0));
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		return Math.max(from, log.size());
+	}
+
+	private void addClause(int seat, int mask)
+	{
+		if (numClauses == clauseMask.length)
+		{
+			clauseSeat = Arrays.copyOf(clauseSeat, numClauses * 2);
+			clauseMask = Arrays.copyOf(clauseMask, numClauses * 2);
+		}
+		clauseSeat[numClauses] = seat;
+		clauseMask[numClauses] = mask;
+		numClauses++;
+	}
+
+	/**
+	 * Save the knowledge before an observation changes it
+	 */
+	private void begin()
+	{
+		System.arraycopy(holds, 0, savedHolds, 0, holds.length);
+		System.arraycopy(holdsNot, 0, savedHoldsNot, 0, holdsNot.length);
+		if (savedClauseMask.length < clauseMask.length)
+		{
+			savedClauseSeat = new int[clauseSeat.length];
+			savedClauseMask = new int[clauseMask.length];
+		}
+		System.arraycopy(clauseSeat, 0, savedClauseSeat, 0, numClauses);
+		System.arraycopy(clauseMask, 0, savedClauseMask, 0, numClauses);
+		savedNumClauses = numClauses;
+	}
+
+	/**
+	 * Put back the knowledge saved by begin, and report the contradiction
+	 */
+	private IllegalArgumentException contradiction()
+	{
+		System.arraycopy(savedHolds, 0, holds, 0, holds.length);
+		System.arraycopy(savedHoldsNot, 0, holdsNot, 0, holdsNot.length);
+		System.arraycopy(savedClauseSeat, 0, clauseSeat, 0, savedNumClauses);
+		System.arraycopy(savedClauseMask, 0, clauseMask, 0, savedNumClauses);
+		numClauses = savedNumClauses;
+		return new IllegalArgumentException("Observation contradicts what is already known");
+	}
+
+	/**
+	 * Apply the rules until nothing changes
+	 * @throws IllegalArgumentException
+	 * If the knowledge is contradictory, after restoring the saved knowledge
+	 */
+	private void propagate()
+	{
+		int caseFile = numPlayers;
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			//Each card has one owner
+			int held = 0;
+			for (int owner = 0; owner <= caseFile; owner++)
+			{
+				if ((holds[owner] & holdsNot[owner]) != 0 || (held & holds[owner]) != 0)
+				{
+					throw contradiction();
+				}
+				held |= holds[owner];
+			}
+			for (int owner = 0; owner <= caseFile; owner++)
+			{
+				int others = held & ~holds[owner] & ~holdsNot[owner];
+				if (others != 0)
+				{
+					holdsNot[owner] |= others;
+					changed = true;
+				}
+			}
+			int unowned = universe & ~held;
+			while (unowned != 0)
+			{
+				int card = unowned & -unowned;
+				unowned &= unowned - 1;
+				int possibleOwner = -1;
+				int count = 0;
+				for (int owner = 0; owner <= caseFile; owner++)
+				{
+					if ((holdsNot[owner] & card) == 0)
+					{
+						possibleOwner = owner;
+						count++;
+					}
+				}
+				if (count == 0)
+				{
+					throw contradiction();
+				}
+				if (count == 1)
+				{
+					holds[possibleOwner] |= card;
+					changed = true;
+				}
+			}
+			//Hand sizes
+			for (int seat = 0; seat < numPlayers; seat++)
+			{
+				int known = Integer.bitCount(holds[seat]);
+				int possible = universe & ~holdsNot[seat];
+				int numPossible = Integer.bitCount(possible);
+				if (known > handSize[seat] || numPossible < handSize[seat])
+				{
+					throw contradiction();
+				}
+				if (known == handSize[seat] && possible != holds[seat])
+				{
+					holdsNot[seat] |= universe & ~holds[seat];
+					changed = true;
+				}
+				else if (numPossible == handSize[seat] && possible != holds[seat])
+				{
+					holds[seat] = possible;
+					changed = true;
+				}
+			}
+			//One of each type in the CaseFile
+			for (int category : CATEGORIES)
+			{
+				int known = holds[caseFile] & category;
+				int possible = category & ~holdsNot[caseFile];
+				if (Integer.bitCount(known) > 1 || possible == 0)
+				{
+					throw contradiction();
+				}
+				if (known != 0 && possible != known)
+				{
+					holdsNot[caseFile] |= category & ~known;
+					changed = true;
+				}
+				else if (known == 0 && Integer.bitCount(possible) == 1)
+				{
+					holds[caseFile] |= possible;
+					changed = true;
+				}
+			}
+			//Clauses
+			for (int i = numClauses - 1; i >= 0; i--)
+			{
+				int seat = clauseSeat[i];
+				int mask = clauseMask[i] & ~holdsNot[seat];
+				if ((mask & holds[seat]) != 0 || Integer.bitCount(mask) == 1)
+				{
+					if ((mask & holds[seat]) == 0)
+					{
+						holds[seat] |= mask;
+						changed = true;
+					}
+					numClauses--;
+					clauseSeat[i] = clauseSeat[numClauses];
+					clauseMask[i] = clauseMask[numClauses];
+				}
+				else if (mask == 0)
+				{
+					throw contradiction();
+				}
+				else
+				{
+					clauseMask[i] = mask;
+				}
+			}
+		}
+	}
+
+	private void checkSeat(int seat)
+	{
+		if (seat < 0 || seat >= numPlayers)
+		{
+			throw new IllegalArgumentException("Not a valid seat: " + seat);
+		}
+	}
+
+	private void checkCard(int card)
+	{
+		if (card < 0 || card >= GameBuilder.NUM_CARDS)
+		{
+			throw new IllegalArgumentException("Not a valid card ID: " + card);
+		}
+	}
+
+	/**
+	 * @return The owner index for a seat, or the CaseFile for CASE_FILE
+	 */
+	private int owner(int seat)
+	{
+		if (seat == CASE_FILE)
+		{
+			return numPlayers;
+		}
+		checkSeat(seat);
+		return seat;
+	}
+
+	/**
+	 * @return The number of seats
+	 */
+	public int getNumPlayers()
+	{
+		return numPlayers;
+	}
+
+	/**
+	 * @param seat - A seat
+	 * @return The number of cards the seat holds
+	 */
+	public int getHandSize(int seat)
+	{
+		checkSeat(seat);
+		return handSize[seat];
+	}
+
+	/**
+	 * @return The mask of the extra cards every player can see
+	 */
+	public int getPublicCards()
+	{
+		return publicCards;
+	}
+
+	/**
+	 * @param seat - A seat, or CASE_FILE
+	 * @param card - A card ID
+	 * @return HOLDS, DOES_NOT_HOLD or UNKNOWN
+	 */
+	public int getStatus(int seat, int card)
+	{
+		int owner = owner(seat);
+		checkCard(card);
+		if ((holds[owner] & 1 << card) != 0)
+		{
+			return HOLDS;
+		}
+		return (holdsNot[owner] & 1 << card) != 0 ? DOES_NOT_HOLD : UNKNOWN;
+	}
+
+	/**
+	 * @param seat - A seat, or CASE_FILE
+	 * @return The mask of the cards the owner is known to hold
+	 */
+	public int getHeld(int seat)
+	{
+		return holds[owner(seat)];
+	}
+
+	/**
+	 * @param seat - A seat, or CASE_FILE
+	 * @return The mask of the cards the owner might hold, including the ones they are known to hold
+	 */
+	public int getPossible(int seat)
+	{
+		return universe & ~holdsNot[owner(seat)];
+	}
+
+	/**
+	 * @return The number of clauses that are not yet resolved
+	 */
+	public int getClauseCount()
+	{
+		return numClauses;
+	}
+
+	/**
+	 * @param i - A clause's index, less than getClauseCount()
+	 * @return The seat that holds at least one of the clause's cards
+	 */
+	public int getClauseSeat(int i)
+	{
+		return clauseSeat[i];
+	}
+
+	/**
+	 * @param i - A clause's index, less than getClauseCount()
+	 * @return The mask of the clause's cards the seat might still hold
+	 */
+	public int getClauseMask(int i)
+	{
+		return clauseMask[i];
+	}
+
+	/**
+	 * @return The suspect, weapon and room card IDs of the answer,
+	 * or null if they are not all known
+	 */
+	public int[] getSolution()
+	{
+		int answer = holds[numPlayers];
+		if (Integer.bitCount(answer) != CATEGORIES.length)
+		{
+			return null;
+		}
+		int[] solution = new int[CATEGORIES.length];
+		for (int i = 0; i < CATEGORIES.length; i++)
+		{
+			solution[i] = Integer.numberOfTrailingZeros(answer & CATEGORIES[i]);
+		}
+		return solution;
+	}
+
+	/**
+	 * The chance that a card is in the answer, treating every card of its type
+	 * that could still be in the CaseFile as equally likely.
+	 * This only uses the knowledge matrix, so it ignores how likely
+	 * the clauses and hand sizes make each card.
+	 * @param card - A card ID
+	 * @return The chance, 1 if the card is known to be in the answer and 0 if it cannot be
+	 */
+	public double getSolutionProbability(int card)
+	{
+		checkCard(card);
+		int bit = 1 << card;
+		int possible = getPossible(CASE_FILE);
+		if ((possible & bit) == 0)
+		{
+			return 0;
+		}
+		for (int category : CATEGORIES)
+		{
+			if ((category & bit) != 0)
+			{
+				return 1.0 / Integer.bitCount(possible & category);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+		{
+			builder.append(String.format("%-16s", GameBuilder.getCard(card).getName()));
+			for (int owner = 0; owner <= numPlayers; owner++)
+			{
+				int status = getStatus(owner == numPlayers ? CASE_FILE : owner, card);
+				builder.append(status == HOLDS ? " X" : status == DOES_NOT_HOLD ? " -" : " ?");
+			}
+			builder.append('\n');
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,34 @@
+package cluedo.engine;
+
+import java.util.Set;
+
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+
+/**
+ * Plays a character in place of a human.
+ * An Agent is asked for a Command whenever it is its character's turn,
+ * and for a card to reveal when its character has to disprove a suggestion.
+ *
+ * An Agent should only look at what its character is allowed to know,
+ * such as the current player's hand and CaseFile from the Game.
+ */
+public interface Agent
+{
+	/**
+	 * Decide what the current player does next.
+	 * If the command is rejected the agent is asked again.
+	 * @param engine - The engine running the game, to query the game's state
+	 * @return The command to execute for the current player
+	 */
+	Command nextCommand(Engine engine);
+
+	/**
+	 * Choose which card to show the suggesting player.
+	 * @param engine - The engine running the game
+	 * @param suggester - The player that made the suggestion
+	 * @param cards - The cards that can disprove the suggestion, one must be chosen
+	 * @return One of the cards
+	 */
+	Card chooseCardToReveal(Engine engine, Player suggester, Set<Card> cards);
+}
@@ -0,0 +1,269 @@
+package cluedo.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cluedo.board.Board;
+import cluedo.game.Action;
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.Cell;
+import cluedo.model.Player;
+import cluedo.model.Room;
+import cluedo.model.cards.Card;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * A single action that can be given to the Engine.
+ * Commands are immutable and are created using the static factory
+ * methods, one for each type of action a player can take in Cluedo.
+ * Only the fields relevant to the command's type are set, the rest are null.
+ */
+public final class Command
+{
+	/**
+	 * The types of actions that a player can take
+	 */
+	public enum Type {MOVE, MOVE_PATH, MOVE_TOWARD, TAKE_EXIT, SUGGEST, DISPROVE, ACCUSE, END_TURN};
+
+	/**
+	 * There is no state for ending a turn so the one instance can be shared
+	 */
+	private static final Command END_TURN = new Command(Type.END_TURN, null, null, null, null, null, null, null, null, null);
+
+	private final Type type;
+	private final Direction direction;
+	private final List<Direction> path;
+	private final Room room;
+	private final Cell exit;
+	private final Player player;
+	private final Card card;
+	private final SuspectCard suspectCard;
+	private final WeaponCard weaponCard;
+	private final RoomCard roomCard;
+
+	private Command(Type type, Direction direction, List<Direction> path, Room room, Cell exit, Player player,
+			Card card, SuspectCard suspectCard, WeaponCard weaponCard, RoomCard roomCard)
+	{
+		this.type = type;
+		this.direction = direction;
+		this.path = path;
+		this.room = room;
+		this.exit = exit;
+		this.player = player;
+		this.card = card;
+		this.suspectCard = suspectCard;
+		this.weaponCard = weaponCard;
+		this.roomCard = roomCard;
+	}
+
+	/**
+	 * Move the current player one cell in the given direction
+	 * @param direction - The direction to move in
+	 * @throws IllegalArgumentException if the argument is null
+	 */
+	public static Command move(Direction direction)
+	{
+		if (direction == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.MOVE, direction, null, null, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Move the current player along a whole path in one command.
+	 * Either every step is taken or the command is rejected and the player does not move.
+	 * @param path - The directions of each step, in order
+	 * @throws IllegalArgumentException if the path is null, empty or contains null
+	 */
+	public static Command moveAlong(List<Direction> path)
+	{
+		if (path == null || path.isEmpty() || path.contains(null))
+		{
+			throw new IllegalArgumentException("Path must be a non empty list of directions");
+		}
+		List<Direction> copy = Collections.unmodifiableList(new ArrayList<Direction>(path));
+		return new Command(Type.MOVE_PATH, null, copy, null, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Move the current player along the shortest path towards a room,
+	 * as far as their remaining moves allow
+	 * @param room - The room to move towards
+	 * @throws IllegalArgumentException if the argument is null
+	 */
+	public static Command moveToward(Room room)
+	{
+		if (room == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.MOVE_TOWARD, null, null, room, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Move the current player out of their room through an exit
+	 * (or through the room's secret passage)
+	 * @param exit - One of the exits of the room the current player is in
+	 * @throws IllegalArgumentException if the argument is null
+	 */
+	public static Command takeExit(Cell exit)
+	{
+		if (exit == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.TAKE_EXIT, null, null, null, exit, null, null, null, null, null);
+	}
+
+	/**
+	 * Suggest the murder was committed in the current player's room
+	 * by the suspect with the weapon
+	 * @throws IllegalArgumentException if the arguments are null
+	 */
+	public static Command suggest(SuspectCard suspectCard, WeaponCard weaponCard)
+	{
+		if (suspectCard == null || weaponCard == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.SUGGEST, null, null, null, null, null, null, suspectCard, weaponCard, null);
+	}
+
+	/**
+	 * The card the disproving player reveals to the suggesting player
+	 * @param card - One of the disproving player's matching cards
+	 * @throws IllegalArgumentException if the argument is null
+	 */
+	public static Command disprove(Card card)
+	{
+		if (card == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.DISPROVE, null, null, null, null, null, card, null, null, null);
+	}
+
+	/**
+	 * An accusation by any active player
+	 * @param player - The player making the accusation
+	 * @throws IllegalArgumentException if the arguments are null
+	 */
+	public static Command accuse(Player player, SuspectCard suspectCard, WeaponCard weaponCard, RoomCard roomCard)
+	{
+		if (player == null || suspectCard == null || weaponCard == null || roomCard == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return new Command(Type.ACCUSE, null, null, null, null, player, null, suspectCard, weaponCard, roomCard);
+	}
+
+	/**
+	 * End the current player's turn
+	 */
+	public static Command endTurn()
+	{
+		return END_TURN;
+	}
+
+	/**
+	 * The command for an action listed by Game.getLegalActions
+	 * @param game - The game the action was listed for
+	 * @param action - An action encoded as described in Action
+	 * @throws IllegalArgumentException
+	 * If the game is null or the action's type is unknown
+	 */
+	public static Command fromAction(Game game, int action)
+	{
+		if (game == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		switch (Action.getType(action))
+		{
+			case Action.MOVE:
+				return move(Action.getDirection(action));
+			case Action.EXIT:
+				int cell = Action.getCell(action);
+				return takeExit(game.getCells()[cell % Board.WIDTH][cell / Board.WIDTH]);
+			case Action.SUGGEST:
+				return suggest((SuspectCard) GameBuilder.getCard(Action.getSuspect(action)),
+						(WeaponCard) GameBuilder.getCard(Action.getWeapon(action)));
+			case Action.ACCUSE:
+				return accuse(game.getCurrentPlayer(), (SuspectCard) GameBuilder.getCard(Action.getSuspect(action)),
+						(WeaponCard) GameBuilder.getCard(Action.getWeapon(action)),
+						(RoomCard) GameBuilder.getCard(Action.getRoom(action)));
+			case Action.END_TURN:
+				return END_TURN;
+			default:
+				throw new IllegalArgumentException("Unknown action " + action);
+		}
+	}
+
+	public Type getType()
+	{
+		return type;
+	}
+
+	public Direction getDirection()
+	{
+		return direction;
+	}
+
+	/**
+	 * @return The directions of a MOVE_PATH command
+	 */
+	public List<Direction> getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * @return The room of a MOVE_TOWARD command
+	 */
+	public Room getRoom()
+	{
+		return room;
+	}
+
+	public Cell getExit()
+	{
+		return exit;
+	}
+
+	/**
+	 * @return The player making the accusation
+	 */
+	public Player getPlayer()
+	{
+		return player;
+	}
+
+	/**
+	 * @return The card revealed when disproving
+	 */
+	public Card getCard()
+	{
+		return card;
+	}
+
+	public SuspectCard getSuspectCard()
+	{
+		return suspectCard;
+	}
+
+	public WeaponCard getWeaponCard()
+	{
+		return weaponCard;
+	}
+
+	public RoomCard getRoomCard()
+	{
+		return roomCard;
+	}
+}
@@ -0,0 +1,148 @@
+package cluedo.engine;
+
+import java.util.List;
+
+import cluedo.exceptions.IllegalMethodCallException;
+import cluedo.game.Game;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+
+/**
+ * Plays the seats of a game that are taken by Agents, through an Engine.
+ * Seats without an agent are played by people through a user interface,
+ * which gives their commands to the Engine itself and calls the driver
+ * whenever it may be an agent's turn.
+ *
+ * When an agent's suggestion is disproved by another agent, the driver has it reveal a card.
+ * When it has to be disproved by a person the suggestion is left pending on the Engine,
+ * and the user interface has to send the DISPROVE command before the agents can carry on.
+ */
+public class Driver
+{
+	/**
+	 * An agent is taken to be stuck if it keeps giving commands that break the rules
+	 */
+	public static final int MAX_REJECTED_COMMANDS = 1000;
+
+	private final Engine engine;
+	private final Game game;
+	/**
+	 * The agent of each seat, null for seats played by people
+	 */
+	private final Agent[] agents;
+	private int rejected;
+
+	/**
+	 * @param engine - The engine running the game
+	 * @param agents - The agent for each seat in the order of Game.getSeats(),
+	 * null for a seat played by a person
+	 * @throws IllegalArgumentException
+	 * If an argument is null or there is not one agent or null for each seat
+	 */
+	public Driver(Engine engine, List<? extends Agent> agents)
+	{
+		if (engine == null || agents == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		this.engine = engine;
+		this.game = engine.getGame();
+		if (agents.size() != game.getSeats().size())
+		{
+			throw new IllegalArgumentException("Must have an agent or null for each of the " + game.getSeats().size() + " seats");
+		}
+		this.agents = agents.toArray(new Agent[agents.size()]);
+	}
+
+	/**
+	 * @param player - A player in the game
+	 * @return The player's agent, or null if they are played by a person
+	 */
+	public Agent getAgent(Player player)
+	{
+		int seat = game.getSeats().indexOf(player);
+		return seat < 0 ? null : agents[seat];
+	}
+
+	/**
+	 * @return true if the next command should come from an agent: the game is not over,
+	 * the current player has an agent and no person has to reveal a card
+	 */
+	public boolean isAgentTurn()
+	{
+		return !game.isGameOver() && engine.getPendingDisprover() == null && getAgent(game.getCurrentPlayer()) != null;
+	}
+
+	/**
+	 * @return true if the last MAX_REJECTED_COMMANDS commands from agents were all rejected
+	 */
+	public boolean isStuck()
+	{
+		return rejected >= MAX_REJECTED_COMMANDS;
+	}
+
+	/**
+	 * Ask the current player's agent for a command and execute it.
+	 * If it is a suggestion that another agent has to disprove, that agent reveals a card.
+	 * @return The result of the agent's command
+	 * @throws IllegalMethodCallException
+	 * If it is not an agent's turn
+	 */
+	public Result step()
+	{
+		if (!isAgentTurn())
+		{
+			throw new IllegalMethodCallException("It is not an agent's turn");
+		}
+		Result result = engine.execute(getAgent(game.getCurrentPlayer()).nextCommand(engine));
+		if (!result.isAccepted())
+		{
+			rejected++;
+			return result;
+		}
+		rejected = 0;
+		revealForAgent();
+		return result;
+	}
+
+	/**
+	 * If an agent has to disprove the last suggestion, have it reveal a card
+	 * @throws IllegalStateException
+	 * If the agent chooses a card it cannot reveal
+	 */
+	private void revealForAgent()
+	{
+		Player disprover = engine.getPendingDisprover();
+		Agent agent = disprover == null ? null : getAgent(disprover);
+		if (agent != null)
+		{
+			Card card = agent.chooseCardToReveal(engine, game.getCurrentPlayer(), engine.getPendingCards());
+			if (!engine.execute(Command.disprove(card)).isAccepted())
+			{
+				throw new IllegalStateException("The agent of " + game.getHumanName(disprover) + " revealed a card it cannot show");
+			}
+		}
+	}
+
+	/**
+	 * Play agents' commands until a person has to act, the game is over or an agent is stuck.
+	 * Call after a person's command, which may have been a suggestion an agent has to disprove.
+	 * @return The number of commands the agents gave
+	 */
+	public int playAgents()
+	{
+		revealForAgent();
+		int commands = 0;
+		while (isAgentTurn() && !isStuck())
+		{
+			step();
+			commands++;
+		}
+		return commands;
+	}
+
+	public Engine getEngine()
+	{
+		return engine;
+	}
+}
@@ -0,0 +1,267 @@
+package cluedo.engine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cluedo.board.MoveStatus;
+import cluedo.exceptions.HasRemainingMovesException;
+import cluedo.exceptions.IllegalMethodCallException;
+import cluedo.exceptions.InvalidMoveException;
+import cluedo.game.Game;
+import cluedo.model.Cell;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+
+/**
+ * A headless driver for the Cluedo game.
+ * The Engine takes typed Commands, applies them to the Game and
+ * returns a Result, rather than prompting for input like the user interfaces do.
+ * This allows games to be played by simulations and services
+ * without any of the Swing or console classes.
+ *
+ * Moves that break the rules of the game are rejected in the Result
+ * instead of being thrown, as it is normal for a client to attempt them.
+ * After a suggestion has been disproved, the disproving player must
+ * reveal a card with a DISPROVE command before any other command is accepted.
+ */
+public class Engine
+{
+	private final Game game;
+	/**
+	 * The player who has to reveal a card for the last suggestion
+	 * and the cards they can choose from.
+	 * Null if there is no suggestion waiting to be disproved.
+	 */
+	private Player pendingDisprover;
+	private Set<Card> pendingCards;
+
+	/**
+	 * Start a new game
+	 * @param activePlayers - The characters of the human players in turn order
+	 * @param playerNames - The names of the human players
+	 * @throws IllegalArgumentException
+	 * If the arguments are not valid for a Game
+	 */
+	public Engine(List<Player> activePlayers, List<String> playerNames)
+	{
+		this(new Game(activePlayers, playerNames));
+	}
+
+	/**
+	 * Start a new game that can be reproduced from its seed
+	 * @param activePlayers - The characters of the human players in turn order
+	 * @param playerNames - The names of the human players
+	 * @param seed - The seed for the game's dice rolls, cards and weapon placement
+	 * @throws IllegalArgumentException
+	 * If the arguments are not valid for a Game
+	 */
+	public Engine(List<Player> activePlayers, List<String> playerNames, long seed)
+	{
+		this(new Game(activePlayers, playerNames, seed));
+	}
+
+	/**
+	 * Drive a game that has already been created
+	 * @param game
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public Engine(Game game)
+	{
+		if (game == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		this.game = game;
+	}
+
+	/**
+	 * Apply the command to the game for the current player
+	 * (or the accusing player for an ACCUSE command).
+	 * @param command - The action to take
+	 * @return The outcome of the command.
+	 * If it was not accepted the game is unchanged.
+	 * @throws IllegalArgumentException
+	 * If the command is null
+	 */
+	public Result execute(Command command)
+	{
+		if (command == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		Command.Type type = command.getType();
+		if (game.isGameOver())
+		{
+			return Result.rejected(type, "Game is over.");
+		}
+		if (pendingDisprover != null && type != Command.Type.DISPROVE)
+		{
+			return Result.rejected(type, game.getHumanName(pendingDisprover) + " must reveal a card first");
+		}
+		try
+		{
+			switch (type)
+			{
+				case MOVE:
+					return move(command);
+				case MOVE_PATH:
+				case MOVE_TOWARD:
+					return moveFar(command);
+				case TAKE_EXIT:
+					return takeExit(command);
+				case SUGGEST:
+					return suggest(command);
+				case DISPROVE:
+					return disprove(command);
+				case ACCUSE:
+					return accuse(command);
+				case END_TURN:
+					return endTurn();
+				default:
+					throw new IllegalArgumentException("Command not recognised - internal error");
+			}
+		}
+		catch (InvalidMoveException | IllegalMethodCallException | HasRemainingMovesException e)
+		{
+			return Result.rejected(type, e.getMessage());
+		}
+	}
+
+	private Result move(Command command)
+	{
+		if (game.isInRoom())
+		{
+			return Result.rejected(Command.Type.MOVE, "Must take an exit to leave a room");
+		}
+		MoveStatus status = game.tryMove(command.getDirection());
+		if (status != MoveStatus.OK)
+		{
+			return Result.rejected(Command.Type.MOVE, status.getMessage());
+		}
+		return Result.moved(Command.Type.MOVE, game.getPosition(game.getCurrentPlayer()));
+	}
+
+	/**
+	 * Move along a whole path, or towards a room, in one go
+	 */
+	private Result moveFar(Command command) throws InvalidMoveException
+	{
+		if (game.isInRoom())
+		{
+			return Result.rejected(command.getType(), "Must take an exit to leave a room");
+		}
+		try
+		{
+			Cell cell = command.getType() == Command.Type.MOVE_PATH ? game.moveAlong(command.getPath())
+					: game.moveTowards(command.getRoom());
+			return Result.moved(command.getType(), cell);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return Result.rejected(command.getType(), e.getMessage());
+		}
+	}
+
+	private Result takeExit(Command command)
+	{
+		if (!game.isInRoom())
+		{
+			return Result.rejected(Command.Type.TAKE_EXIT, "Not in a room");
+		}
+		try
+		{
+			MoveStatus status = game.tryExit(command.getExit());
+			if (status != MoveStatus.OK)
+			{
+				return Result.rejected(Command.Type.TAKE_EXIT, status.getMessage());
+			}
+			return Result.moved(Command.Type.TAKE_EXIT, game.getPosition(game.getCurrentPlayer()));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return Result.rejected(Command.Type.TAKE_EXIT, e.getMessage());
+		}
+	}
+
+	private Result suggest(Command command)
+	{
+		if (!game.canMakeSuggestion())
+		{
+			return Result.rejected(Command.Type.SUGGEST, "Cannot make a suggestion");
+		}
+		Map<Player, Set<Card>> disprover = game.makeSuggestion(command.getWeaponCard(), command.getSuspectCard());
+		for (Map.Entry<Player, Set<Card>> entry : disprover.entrySet())
+		{
+			pendingDisprover = entry.getKey();
+			pendingCards = entry.getValue();
+		}
+		return Result.suggested(disprover);
+	}
+
+	private Result disprove(Command command)
+	{
+		if (pendingDisprover == null)
+		{
+			return Result.rejected(Command.Type.DISPROVE, "There is no suggestion to disprove");
+		}
+		Card card = command.getCard();
+		if (!pendingCards.contains(card))
+		{
+			return Result.rejected(Command.Type.DISPROVE, "Must reveal one of the suggested cards");
+		}
+		Map<Player, Card> revealed = new HashMap<Player, Card>();
+		revealed.put(pendingDisprover, card);
+		game.removeCard(revealed);
+		Player player = pendingDisprover;
+		pendingDisprover = null;
+		pendingCards = null;
+		return Result.disproved(player);
+	}
+
+	private Result accuse(Command command)
+	{
+		Player player = command.getPlayer();
+		if (!game.getActivePlayers().contains(player))
+		{
+			return Result.rejected(Command.Type.ACCUSE, "Only active players can make accusations");
+		}
+		boolean correct = game.makeAccusation(player, command.getWeaponCard(), command.getRoomCard(), command.getSuspectCard());
+		return Result.accused(player, correct);
+	}
+
+	private Result endTurn()
+	{
+		//nextTurn lets a player who is stuck, or in a room they cannot leave, end their turn early
+		Player player = game.nextTurn();
+		return Result.turnEnded(player);
+	}
+
+	/**
+	 * @return The game this engine is driving, for querying its state.
+	 */
+	public Game getGame()
+	{
+		return game;
+	}
+
+	/**
+	 * @return The player who must reveal a card for the last suggestion,
+	 * or null if no card needs to be revealed
+	 */
+	public Player getPendingDisprover()
+	{
+		return pendingDisprover;
+	}
+
+	/**
+	 * @return The cards the pending disprover can choose to reveal,
+	 * or null if no card needs to be revealed
+	 */
+	public Set<Card> getPendingCards()
+	{
+		return pendingCards;
+	}
+}
@@ -0,0 +1,87 @@
+package cluedo.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import cluedo.exceptions.InvalidMoveException;
+import cluedo.exceptions.NoAvailableExitException;
+import cluedo.game.Game;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+import cluedo.utility.Heading.Direction;
+import cluedo.utility.RandomSource;
+
+/**
+ * An Agent that wanders the board at random.
+ * It makes a suggestion whenever it can, using cards that are still in its CaseFile,
+ * and makes an accusation once only one card of each type is left in its CaseFile.
+ */
+public class RandomAgent implements Agent
+{
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final RandomSource random;
+
+	/**
+	 * @param random - The agent's source of random numbers
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public RandomAgent(RandomSource random)
+	{
+		if (random == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		this.random = random;
+	}
+
+	@Override
+	public Command nextCommand(Engine engine)
+	{
+		Game game = engine.getGame();
+		Player player = game.getCurrentPlayer();
+		List<SuspectCard> suspects = game.getPlayerSuspectCards();
+		List<WeaponCard> weapons = game.getPlayerWeaponCards();
+		List<RoomCard> rooms = game.getPlayerRoomCards();
+		if (suspects.size() == 1 && weapons.size() == 1 && rooms.size() == 1)
+		{
+			return Command.accuse(player, suspects.get(0), weapons.get(0), rooms.get(0));
+		}
+		if (game.canMakeSuggestion())
+		{
+			return Command.suggest(pick(suspects), pick(weapons));
+		}
+		if (!game.canMove())
+		{
+			return Command.endTurn();
+		}
+		if (game.isInRoom())
+		{
+			try
+			{
+				return Command.takeExit(pick(game.getAvailableExits()));
+			}
+			catch (InvalidMoveException | NoAvailableExitException e)
+			{
+				return Command.endTurn();
+			}
+		}
+		return Command.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+	}
+
+	@Override
+	public Card chooseCardToReveal(Engine engine, Player suggester, Set<Card> cards)
+	{
+		return pick(new ArrayList<Card>(cards));
+	}
+
+	private <E> E pick(List<E> items)
+	{
+		return items.get(random.nextInt(items.size()));
+	}
+}
@@ -0,0 +1,129 @@
+package cluedo.engine;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import cluedo.model.Cell;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+
+/**
+ * The outcome of executing a Command on the Engine.
+ * A rejected Result means the command broke the rules of the game
+ * and the state of the game has not changed.
+ * Only the fields relevant to the command's type are set.
+ */
+public final class Result
+{
+	private final Command.Type type;
+	private final boolean accepted;
+	private final String message;
+	private final Cell cell;
+	private final Player player;
+	private final Map<Player, Set<Card>> disprover;
+	private final boolean correct;
+
+	private Result(Command.Type type, boolean accepted, String message, Cell cell, Player player,
+			Map<Player, Set<Card>> disprover, boolean correct)
+	{
+		this.type = type;
+		this.accepted = accepted;
+		this.message = message;
+		this.cell = cell;
+		this.player = player;
+		this.disprover = disprover;
+		this.correct = correct;
+	}
+
+	static Result rejected(Command.Type type, String message)
+	{
+		return new Result(type, false, message, null, null, Collections.<Player, Set<Card>>emptyMap(), false);
+	}
+
+	static Result moved(Command.Type type, Cell cell)
+	{
+		return new Result(type, true, null, cell, null, Collections.<Player, Set<Card>>emptyMap(), false);
+	}
+
+	static Result suggested(Map<Player, Set<Card>> disprover)
+	{
+		return new Result(Command.Type.SUGGEST, true, null, null, null, Collections.unmodifiableMap(disprover), false);
+	}
+
+	static Result disproved(Player player)
+	{
+		return new Result(Command.Type.DISPROVE, true, null, null, player, Collections.<Player, Set<Card>>emptyMap(), false);
+	}
+
+	static Result accused(Player player, boolean correct)
+	{
+		return new Result(Command.Type.ACCUSE, true, null, null, player, Collections.<Player, Set<Card>>emptyMap(), correct);
+	}
+
+	static Result turnEnded(Player nextPlayer)
+	{
+		return new Result(Command.Type.END_TURN, true, null, null, nextPlayer, Collections.<Player, Set<Card>>emptyMap(), false);
+	}
+
+	/**
+	 * @return The type of the command that made this Result
+	 */
+	public Command.Type getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @return true if the command was carried out,
+	 * false if it broke the rules and was ignored
+	 */
+	public boolean isAccepted()
+	{
+		return accepted;
+	}
+
+	/**
+	 * @return Why the command was rejected, null if it was accepted
+	 */
+	public String getMessage()
+	{
+		return message;
+	}
+
+	/**
+	 * @return The cell the current player is on after a move or exit
+	 */
+	public Cell getCell()
+	{
+		return cell;
+	}
+
+	/**
+	 * The player the result is about:
+	 * the player whose turn it now is after ending a turn,
+	 * the player making an accusation,
+	 * or the player who revealed a card when disproving.
+	 */
+	public Player getPlayer()
+	{
+		return player;
+	}
+
+	/**
+	 * @return The disproving player mapped to the cards
+	 * they can reveal for a suggestion. Empty if nobody could disprove.
+	 */
+	public Map<Player, Set<Card>> getDisprover()
+	{
+		return disprover;
+	}
+
+	/**
+	 * @return true if the accusation was correct
+	 */
+	public boolean isCorrect()
+	{
+		return correct;
+	}
+}
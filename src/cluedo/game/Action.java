@@ -0,0 +1,154 @@
+package cluedo.game;
+
+import cluedo.board.Board;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * A legal action encoded in a single int, so Game.getLegalActions can list them
+ * into a reusable array without creating any objects.
+ *
+ * The lowest 3 bits are the type. Above them is a 10 bit field holding
+ * the direction of a MOVE, the cell index of an EXIT, or the suspect card ID of a
+ * SUGGEST or ACCUSE, then 5 bits for the weapon card ID and 5 bits for the room card ID.
+ */
+public final class Action
+{
+	public static final int MOVE = 0;
+	public static final int EXIT = 1;
+	public static final int SUGGEST = 2;
+	public static final int ACCUSE = 3;
+	public static final int END_TURN = 4;
+
+	/**
+	 * Enough room for every action a player could have at once
+	 * (4 moves, the exits of a room, 36 suggestions, 324 accusations and ending the turn)
+	 */
+	public static final int MAX_ACTIONS = 512;
+
+	private static final int TYPE_BITS = 3;
+	private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+	private static final int FIRST_SHIFT = TYPE_BITS;
+	private static final int FIRST_MASK = (1 << 10) - 1;
+	private static final int WEAPON_SHIFT = FIRST_SHIFT + 10;
+	private static final int ROOM_SHIFT = WEAPON_SHIFT + 5;
+	private static final int CARD_MASK = (1 << 5) - 1;
+	/**
+	 * Direction.values(), which makes a new array each time it is called
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private Action()
+	{
+	}
+
+	public static int move(Direction direction)
+	{
+		return MOVE | direction.ordinal() << FIRST_SHIFT;
+	}
+
+	/**
+	 * @param cell - The index of the exit cell
+	 */
+	public static int exit(int cell)
+	{
+		return EXIT | cell << FIRST_SHIFT;
+	}
+
+	/**
+	 * @param suspect - A suspect card's ID
+	 * @param weapon - A weapon card's ID
+	 */
+	public static int suggest(int suspect, int weapon)
+	{
+		return SUGGEST | suspect << FIRST_SHIFT | weapon << WEAPON_SHIFT;
+	}
+
+	/**
+	 * @param suspect - A suspect card's ID
+	 * @param weapon - A weapon card's ID
+	 * @param room - A room card's ID
+	 */
+	public static int accuse(int suspect, int weapon, int room)
+	{
+		return ACCUSE | suspect << FIRST_SHIFT | weapon << WEAPON_SHIFT | room << ROOM_SHIFT;
+	}
+
+	public static int endTurn()
+	{
+		return END_TURN;
+	}
+
+	/**
+	 * @return MOVE, EXIT, SUGGEST, ACCUSE or END_TURN
+	 */
+	public static int getType(int action)
+	{
+		return action & TYPE_MASK;
+	}
+
+	/**
+	 * @return The direction of a MOVE
+	 */
+	public static Direction getDirection(int action)
+	{
+		return DIRECTIONS[(action >>> FIRST_SHIFT) & FIRST_MASK];
+	}
+
+	/**
+	 * @return The cell index of an EXIT
+	 */
+	public static int getCell(int action)
+	{
+		return (action >>> FIRST_SHIFT) & FIRST_MASK;
+	}
+
+	/**
+	 * @return The suspect card ID of a SUGGEST or ACCUSE
+	 */
+	public static int getSuspect(int action)
+	{
+		return (action >>> FIRST_SHIFT) & FIRST_MASK;
+	}
+
+	/**
+	 * @return The weapon card ID of a SUGGEST or ACCUSE
+	 */
+	public static int getWeapon(int action)
+	{
+		return (action >>> WEAPON_SHIFT) & CARD_MASK;
+	}
+
+	/**
+	 * @return The room card ID of an ACCUSE
+	 */
+	public static int getRoom(int action)
+	{
+		return (action >>> ROOM_SHIFT) & CARD_MASK;
+	}
+
+	/**
+	 * @return A readable description of the action, for debugging
+	 */
+	public static String toString(int action)
+	{
+		switch (getType(action))
+		{
+			case MOVE:
+				return "Move " + getDirection(action);
+			case EXIT:
+				int cell = getCell(action);
+				return "Exit to (" + cell % Board.WIDTH + ", " + cell / Board.WIDTH + ")";
+			case SUGGEST:
+				return "Suggest " + GameBuilder.getCard(getSuspect(action)).getName() + " with the "
+						+ GameBuilder.getCard(getWeapon(action)).getName();
+			case ACCUSE:
+				return "Accuse " + GameBuilder.getCard(getSuspect(action)).getName() + " with the "
+						+ GameBuilder.getCard(getWeapon(action)).getName() + " in the "
+						+ GameBuilder.getCard(getRoom(action)).getName();
+			case END_TURN:
+				return "End turn";
+			default:
+				return "Unknown action " + action;
+		}
+	}
+}
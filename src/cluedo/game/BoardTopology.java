@@ -0,0 +1,239 @@
+package cluedo.game;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cluedo.board.Board;
+import cluedo.model.Cell;
+import cluedo.model.Room;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * The layout of the Cluedo board: its cells and walls, the rooms
+ * and the cells for entering and exiting each room.
+ *
+ * The layout never changes, so it is built once by the CellBuilder and RoomBuilder
+ * and shared by every Game. Only the positions of the pieces belong to a Game (in its Board).
+ * None of the collections can be modified, and the cells array must not be modified.
+ */
+public final class BoardTopology
+{
+	private final Cell[][] cells;
+	/**
+	 * The neighbour of each cell in each direction, see Board.buildAdjacency
+	 */
+	private final int[] adjacency;
+	private final Set<Cell> doorCells;
+	private final Set<Cell> outOfBoundCells;
+	private final Set<Cell> secretPassageCells;
+	/**
+	 * The cells of every room
+	 */
+	private final Set<Cell> allRoomCells;
+
+	private final List<Room> rooms;
+	private final Map<Room, Set<Cell>> roomCells;
+	/**
+	 * The cells that the player moves to to enter a room
+	 */
+	private final Map<Room, Set<Cell>> entranceCells;
+	/**
+	 * The cells that the player's can move to when they exit a room
+	 */
+	private final Map<Room, List<Cell>> exitCells;
+	private final Map<Cell, Room> cellToRoom;
+
+	//Bitboards, see Board.getOccupancy
+	/**
+	 * The cells a player can step from in each direction (by ordinal)
+	 */
+	private final long[][] stepMasks;
+	/**
+	 * The cells a player can walk on (not in a room or out of bounds)
+	 */
+	private final long[] corridorMask;
+	/**
+	 * The entrance cells of each room, in the same order as rooms
+	 */
+	private final long[][] entranceMasks;
+
+	/**
+	 * Built the first time it is used.
+	 * The class loader makes sure this only happens once,
+	 * and that every thread sees the finished topology.
+	 */
+	private static class Holder
+	{
+		private static final BoardTopology INSTANCE = new BoardTopology();
+	}
+
+	private BoardTopology()
+	{
+		CellBuilder cellBuilder = new CellBuilder();
+		cells = cellBuilder.getCells();
+		adjacency = Board.buildAdjacency(cells);
+		doorCells = Collections.unmodifiableSet(cellBuilder.getDoorCells());
+		outOfBoundCells = Collections.unmodifiableSet(cellBuilder.getOutOfBoundsCells());
+		secretPassageCells = Collections.unmodifiableSet(cellBuilder.getSecretPassageCells());
+
+		RoomBuilder roomBuilder = new RoomBuilder(cells);
+		rooms = Collections.unmodifiableList(roomBuilder.getRooms());
+		cellToRoom = Collections.unmodifiableMap(roomBuilder.getCellToRoom());
+		Map<Room, Set<Cell>> roomSetCells = new HashMap<Room, Set<Cell>>();
+		Map<Room, Set<Cell>> entrances = new HashMap<Room, Set<Cell>>();
+		Map<Room, List<Cell>> exits = new HashMap<Room, List<Cell>>();
+		Set<Cell> cellsInRoom = new HashSet<Cell>();
+		for (Room room : rooms)
+		{
+			roomSetCells.put(room, Collections.unmodifiableSet(roomBuilder.getRoomCells().get(room)));
+			entrances.put(room, Collections.unmodifiableSet(roomBuilder.getEntranceCells().get(room)));
+			exits.put(room, Collections.unmodifiableList(roomBuilder.getExitCells().get(room)));
+			cellsInRoom.addAll(roomBuilder.getRoomCells().get(room));
+		}
+		roomCells = Collections.unmodifiableMap(roomSetCells);
+		entranceCells = Collections.unmodifiableMap(entrances);
+		exitCells = Collections.unmodifiableMap(exits);
+		allRoomCells = Collections.unmodifiableSet(cellsInRoom);
+
+		int numDirections = Direction.values().length;
+		stepMasks = new long[numDirections][Board.OCCUPANCY_WORDS];
+		corridorMask = new long[Board.OCCUPANCY_WORDS];
+		for (int index = 0; index < Board.NUM_CELLS; index++) 
+		{
+			for (int d = 0; d < numDirections; d++) 
+			{
+				if (adjacency[index * numDirections + d] >= 0) 
+				{
+					stepMasks[d][index >>> 6] |= 1L << index;
+				}
+			}
+			Cell cell = cells[index % Board.WIDTH][index / Board.WIDTH];
+			if (!cellsInRoom.contains(cell) && !outOfBoundCells.contains(cell)) 
+			{
+				corridorMask[index >>> 6] |= 1L << index;
+			}
+		}
+		entranceMasks = new long[rooms.size()][Board.OCCUPANCY_WORDS];
+		for (int r = 0; r < rooms.size(); r++) 
+		{
+			for (Cell cell : entranceCells.get(rooms.get(r))) 
+			{
+				int index = Board.cellIndex(cell);
+				entranceMasks[r][index >>> 6] |= 1L << index;
+			}
+		}
+	}
+
+	/**
+	 * @return The topology of the Cluedo board, shared by all games
+	 */
+	public static BoardTopology get()
+	{
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * @return The board representation (a 2D array of Cells indexed by x then y).
+	 * Shared by all games, so it must not be modified.
+	 */
+	public Cell[][] getCells()
+	{
+		return cells;
+	}
+
+	/**
+	 * @return The adjacency table for the cells, see Board.buildAdjacency.
+	 * Shared by all games, so it must not be modified.
+	 */
+	int[] getAdjacency()
+	{
+		return adjacency;
+	}
+
+	public Set<Cell> getDoorCells()
+	{
+		return doorCells;
+	}
+
+	public Set<Cell> getOutOfBoundCells()
+	{
+		return outOfBoundCells;
+	}
+
+	public Set<Cell> getSecretPassageCells()
+	{
+		return secretPassageCells;
+	}
+
+	/**
+	 * @return The cells of every room
+	 */
+	public Set<Cell> getAllRoomCells()
+	{
+		return allRoomCells;
+	}
+
+	/**
+	 * @return The rooms in the same order as GameBuilder.ROOM_NAMES
+	 */
+	public List<Room> getRooms()
+	{
+		return rooms;
+	}
+
+	public Map<Room, Set<Cell>> getRoomCells()
+	{
+		return roomCells;
+	}
+
+	public Map<Room, Set<Cell>> getEntranceCells()
+	{
+		return entranceCells;
+	}
+
+	public Map<Room, List<Cell>> getExitCells()
+	{
+		return exitCells;
+	}
+
+	/**
+	 * @return Every cell that is part of a room, mapped to its room
+	 */
+	public Map<Cell, Room> getCellToRoom()
+	{
+		return cellToRoom;
+	}
+
+	/**
+	 * @param direction - A direction's ordinal
+	 * @return The bitboard of cells with no wall or edge in that direction.
+	 * Must not be modified.
+	 */
+	long[] getStepMask(int direction)
+	{
+		return stepMasks[direction];
+	}
+
+	/**
+	 * @return The bitboard of cells that are not in a room or out of bounds.
+	 * Must not be modified.
+	 */
+	long[] getCorridorMask()
+	{
+		return corridorMask;
+	}
+
+	/**
+	 * @param room - The room's index in getRooms()
+	 * @return The bitboard of the room's entrance cells.
+	 * Must not be modified.
+	 */
+	long[] getEntranceMask(int room)
+	{
+		return entranceMasks[room];
+	}
+}
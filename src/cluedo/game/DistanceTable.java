@@ -0,0 +1,238 @@
+package cluedo.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import cluedo.board.Board;
+import cluedo.model.Cell;
+import cluedo.model.Room;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * The fewest moves needed to enter each room, ignoring other pieces.
+ *
+ * The distances only depend on the walls and rooms in the BoardTopology,
+ * so they are found once (with a breadth first search back from every entrance cell)
+ * and shared by every Game. Each lookup is a single array access.
+ *
+ * Cells are board indexes (y*WIDTH + x), rooms are indexes in BoardTopology.getRooms(),
+ * and entrances are indexes in getEntrances().
+ */
+public final class DistanceTable
+{
+	/**
+	 * The distance when there is no way to get there
+	 */
+	public static final int UNREACHABLE = Short.MAX_VALUE;
+	private static final int NUM_DIRECTIONS = Direction.values().length;
+
+	private final BoardTopology topology;
+	/**
+	 * The entrance cells of every room, in room order
+	 */
+	private final List<Cell> entrances;
+	/**
+	 * The room index of each entrance
+	 */
+	private final int[] entranceRoom;
+	/**
+	 * The moves from each cell to enter through each entrance, indexed [cell * entrances + entrance]
+	 */
+	private final short[] toEntrance;
+	/**
+	 * The moves from each cell to enter each room, indexed [cell * rooms + room]
+	 */
+	private final short[] toRoom;
+	/**
+	 * The moves from inside each room to enter each other room, indexed [from * rooms + to]
+	 */
+	private final short[] betweenRooms;
+
+	/**
+	 * Built the first time it is used, see BoardTopology
+	 */
+	private static class Holder
+	{
+		private static final DistanceTable INSTANCE = new DistanceTable(BoardTopology.get());
+	}
+
+	private DistanceTable(BoardTopology topology)
+	{
+		this.topology = topology;
+		List<Room> rooms = topology.getRooms();
+		int numRooms = rooms.size();
+		List<Cell> entranceList = new ArrayList<Cell>();
+		List<Integer> roomOfEntrance = new ArrayList<Integer>();
+		for (int r = 0; r < numRooms; r++)
+		{
+			List<Cell> roomEntrances = new ArrayList<Cell>(topology.getEntranceCells().get(rooms.get(r)));
+			roomEntrances.sort((a, b) -> Board.cellIndex(a) - Board.cellIndex(b));
+			for (Cell cell : roomEntrances)
+			{
+				entranceList.add(cell);
+				roomOfEntrance.add(r);
+			}
+		}
+		entrances = Collections.unmodifiableList(entranceList);
+		int numEntrances = entrances.size();
+		entranceRoom = new int[numEntrances];
+		for (int e = 0; e < numEntrances; e++)
+		{
+			entranceRoom[e] = roomOfEntrance.get(e);
+		}
+
+		toEntrance = new short[Board.NUM_CELLS * numEntrances];
+		toRoom = new short[Board.NUM_CELLS * numRooms];
+		Arrays.fill(toEntrance, (short) UNREACHABLE);
+		Arrays.fill(toRoom, (short) UNREACHABLE);
+		int[] adjacency = topology.getAdjacency();
+		long[] corridor = topology.getCorridorMask();
+		int[] queue = new int[Board.NUM_CELLS];
+		short[] distance = new short[Board.NUM_CELLS];
+		for (int e = 0; e < numEntrances; e++)
+		{
+			Arrays.fill(distance, (short) UNREACHABLE);
+			int start = Board.cellIndex(entrances.get(e));
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			//The walls are checked on both cells, so a step back from a cell is the same as a step to it
+			while (head < tail)
+			{
+				int current = queue[head++];
+				short next = (short) (current == start ? 1 : distance[current] + 1);
+				for (int dir = 0; dir < NUM_DIRECTIONS; dir++)
+				{
+					int neighbour = adjacency[current * NUM_DIRECTIONS + dir];
+					if (neighbour >= 0 && distance[neighbour] == UNREACHABLE
+							&& (corridor[neighbour >>> 6] & (1L << neighbour)) != 0)
+					{
+						distance[neighbour] = next;
+						queue[tail++] = neighbour;
+					}
+				}
+			}
+			int room = entranceRoom[e];
+			for (int cell = 0; cell < Board.NUM_CELLS; cell++)
+			{
+				toEntrance[cell * numEntrances + e] = distance[cell];
+				if (distance[cell] < toRoom[cell * numRooms + room])
+				{
+					toRoom[cell * numRooms + room] = distance[cell];
+				}
+			}
+		}
+
+		//From a room the first move is taking an exit, and a secret passage is a room's exit
+		betweenRooms = new short[numRooms * numRooms];
+		Arrays.fill(betweenRooms, (short) UNREACHABLE);
+		for (int from = 0; from < numRooms; from++)
+		{
+			betweenRooms[from * numRooms + from] = 0;
+			for (Cell exit : topology.getExitCells().get(rooms.get(from)))
+			{
+				Room passage = topology.getCellToRoom().get(exit);
+				for (int to = 0; to < numRooms; to++)
+				{
+					if (to == from)
+					{
+						continue;
+					}
+					int moves;
+					if (passage != null)
+					{
+						moves = passage == rooms.get(to) ? 1 : UNREACHABLE;
+					}
+					else
+					{
+						int steps = toRoom[Board.cellIndex(exit) * numRooms + to];
+						moves = steps == UNREACHABLE ? UNREACHABLE : steps + 1;
+					}
+					if (moves < betweenRooms[from * numRooms + to])
+					{
+						betweenRooms[from * numRooms + to] = (short) moves;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The distances on the Cluedo board, shared by all games
+	 */
+	public static DistanceTable get()
+	{
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * @return The entrance cells of every room, in room order
+	 */
+	public List<Cell> getEntrances()
+	{
+		return entrances;
+	}
+
+	/**
+	 * @param entrance - An index in getEntrances()
+	 * @return The index of the room the entrance is for
+	 */
+	public int getEntranceRoom(int entrance)
+	{
+		return entranceRoom[entrance];
+	}
+
+	/**
+	 * @param cell - A corridor cell's index
+	 * @param entrance - An index in getEntrances()
+	 * @return The fewest moves from the cell to enter through the entrance, or UNREACHABLE
+	 */
+	public int getDistance(int cell, int entrance)
+	{
+		return toEntrance[cell * entranceRoom.length + entrance];
+	}
+
+	/**
+	 * @param cell - A corridor cell's index
+	 * @param room - A room's index
+	 * @return The fewest moves from the cell to enter the room, or UNREACHABLE
+	 */
+	public int getDistanceToRoom(int cell, int room)
+	{
+		return toRoom[cell * topology.getRooms().size() + room];
+	}
+
+	/**
+	 * @param cell - A corridor cell. May not be null.
+	 * @param room - May not be null
+	 * @return The fewest moves from the cell to enter the room, or UNREACHABLE
+	 * @throws IllegalArgumentException
+	 * If the arguments are null or the room is not on the board
+	 */
+	public int getDistanceToRoom(Cell cell, Room room)
+	{
+		if (cell == null || room == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		int index = topology.getRooms().indexOf(room);
+		if (index < 0)
+		{
+			throw new IllegalArgumentException(room.getName() + " is not a valid room!");
+		}
+		return getDistanceToRoom(Board.cellIndex(cell), index);
+	}
+
+	/**
+	 * @param from - The index of the room the player is in
+	 * @param to - A room's index
+	 * @return The fewest moves to leave the first room and enter the second, or UNREACHABLE.
+	 * A secret passage takes one move.
+	 */
+	public int getRoomDistance(int from, int to)
+	{
+		return betweenRooms[from * topology.getRooms().size() + to];
+	}
+}
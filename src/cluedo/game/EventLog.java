@@ -0,0 +1,176 @@
+package cluedo.game;
+
+import java.util.Arrays;
+
+/**
+ * Everything that has happened in a Game, in order.
+ *
+ * Each event is packed into a single long, so the log is one growing array
+ * and reading through it creates no objects. The lowest 4 bits are the type,
+ * the next 4 the seat (index in Game.getSeats()) of the player the event is about,
+ * then four 10 bit arguments, which depend on the type:
+ * <ul>
+ * <li>TURN - none</li>
+ * <li>ROLL - the two dice</li>
+ * <li>MOVE - the cell index moved from, the cell index moved to</li>
+ * <li>EXIT - the index of the room left, the cell index of the exit or secret passage taken</li>
+ * <li>ENTER - the index of the room entered, the cell index the player was put on</li>
+ * <li>TRANSFER - the card ID of the suspect or weapon moved by a suggestion, the index of the room it was moved to</li>
+ * <li>SUGGEST - the suspect, weapon and room card IDs, and the seat that disproved it or NONE</li>
+ * <li>PASS - the seat of the suggester, for a player who could not disprove the suggestion</li>
+ * <li>REVEAL - the card ID shown, the seat of the suggester it was shown to</li>
+ * <li>ACCUSE - the suspect, weapon and room card IDs, and 1 if the accusation was correct, otherwise 0</li>
+ * <li>ELIMINATE - none</li>
+ * </ul>
+ * Rooms are indexes in BoardTopology.getRooms(), and cells are board indexes (y*WIDTH + x).
+ *
+ * The log is appended to by the Game, and cut back when an action is undone.
+ */
+public final class EventLog
+{
+	public static final int TURN = 0;
+	public static final int ROLL = 1;
+	public static final int MOVE = 2;
+	public static final int EXIT = 3;
+	public static final int ENTER = 4;
+	public static final int TRANSFER = 5;
+	public static final int SUGGEST = 6;
+	public static final int PASS = 7;
+	public static final int REVEAL = 8;
+	public static final int ACCUSE = 9;
+	public static final int ELIMINATE = 10;
+
+	/**
+	 * The seat argument of a suggestion nobody disproved
+	 */
+	public static final int NONE = (1 << 10) - 1;
+
+	private static final int SEAT_SHIFT = 4;
+	private static final int ARG_SHIFT = 8;
+	private static final int ARG_BITS = 10;
+	private static final long ARG_MASK = (1 << ARG_BITS) - 1;
+
+	private long[] events = new long[256];
+	private int size;
+
+	EventLog()
+	{
+	}
+
+	/**
+	 * Append an event
+	 * @param seat - The seat of the player the event is about
+	 */
+	void add(int type, int seat, int a, int b, int c, int d)
+	{
+		if (size == events.length)
+		{
+			events = Arrays.copyOf(events, size * 2);
+		}
+		events[size++] = type | (long) seat << SEAT_SHIFT | (a & ARG_MASK) << ARG_SHIFT
+				| (b & ARG_MASK) << (ARG_SHIFT + ARG_BITS) | (c & ARG_MASK) << (ARG_SHIFT + 2 * ARG_BITS)
+				| (d & ARG_MASK) << (ARG_SHIFT + 3 * ARG_BITS);
+	}
+
+	/**
+	 * Forget the events after the first size, when actions are undone
+	 */
+	void truncate(int size)
+	{
+		this.size = size;
+	}
+
+	/**
+	 * @return The number of events
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param index - Between 0 (inclusive) and size() (exclusive)
+	 * @return The event at the index
+	 * @throws IndexOutOfBoundsException
+	 * If there is no event at the index
+	 */
+	public long get(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("No event " + index + ", the log has " + size);
+		}
+		return events[index];
+	}
+
+	/**
+	 * Find the next event about a player, to read just their events:
+	 * for (int i = log.next(0, seat); i >= 0; i = log.next(i + 1, seat))
+	 * @param from - The first index to look at
+	 * @param seat - The seat of the player
+	 * @return The index of the first event from the index on that is about the seat, or -1 if there is none
+	 */
+	public int next(int from, int seat)
+	{
+		for (int i = Math.max(from, 0); i < size; i++)
+		{
+			if (getSeat(events[i]) == seat)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A copy of the events from the index to the end
+	 */
+	public long[] toArray(int from)
+	{
+		return Arrays.copyOfRange(events, from, size);
+	}
+
+	public static int getType(long event)
+	{
+		return (int) event & 0xF;
+	}
+
+	/**
+	 * @return The seat of the player the event is about
+	 */
+	public static int getSeat(long event)
+	{
+		return (int) (event >>> SEAT_SHIFT) & 0xF;
+	}
+
+	/**
+	 * @param i - Which argument, from 0 to 3
+	 * @return The argument, see the class comment for what it means for each type
+	 */
+	public static int getArg(long event, int i)
+	{
+		return (int) (event >>> (ARG_SHIFT + i * ARG_BITS) & ARG_MASK);
+	}
+
+	/**
+	 * @param event - An event
+	 * @param seat - The seat of a player
+	 * @return false if it is an event the player did not see, the card revealed to another player
+	 */
+	public static boolean isVisibleTo(long event, int seat)
+	{
+		return getType(event) != REVEAL || getSeat(event) == seat || getArg(event, 1) == seat;
+	}
+
+	/**
+	 * @return A readable description of the event, for debugging
+	 */
+	public static String toString(long event)
+	{
+		String[] names = { "TURN", "ROLL", "MOVE", "EXIT", "ENTER", "TRANSFER", "SUGGEST", "PASS", "REVEAL",
+				"ACCUSE", "ELIMINATE" };
+		int type = getType(event);
+		return (type < names.length ? names[type] : "UNKNOWN") + " seat " + getSeat(event) + " ("
+				+ getArg(event, 0) + ", " + getArg(event, 1) + ", " + getArg(event, 2) + ", " + getArg(event, 3) + ")";
+	}
+}
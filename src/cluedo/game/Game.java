@@ -1,6 +1,7 @@
 package cluedo.game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.Set;
 import java.util.HashSet;
 
 import cluedo.board.Board;
+import cluedo.board.MoveStatus;
 import cluedo.exceptions.HasRemainingMovesException;
 import cluedo.exceptions.IllegalMethodCallException;
 import cluedo.exceptions.InvalidMoveException;
@@ -19,19 +21,20 @@ import cluedo.model.Player;
 import cluedo.model.Room;
 import cluedo.model.Weapon;
 import cluedo.model.cards.Card;
+import cluedo.model.cards.CardSet;
 import cluedo.model.cards.CaseFile;
 import cluedo.model.cards.RoomCard;
 import cluedo.model.cards.SuspectCard;
 import cluedo.model.cards.WeaponCard;
-import cluedo.utility.Heading.Direction;
 import cluedo.utility.Heading;
+import cluedo.utility.Heading.Direction;
+import cluedo.utility.RandomSource;
 import cluedo.utility.Turn;
 
 /**
  * The Cluedo game.
- * Requires the GameBuilder and RoomBuilder class to set up the game
- * Also requires the CellBuilder class to create the board
- * representation of the game.
+ * Requires the GameBuilder class to set up the game
+ * and the shared BoardTopology for the board representation of the game.
  * This class dictates the rules and logic of Cluedo 
  * Players can move, enter and exit rooms,
  * make a suggestion and make an accusation.
@@ -45,12 +48,17 @@ public class Game
 	public static final int MAX_PLAYERS = 6;
 	public static final int NUM_WEAPONS = 6;
 	public static final int NUM_ROOMS = 9;
+	/**
+	 * MoveStatus.values(), which makes a new array each time it is called
+	 */
+	private static final MoveStatus[] STATUSES = MoveStatus.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
 	
 	/**
 	 * Each player's starting position according to the order
 	 * specified in SUSPECT_NAMES
 	 */
-	private final int[] STARTINGPOSITION = new int[]{
+	private static final int[] STARTINGPOSITION = new int[]{
 			7, 24, 0, 17, 9, 0, 14, 0, 23, 6, 23, 19 };
 	/**
 	 * Number of moves the player can move 
@@ -62,9 +70,10 @@ public class Game
 	 */
 	private int[] diceRoll = new int[2];
 	/**
-	 * The cells the current player moved to during their turn
+	 * The cells the current player moved to during their turn,
+	 * as a bitboard of cell indexes
 	 */
-	private Set<Cell> playerPath;
+	private final long[] playerPath = new long[Board.OCCUPANCY_WORDS];
 	/**
 	 * Used to check that a player has made a suggestion as
 	 * they can only make one suggestion per turn
@@ -80,6 +89,11 @@ public class Game
 	 * active players)
 	 */
 	private Turn<Player> allHumanIterator;
+	/**
+	 * The human players in turn order, including eliminated players.
+	 * A player's seat is their index in this list.
+	 */
+	private final List<Player> seats;
 	
 	/**
 	 * All the players in Cluedo (human and non-human)
@@ -107,6 +121,10 @@ public class Game
 	 * cards to each other
 	 */
 	private Map<Player, List<Card>> playerHand = new HashMap<Player,List<Card>>();
+	/**
+	 * The same hands as CardSets, for checking which cards a player has
+	 */
+	private Map<Player, CardSet> playerHandSet = new HashMap<Player,CardSet>();
 	/**
 	 * These are the cards leftover after evenly distributing the cards to all
 	 * the players. Does not contain the answer cards. Every player will be able
@@ -146,13 +164,104 @@ public class Game
 	private Room lastRoom; 
 	private final List<Weapon> weapons;
 	private final List<Room> rooms;
+	/**
+	 * The layout of the board, which is shared with every other game.
+	 * The board only keeps track of where this game's pieces are.
+	 */
+	private final BoardTopology topology;
 	private final Board board;
 	private boolean gameOver;
-	private Set<Cell> doorCells;
-	private Set<Cell> outOfBoundCells;
-	private Set<Cell> secretPassageCells;
+	/**
+	 * The seed the game was created with.
+	 * A game created with the same seed, players and moves will play out the same
+	 */
+	private final long seed;
+	/**
+	 * Used for the dice rolls, dealing the cards and placing the weapons.
+	 * Each game has its own so games running in parallel do not share a generator
+	 */
+	private final RandomSource random;
+	/**
+	 * Everything that has happened in the game, see getEventLog
+	 */
+	private final EventLog log = new EventLog();
+	/**
+	 * Told about every change, see addListener.
+	 * Replaced rather than changed when a listener is added or removed,
+	 * so notifying them needs no iterator or copy.
+	 */
+	private GameListener[] listeners = new GameListener[0];
+
+	//Undo journal
+	private static final int J_FRAME = 0;
+	private static final int J_PIECE = 1;
+	private static final int J_ROOM = 2;
+	private static final int J_TRANSFERRED = 3;
+	private static final int J_CASEFILE = 4;
+	private static final int J_ACTIVE = 5;
+	/**
+	 * The values saved at the start of every action, see pushFrame
+	 */
+	private static final int FRAME_SIZE = 9 + 2 * Board.OCCUPANCY_WORDS;
+	/**
+	 * The old values of everything the actions changed, or null if undo is not enabled.
+	 * An action pushes a frame of the turn's values, then an entry for each piece,
+	 * room, CaseFile or player it changes. Each value is followed by a header
+	 * (its kind in the low 4 bits and the piece, character or seat above them),
+	 * so undo pops the entries back to the frame.
+	 */
+	private int[] journal;
+	private int journalSize;
+	/**
+	 * The number of actions that can be undone
+	 */
+	private int undoDepth;
 
+	/**
+	 * A new game with a random seed
+	 */
 	public Game(List<Player> activePlayers, List<String> playerNames) 
+	{
+		this(activePlayers, playerNames, RandomSource.randomSeed());
+	}
+
+	/**
+	 * A new game whose seed is taken from the given source.
+	 * Useful for creating many games from one source on the same thread.
+	 */
+	public Game(List<Player> activePlayers, List<String> playerNames, RandomSource source) 
+	{
+		this(activePlayers, playerNames, seedFrom(source));
+	}
+
+	/**
+	 * A new game that can be reproduced from its seed
+	 * @param activePlayers - The characters of the human players in turn order
+	 * @param playerNames - The names of the human players
+	 * @param seed - Games with the same seed deal the same cards, 
+	 * place the weapons in the same rooms and roll the same dice
+	 */
+	public Game(List<Player> activePlayers, List<String> playerNames, long seed) 
+	{
+		this(activePlayers, playerNames, seed, null);
+	}
+
+	/**
+	 * Resume a game from a state it was in.
+	 * The new game is independent of the game the state was taken from.
+	 * @param state - Taken from getState()
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public Game(GameState state) 
+	{
+		this(seatsOf(state), state.names, state.seed, state);
+	}
+
+	/**
+	 * @param state - The state to resume from, or null to start a new game
+	 */
+	private Game(List<Player> activePlayers, List<String> playerNames, long seed, GameState state) 
 	{
 		if (playerNames == null || activePlayers == null || playerNames.size() != activePlayers.size())
 		{
@@ -166,14 +275,13 @@ public class Game
 					"Must have between: " + MIN_HUMAN_PLAYERS + " and " + MAX_HUMAN_PLAYERS + " human players");
 		}
 		
-		CellBuilder cellBuilder = new CellBuilder();
-		doorCells = cellBuilder.getDoorCells();
-		outOfBoundCells = cellBuilder.getOutOfBoundsCells();
-		secretPassageCells = cellBuilder.getSecretPassageCells();
-		board = new Board(cellBuilder.getCells());
-		//Players
-		activeHumanPlayers = activePlayers;
-		humanPlayerNames = playerNames;
+		this.seed = seed;
+		random = new RandomSource(seed);
+		topology = BoardTopology.get();
+		board = new Board(topology.getCells(), topology.getAdjacency());
+		//Players, copied as eliminating or restoring players changes the list
+		activeHumanPlayers = new ArrayList<Player>(activePlayers);
+		humanPlayerNames = Collections.unmodifiableList(new ArrayList<String>(playerNames));
 		
 		/*
 		 * Cannot have the same references as removing a player from active players
@@ -182,26 +290,99 @@ public class Game
 		List<Player> allHumanPlayers = new ArrayList<Player>(activeHumanPlayers);
 		turn = new Turn<Player>(allHumanPlayers); //Ensure turn starts on the first player
 		allHumanIterator = new Turn<Player>(allHumanPlayers);
+		seats = Collections.unmodifiableList(allHumanPlayers);
 		//Weapons
 		weapons = GameBuilder.createWeapons();
 		// Cards
 		suspectCards = GameBuilder.createSuspectCards();
 		weaponCards = GameBuilder.createWeaponCards();
 		roomCards = GameBuilder.createRoomCards();
-		answer = GameBuilder.createCaseFiles(suspectCards, weaponCards, roomCards,playerToCasefile,activeHumanPlayers);
-		extraCards = distributeCards(suspectCards, weaponCards, roomCards);
 		//Room
-		RoomBuilder roomBuilder = new RoomBuilder(board.getCells());
-		cellToRoom = roomBuilder.getCellToRoom();
-		roomCells = roomBuilder.getRoomCells();
-		entranceCells = roomBuilder.getEntranceCells();
-		exitCells = roomBuilder.getExitCells();
-		rooms = roomBuilder.getRooms();
-		//Initialisation
-		setStartingPosition();
-		nextTurn();
+		cellToRoom = topology.getCellToRoom();
+		roomCells = topology.getRoomCells();
+		entranceCells = topology.getEntranceCells();
+		exitCells = topology.getExitCells();
+		rooms = topology.getRooms();
+		if (state == null) 
+		{
+			answer = GameBuilder.createCaseFiles(suspectCards, weaponCards, roomCards,playerToCasefile,activeHumanPlayers, random);
+			extraCards = distributeCards(suspectCards, weaponCards, roomCards);
+			//Initialisation
+			setStartingPosition();
+			nextTurn();
+		}
+		else 
+		{
+			dealFrom(state);
+			restoreState(state);
+		}
+	}
+
+	private static List<Player> seatsOf(GameState state)
+	{
+		if (state == null) 
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return state.seats;
+	}
+
+	/**
+	 * Give each player the hand and CaseFile they had in the state,
+	 * and set the answer and extra cards
+	 * @param state
+	 */
+	private void dealFrom(GameState state)
+	{
+		answer = new CaseFile(cardsOf(suspectCards, state.answer).get(0), cardsOf(weaponCards, state.answer).get(0),
+				cardsOf(roomCards, state.answer).get(0));
+		extraCards = new ArrayList<Card>();
+		for (int id = 0; id < GameBuilder.NUM_CARDS; id++) 
+		{
+			if ((state.extraCards & (1 << id)) != 0) 
+			{
+				extraCards.add(GameBuilder.getCard(id));
+			}
+		}
+		for (int seat = 0; seat < seats.size(); seat++) 
+		{
+			Player player = seats.get(seat);
+			List<Card> hand = new ArrayList<Card>();
+			for (int id = 0; id < GameBuilder.NUM_CARDS; id++) 
+			{
+				if ((state.hands[seat] & (1 << id)) != 0) 
+				{
+					hand.add(GameBuilder.getCard(id));
+				}
+			}
+			playerHand.put(player, hand);
+			playerHandSet.put(player, CardSet.ofMask(state.hands[seat]));
+			playerToCasefile.put(player, new CaseFile(suspectCards, weaponCards, roomCards));
+		}
+	}
+
+	private static <C extends Card> List<C> cardsOf(List<C> cards, int mask)
+	{
+		List<C> found = new ArrayList<C>();
+		for (C card : cards) 
+		{
+			if ((mask & CardSet.bit(card)) != 0) 
+			{
+				found.add(card);
+			}
+		}
+		return found;
 	}
 	
+	private static long seedFrom(RandomSource source)
+	{
+		if (source == null)
+		{
+			throw new IllegalArgumentException("Arguments must be non null");
+		}
+		return source.nextLong();
+	}
+
 	/**
 	 * Distribute the remaining cards (all the cards except the cards in the 
 	 * answer casefile) to the players. 
@@ -224,7 +405,7 @@ public class Game
 		allCards.addAll(suspectCards);
 		allCards.addAll(weaponCards);
 		allCards.addAll(roomCards);
-		Collections.shuffle(allCards);
+		random.shuffle(allCards);
 		//Remove answer cards as they cannot be distributed
 		RoomCard answerRoom = answer.getRoomCards().get(0);
 		WeaponCard answerWeapon = answer.getWeaponCards().get(0);
@@ -264,6 +445,7 @@ public class Game
 			{
 				// Put the cards in for a human player
 				playerHand.put(player, cardsForPlayer);
+				playerHandSet.put(player, CardSet.of(cardsForPlayer));
 				// Go to the next player
 				numPlayers--;
 				cardsForPlayer = new ArrayList<Card>();
@@ -288,7 +470,7 @@ public class Game
 			playerCount++;
 		}
 		List<Room> randRooms = new ArrayList<Room>(rooms);
-		Collections.shuffle(randRooms);
+		random.shuffle(randRooms);
 		int i = 0;
 		for(Room room : randRooms)
 		{
@@ -309,9 +491,83 @@ public class Game
 	 */
 	private void setStartingPosition(Player player)
 	{
-		int x = allPlayers.indexOf(player)*2;
-		int y = x+1;
-		board.setPosition(player, STARTINGPOSITION[x],STARTINGPOSITION[y]);
+		recordPosition(player);
+		setPosition(player, board.getCell(getStartingCell(allPlayers.indexOf(player))));
+		//The starting position is not in a room
+		recordRoom(player);
+		playerToRoom.put(player, null);
+	}
+
+	/**
+	 * @param character - The index of the character in allPlayers
+	 * @return The index of the cell the character starts the game on
+	 */
+	static int getStartingCell(int character)
+	{
+		return Board.cellIndex(STARTINGPOSITION[character * 2], STARTINGPOSITION[character * 2 + 1]);
+	}
+
+	/**
+	 * Find every corridor cell the current player can move onto
+	 * and every room they can enter with the rest of their roll.
+	 * Follows the same rules as move and takeExit: the player cannot pass through walls
+	 * or other pieces, go back to a cell they have been on this turn,
+	 * or enter the room they exited this turn.
+	 * @return Where the current player can get to this turn
+	 * @throws IllegalMethodCallException
+	 * If the game is over
+	 */
+	public Reachability getReachable()
+	{
+		if (gameOver) 
+		{
+			throw new IllegalMethodCallException("Game is over.");
+		}
+		if (remainingMoves <= 0) 
+		{
+			return Reachability.none(topology);
+		}
+		long[] blocked = board.getOccupancy();
+		for (int i = 0; i < blocked.length; i++) 
+		{
+			blocked[i] |= playerPath[i];
+		}
+		long[] start = new long[Board.OCCUPANCY_WORDS];
+		long[] reached = new long[Board.OCCUPANCY_WORDS];
+		int enteredRooms = 0;
+		int excludedRooms = lastRoom == null ? 0 : 1 << rooms.indexOf(lastRoom);
+		int moves = remainingMoves;
+		if (isInRoom()) 
+		{
+			//Taking an exit is the first move, and the player cannot come back in this turn
+			Room room = getCurrentRoom();
+			excludedRooms |= 1 << rooms.indexOf(room);
+			for (Cell exit : exitCells.get(room)) 
+			{
+				if (board.containsPiece(exit)) 
+				{
+					continue;
+				}
+				Room passage = cellToRoom.get(exit);
+				if (passage != null) 
+				{
+					enteredRooms |= 1 << rooms.indexOf(passage);
+				}
+				else 
+				{
+					int index = Board.cellIndex(exit);
+					start[index >>> 6] |= 1L << index;
+					reached[index >>> 6] |= 1L << index;
+				}
+			}
+			moves--;
+		}
+		else 
+		{
+			int index = Board.cellIndex(getPosition(currentPlayer));
+			start[index >>> 6] |= 1L << index;
+		}
+		return Reachability.find(topology, start, reached, blocked, moves, enteredRooms, excludedRooms);
 	}
 
 	/**
@@ -325,72 +581,118 @@ public class Game
 		{
 			return false;
 		}
-		Set<Direction> directions = new HashSet<Direction>();
-		Set<Direction> toRemove = new HashSet<Direction>();
-		directions.add(Direction.North);
-		directions.add(Direction.South);
-		directions.add(Direction.West);
-		directions.add(Direction.East);
-		if(!isInRoom())
-		{
-			Cell pos = getPosition(currentPlayer);
-			Set<Direction> walls = pos.getWalls();
-			directions.removeAll(walls);
-			int x = pos.getX();
-			int y = pos.getY();
-			Cell[][] cells = getCells();
-			for(Direction dir : directions)
+		boolean free = false;
+		Room current = playerToRoom.get(currentPlayer);
+		if(current == null)
+		{
+			int index = Board.cellIndex(getPosition(currentPlayer));
+			for(int d = 0; d < DIRECTIONS.length && !free; d++)
+			{
+				//Blocked by a wall or the edge of the board
+				int neighbour = board.getNeighbour(index, DIRECTIONS[d]);
+				if(neighbour < 0 || board.isOccupied(neighbour) || hasVisited(neighbour))
+				{
+					continue;
+				}
+				//Can only move into a room through an entrance, and not the room just exited
+				Cell checkCell = board.getCell(neighbour);
+				Room room = cellToRoom.get(checkCell);
+				free = room == null || (entranceCells.get(room).contains(checkCell) && !room.equals(lastRoom));
+			}
+		}
+		else
+		{
+			List<Cell> exits = exitCells.get(current);
+			for(int i = 0; i < exits.size() && !free; i++)
+			{
+				free = !board.containsPiece(exits.get(i));
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * List every action the current player can take, without creating any objects,
+	 * so agents can search through the game quickly.
+	 * The actions are encoded as described in Action:
+	 * each direction they can move in, or each free exit (and secret passage) if they are in a room,
+	 * every suggestion if they can make one, every accusation if asked for,
+	 * and ending their turn if they have no moves left or cannot use them.
+	 * @param actions - The array to write the actions into, from index 0.
+	 * It must hold at least Action.MAX_ACTIONS actions, and can be reused between calls.
+	 * @param withAccusations - Whether to include the accusations
+	 * @return The number of actions written, 0 if the game is over
+	 * @throws IllegalArgumentException
+	 * If the array is null or too small
+	 */
+	public int getLegalActions(int[] actions, boolean withAccusations)
+	{
+		if (actions == null || actions.length < Action.MAX_ACTIONS)
+		{
+			throw new IllegalArgumentException("Actions must hold at least " + Action.MAX_ACTIONS + " actions");
+		}
+		if (gameOver)
+		{
+			return 0;
+		}
+		int count = 0;
+		if (remainingMoves > 0)
+		{
+			Room room = playerToRoom.get(currentPlayer);
+			if (room != null)
 			{
-				Cell checkCell = null;
-				switch(dir)
+				List<Cell> exits = exitCells.get(room);
+				for (int i = 0; i < exits.size(); i++)
 				{
-					case North:
-						checkCell = cells[x][y-1];
-						break;
-					case South:
-						checkCell = cells[x][y+1];
-						break;
-					case East:
-						checkCell = cells[x+1][y];
-						break;
-					case West:
-						checkCell = cells[x-1][y];
-						break;
+					Cell exit = exits.get(i);
+					if (!board.containsPiece(exit))
+					{
+						actions[count++] = Action.exit(Board.cellIndex(exit));
+					}
 				}
-				assert checkCell != null;
-				if(board.containsPiece(checkCell) ||
-						playerPath.contains(checkCell) ||
-				checkCell.hasWall(Heading.opposite(dir)))
+			}
+			else
+			{
+				int index = Board.cellIndex(getPosition(currentPlayer));
+				for (int d = 0; d < DIRECTIONS.length; d++)
 				{
-					toRemove.add(dir);
+					if (stepTo(index, DIRECTIONS[d], null, 0) >= 0)
+					{
+						actions[count++] = Action.move(DIRECTIONS[d]);
+					}
 				}
 			}
-			directions.removeAll(toRemove);
-			if(directions.isEmpty())
+		}
+		boolean stuck = count == 0;
+		if (canMakeSuggestion())
+		{
+			for (int s = 0; s < MAX_PLAYERS; s++)
 			{
-				/*
-				 * Set remaining moves to zero so nextTurn() can be called
-				 * without throwing an exception
-				 */
-				remainingMoves = 0;
-				return false;
+				for (int w = 0; w < NUM_WEAPONS; w++)
+				{
+					actions[count++] = Action.suggest(s, MAX_PLAYERS + w);
+				}
 			}
 		}
-		else
+		if (withAccusations)
 		{
-			try 
+			for (int s = 0; s < MAX_PLAYERS; s++)
 			{
-				return !getAvailableExits().isEmpty();
-			} 
-			catch (NoAvailableExitException e) {
-				remainingMoves = 0;
-				return false;
-			} 
-			catch (InvalidMoveException e)
-			{	
+				for (int w = 0; w < NUM_WEAPONS; w++)
+				{
+					for (int r = 0; r < NUM_ROOMS; r++)
+					{
+						actions[count++] = Action.accuse(s, MAX_PLAYERS + w, MAX_PLAYERS + NUM_WEAPONS + r);
+					}
+				}
 			}
 		}
-		return true;
+		//The engine lets a stuck player end their turn early (see Engine.endTurn)
+		if (stuck)
+		{
+			actions[count++] = Action.endTurn();
+		}
+		return count;
 	}
 
 	/**
@@ -412,6 +714,28 @@ public class Game
 	 *             If the argument is null
 	 */
 	public Cell move(Direction direction) throws InvalidMoveException 
+	{
+		MoveStatus status = tryMove(direction);
+		if (status != MoveStatus.OK) 
+		{
+			throw moveException(status);
+		}
+		return getPosition(currentPlayer);
+	}
+
+	/**
+	 * Move the current player one cell in the direction, following the same rules as move,
+	 * without throwing an exception if the move is not allowed.
+	 * This is much cheaper than catching an exception when trying many moves.
+	 * @param direction - direction player is moving towards
+	 * @return OK if the player moved, otherwise why they could not
+	 * (NO_MOVES, WALL, OFF_BOARD, NO_REENTRY, REVISIT, BAD_ENTRANCE or OCCUPIED)
+	 * @throws IllegalMethodCallException
+	 * If the game is over
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public MoveStatus tryMove(Direction direction) 
 	{
 		if (gameOver) 
 		{
@@ -422,52 +746,276 @@ public class Game
 			throw new IllegalArgumentException("Argument cannot be null");
 		}
 		if (remainingMoves <= 0) 
+		{
+			return MoveStatus.NO_MOVES;
+		}
+		int index = stepTo(Board.cellIndex(getPosition(currentPlayer)), direction, null, 0);
+		if (index < 0) 
+		{
+			return STATUSES[~index];
+		}
+		beginAction();
+		step(index);
+		return MoveStatus.OK;
+	}
+
+	/**
+	 * Move the current player along a path in one go.
+	 * The whole path is checked before the player is moved,
+	 * so either every step is taken or none are.
+	 * The path may end by entering a room, which uses up the rest of the moves.
+	 * @param path - The directions to move in, in order
+	 * @return The cell the player ends on
+	 * @throws InvalidMoveException
+	 * If the player is in a room, the path is longer than the remaining moves,
+	 * or any step breaks the rules of move(Direction)
+	 * or continues after entering a room
+	 * @throws IllegalMethodCallException
+	 * If the game is over
+	 * @throws IllegalArgumentException
+	 * If the path is null, empty or contains null
+	 */
+	public Cell moveAlong(List<Direction> path) throws InvalidMoveException 
+	{
+		if (gameOver) 
+		{
+			throw new IllegalMethodCallException("Game is over.");
+		}
+		if (path == null || path.isEmpty() || path.contains(null)) 
+		{
+			throw new IllegalArgumentException("Path must be a non empty list of directions");
+		}
+		if (isInRoom()) 
+		{
+			throw new InvalidMoveException(currentPlayer.getName() + " must take an exit to leave the room");
+		}
+		if (path.size() > remainingMoves) 
+		{
+			throw new InvalidMoveException("Cannot move " + path.size() + " cells with " + remainingMoves + " moves left");
+		}
+		int[] cells = new int[path.size()];
+		int index = Board.cellIndex(getPosition(currentPlayer));
+		for (int i = 0; i < cells.length; i++) 
+		{
+			if (i > 0 && cellToRoom.containsKey(board.getCell(index))) 
+			{
+				throw new InvalidMoveException("Cannot keep moving after entering a room");
+			}
+			index = stepTo(index, path.get(i), cells, i);
+			if (index < 0) 
+			{
+				throw moveException(STATUSES[~index]);
+			}
+			cells[i] = index;
+		}
+		beginAction();
+		Cell cell = null;
+		for (int next : cells) 
+		{
+			cell = step(next);
+		}
+		return cell;
+	}
+
+	/**
+	 * Move the current player along the shortest path towards a room.
+	 * If the room is further away than the remaining moves,
+	 * the player uses all of their moves and stops on the way.
+	 * @param room - The room to move towards
+	 * @return The cell the player ends on
+	 * @throws InvalidMoveException
+	 * If the player is in a room, has no moves left, or there is no path to the room
+	 * @throws IllegalMethodCallException
+	 * If the game is over
+	 * @throws IllegalArgumentException
+	 * If the room is null or not on the board
+	 */
+	public Cell moveTowards(Room room) throws InvalidMoveException 
+	{
+		if (gameOver) 
+		{
+			throw new IllegalMethodCallException("Game is over.");
+		}
+		if (remainingMoves <= 0) 
 		{
 			throw new InvalidMoveException("Cannot move as no moves left");
 		}
-		Cell oldPos = getPosition(currentPlayer);
-		/*
-		 * Walls are not defined in both cells 
-		 * (i.e. cell may not have a South wall
-		 * but neighbouring cell will have North wall)
-		 *  so have to check both cells if there is a wall
-		 */
-		if(oldPos.hasWall(direction))
+		List<Direction> path = findPath(room);
+		if (path == null) 
 		{
-			throw new InvalidMoveException("Cannot move in that direction as a wall is blocking the way");
+			throw new InvalidMoveException("There is no path to the " + room.getName());
 		}
-		Cell newPos = board.getNeighbouringCell(oldPos, direction);
-		if(newPos.hasWall(Heading.opposite(direction)))
+		return moveAlong(path.subList(0, Math.min(path.size(), remainingMoves)));
+	}
+
+	/**
+	 * Find the shortest path from the current player to a room
+	 * that follows the rules of move(Direction)
+	 * (the path goes around other pieces and the cells they have been on this turn).
+	 * @param room - The room to go to
+	 * @return The directions of each step, ending with the step into the room,
+	 * or null if there is no path. The path may be longer than the remaining moves.
+	 * @throws InvalidMoveException
+	 * If the current player is in a room
+	 * @throws IllegalArgumentException
+	 * If the room is null or not on the board
+	 */
+	public List<Direction> findPath(Room room) throws InvalidMoveException 
+	{
+		if (room == null) 
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		int roomIndex = rooms.indexOf(room);
+		if (roomIndex < 0) 
 		{
-			throw new InvalidMoveException("Cannot move in that direction as a wall is blocking the way");
+			throw new IllegalArgumentException(room.getName() + " is not a valid room!");
 		}
-		if(lastRoom != null && lastRoom.equals(cellToRoom.get(newPos)))
+		if (isInRoom()) 
 		{
-			throw new InvalidMoveException(currentPlayer.getName() + " cannot reenter the same room they exited");
+			throw new InvalidMoveException(currentPlayer.getName() + " must take an exit to leave the room");
 		}
-		if(playerPath.contains(newPos))
+		if (room.equals(lastRoom)) 
 		{
-			throw new InvalidMoveException("Cannot move to the same cell in the same turn");
+			return null;
 		}
-		//Player going into a room
-		if(cellToRoom.containsKey(newPos))
+		Direction[] directions = Direction.values();
+		long[] corridor = topology.getCorridorMask();
+		long[] entrances = topology.getEntranceMask(roomIndex);
+		//The direction of the step onto each cell, -1 if the cell has not been found
+		int[] stepInto = new int[Board.NUM_CELLS];
+		Arrays.fill(stepInto, -1);
+		int[] queue = new int[Board.NUM_CELLS];
+		int start = Board.cellIndex(getPosition(currentPlayer));
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		int end = -1;
+		while (head < tail && end < 0) 
 		{
-			Room room = cellToRoom.get(newPos);
-			if(!entranceCells.get(room).contains(newPos))
+			int current = queue[head++];
+			for (Direction direction : directions) 
 			{
-				throw new InvalidMoveException("Did not enter the room through a valid entrance");
+				int next = board.getNeighbour(current, direction);
+				if (next < 0 || next == start || stepInto[next] >= 0 || hasVisited(next)) 
+				{
+					continue;
+				}
+				if ((entrances[next >>> 6] & (1L << next)) != 0) 
+				{
+					stepInto[next] = direction.ordinal();
+					end = next;
+					break;
+				}
+				if ((corridor[next >>> 6] & (1L << next)) != 0 && !board.isOccupied(next)) 
+				{
+					stepInto[next] = direction.ordinal();
+					queue[tail++] = next;
+				}
 			}
-			//Reallocate the player to a cell in the room
-			newPos = this.putInRoom(currentPlayer, room);
-			remainingMoves = 0;
 		}
-		else
+		if (end < 0) 
 		{
-			playerPath.add(newPos);
-			//Actually move the player to the cell
-			board.move(currentPlayer, direction);
-			remainingMoves--;
+			return null;
+		}
+		List<Direction> path = new ArrayList<Direction>();
+		for (int cell = end; cell != start; ) 
+		{
+			Direction direction = directions[stepInto[cell]];
+			path.add(direction);
+			cell = board.getNeighbour(cell, Heading.opposite(direction));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Check that the current player can step from a cell in a direction
+	 * @param index - The cell the player is on
+	 * @param taken - The cells stepped on earlier in the same move, or null
+	 * @param numTaken - The number of cells in taken
+	 * @return The index of the cell the step goes to,
+	 * or the complement (~) of the ordinal of the MoveStatus saying why the step is not allowed
+	 */
+	private int stepTo(int index, Direction direction, int[] taken, int numTaken)
+	{
+		//Checks the walls of both cells and the edge of the board
+		int next = board.getNeighbour(index, direction);
+		if(next < 0)
+		{
+			return ~board.getBlockedStatus(index, direction).ordinal();
+		}
+		Cell newPos = board.getCell(next);
+		Room room = cellToRoom.get(newPos);
+		if(lastRoom != null && lastRoom.equals(room))
+		{
+			return ~MoveStatus.NO_REENTRY.ordinal();
+		}
+		boolean revisit = hasVisited(next);
+		for (int i = 0; i < numTaken; i++) 
+		{
+			revisit |= taken[i] == next;
+		}
+		if(revisit)
+		{
+			return ~MoveStatus.REVISIT.ordinal();
+		}
+		if(room != null && !entranceCells.get(room).contains(newPos))
+		{
+			return ~MoveStatus.BAD_ENTRANCE.ordinal();
+		}
+		if(room == null && board.isOccupied(next))
+		{
+			return ~MoveStatus.OCCUPIED.ordinal();
+		}
+		return next;
+	}
+
+	/**
+	 * @return The exception that move and takeExit throw for a status
+	 * @throws IllegalArgumentException
+	 * If the status is OFF_BOARD
+	 */
+	private InvalidMoveException moveException(MoveStatus status)
+	{
+		switch (status) 
+		{
+			case OFF_BOARD:
+				throw new IllegalArgumentException(status.getMessage());
+			case NO_REENTRY:
+				return new InvalidMoveException(currentPlayer.getName() + " cannot reenter the same room they exited");
+			case NOT_IN_ROOM:
+				return new InvalidMoveException(currentPlayer.getName() + " is not in a room therefore cannot exit");
+			default:
+				return new InvalidMoveException(status.getMessage());
 		}
+	}
+
+	/**
+	 * Move the current player onto a cell that stepTo has allowed
+	 * @param index - The cell's index
+	 * @return The cell the player is on, which is a free cell of the room if they entered one
+	 */
+	private Cell step(int index)
+	{
+		Cell newPos = board.getCell(index);
+		Room room = cellToRoom.get(newPos);
+		int seat = seats.indexOf(currentPlayer);
+		log.add(EventLog.MOVE, seat, Board.cellIndex(getPosition(currentPlayer)), index, 0, 0);
+		//Player going into a room
+		if(room != null)
+		{
+			//Reallocate the player to a cell in the room
+			Cell cell = this.putInRoom(currentPlayer, room);
+			remainingMoves = 0;
+			log.add(EventLog.ENTER, seat, rooms.indexOf(room), Board.cellIndex(cell), 0, 0);
+			return cell;
+		}
+		visit(index);
+		//Actually move the player to the cell
+		recordPosition(currentPlayer);
+		setPosition(currentPlayer, newPos);
+		remainingMoves--;
 		return newPos;
 	}
 	
@@ -558,6 +1106,7 @@ public class Game
 		{
 			throw new IllegalMethodCallException("Can only make a suggestion once per turn");
 		}
+		beginAction();
 		// Get the roomCard for the room the current player is in
 		RoomCard roomCard = null;
 		String roomName = getCurrentRoom().getName();
@@ -579,7 +1128,11 @@ public class Game
 				{
 					//Put in the room
 					this.putInRoom(p,getCurrentRoom());
+					log.add(EventLog.TRANSFER, seats.indexOf(currentPlayer), suspectCard.getID(),
+							rooms.indexOf(getCurrentRoom()), 0, 0);
+					recordRoom(p);
 					playerToRoom.put(p, getCurrentRoom());
+					recordTransferred(p);
 					transferred.put(p, true);
 				}
 				break; 
@@ -597,6 +1150,8 @@ public class Game
  						!cellToRoom.get(weaponPos).equals(getCurrentRoom()))
 				{
 					this.putInRoom(w,getCurrentRoom());
+					log.add(EventLog.TRANSFER, seats.indexOf(currentPlayer), weaponCard.getID(),
+							rooms.indexOf(getCurrentRoom()), 0, 0);
 					break; 
 				}	
 			} 
@@ -604,36 +1159,44 @@ public class Game
 		// Iterate through each human player to try and disprove the suggestion
 		allHumanIterator = new Turn<Player>(allHumanIterator.getList(), turn.getPos());
 		Player player = allHumanIterator.next();
-		Map<Player, Set<Card>> disprover = new HashMap<Player, Set<Card>>();
 		hasMadeSuggestion = true;
 		if(transferred.containsKey(currentPlayer) && transferred.get(currentPlayer))
 		{
 			remainingMoves = 0;
 		}
+		int suggested = CardSet.bit(roomCard) | CardSet.bit(weaponCard) | CardSet.bit(suspectCard);
+		int matching = 0;
 		while (player != currentPlayer) 
 		{
-			List<Card> playerCards = playerHand.get(player);
-			Set<Card> disprovingCards = new HashSet<Card>();
-			if (playerCards.contains(roomCard)) 
-			{
-				disprovingCards.add(roomCard);
-			}
-			if (playerCards.contains(weaponCard)) 
-			{
-				disprovingCards.add(weaponCard);
-			}
-			if (playerCards.contains(suspectCard)) 
+			matching = playerHandSet.get(player).getMask() & suggested;
+			if (matching != 0) 
 			{
-				disprovingCards.add(suspectCard);
+				break;
 			}
-			if (!disprovingCards.isEmpty()) 
+			player = allHumanIterator.next();
+		}
+		int suggester = seats.indexOf(currentPlayer);
+		int disproverSeat = matching == 0 ? EventLog.NONE : seats.indexOf(player);
+		log.add(EventLog.SUGGEST, suggester, suspectCard.getID(), weaponCard.getID(), roomCard.getID(), disproverSeat);
+		for (int seat = (suggester + 1) % seats.size(); seat != suggester && seat != disproverSeat; seat = (seat + 1) % seats.size()) 
+		{
+			log.add(EventLog.PASS, seat, suggester, 0, 0, 0);
+		}
+		if (matching == 0) 
+		{
+			return new HashMap<Player, Set<Card>>();
+		}
+		Set<Card> disprovingCards = new HashSet<Card>();
+		for (Card card : new Card[] { roomCard, weaponCard, suspectCard }) 
+		{
+			if ((matching & CardSet.bit(card)) != 0) 
 			{
-				disprover.put(player, disprovingCards);
-				return disprover;
+				disprovingCards.add(card);
 			}
-			player = allHumanIterator.next();
 		}
-		return new HashMap<Player, Set<Card>>();
+		Map<Player, Set<Card>> disprover = new HashMap<Player, Set<Card>>();
+		disprover.put(player, disprovingCards);
+		return disprover;
 	}
 	/**
 	 * Removes the card from the current player's CaseFile. 
@@ -669,11 +1232,18 @@ public class Game
 		{
 			Player p = entry.getKey();
 			Card card = entry.getValue();
-			if(!playerHand.get(p).contains(card))
+			if(!playerHandSet.get(p).contains(card))
 			{
 				throw new IllegalArgumentException("Disproving player must have the card in their hand");
 			}
-			playerToCasefile.get(currentPlayer).removeCard(card);
+			beginAction();
+			CaseFile caseFile = playerToCasefile.get(currentPlayer);
+			if (journal != null) 
+			{
+				push(caseFile.getCards().getMask(), J_CASEFILE, seats.indexOf(currentPlayer));
+			}
+			caseFile.removeCard(card);
+			log.add(EventLog.REVEAL, seats.indexOf(p), card.getID(), seats.indexOf(currentPlayer), 0, 0);
 			return;
 		}
 	}
@@ -720,10 +1290,17 @@ public class Game
 		{
 			throw new IllegalArgumentException("Only active players can make accusations");
 		}
-		//CaseFile accusation = new CaseFile(suspectCard, weaponCard, roomCard);
+		beginAction();
+		int seat = seats.indexOf(player);
+		boolean correct = answer.containsRoomCard(roomCard) && answer.containsSuspectCard(suspectCard)
+				&& answer.containsWeaponCard(weaponCard);
+		log.add(EventLog.ACCUSE, seat, suspectCard.getID(), weaponCard.getID(), roomCard.getID(), correct ? 1 : 0);
+		if (!correct) 
+		{
+			log.add(EventLog.ELIMINATE, seat, 0, 0, 0, 0);
+		}
 		// Game over, the player won!
-		if (answer.containsRoomCard(roomCard) && answer.containsSuspectCard(suspectCard)
-				&& answer.containsWeaponCard(weaponCard)) 
+		if (correct) 
 		{
 			gameOver = true;
 			return true;
@@ -731,20 +1308,24 @@ public class Game
 		// Last player in the game failed.
 		else if (players.size() == 1) 
 		{
+			recordActivePlayers();
 			players.remove(player);
 			setStartingPosition(player);
 			gameOver = true;
+			firePlayerEliminated(player);
 			return false;
 		} 
 		else 
 		{
 			// Accusation failed, remove player from the game
+			recordActivePlayers();
 			players.remove(player);
 			setStartingPosition(player);
+			firePlayerEliminated(player);
 			if(player == currentPlayer)
 			{
 				remainingMoves = 0;
-				nextTurn();
+				advanceTurn();
 			}
 			return false;
 		}
@@ -775,6 +1356,30 @@ public class Game
 	 * a random room cell position if the player took the secret passage
 	 */
 	public Cell takeExit(Cell cell) throws InvalidMoveException
+	{
+		MoveStatus status = tryExit(cell);
+		if (status == MoveStatus.OCCUPIED) 
+		{
+			throw new InvalidMoveException("Another player is blocking that exit");
+		}
+		if (status != MoveStatus.OK) 
+		{
+			throw moveException(status);
+		}
+		return getPosition(currentPlayer);
+	}
+
+	/**
+	 * The current player takes an exit out of their room, following the same rules
+	 * as takeExit, without throwing an exception if they cannot.
+	 * @param cell - The proposed exit taken by the player
+	 * @return OK if the player took the exit, otherwise NOT_IN_ROOM, NO_MOVES or OCCUPIED
+	 * @throws IllegalMethodCallException
+	 * If the game is over
+	 * @throws IllegalArgumentException
+	 * If cell given is not an exit cell or is null
+	 */
+	public MoveStatus tryExit(Cell cell)
 	{
 		if (gameOver) 
 		{
@@ -786,7 +1391,7 @@ public class Game
 		}
 		if (!isInRoom()) 
 		{
-			throw new InvalidMoveException(currentPlayer.getName() + " is not in a room therefore cannot exit");
+			return MoveStatus.NOT_IN_ROOM;
 		}
 		if(!exitCells.get(getCurrentRoom()).contains(cell))
 		{
@@ -795,34 +1400,43 @@ public class Game
 
 		if (remainingMoves <= 0) 
 		{
-			throw new InvalidMoveException("Cannot move as no moves left");
+			return MoveStatus.NO_MOVES;
 		}	
 		if(board.containsPiece(cell))
 		{
-			throw new InvalidMoveException("Another player is blocking that exit");
+			return MoveStatus.OCCUPIED;
 		}
+		beginAction();
+		int seat = seats.indexOf(currentPlayer);
+		log.add(EventLog.EXIT, seat, rooms.indexOf(getCurrentRoom()), Board.cellIndex(cell), 0, 0);
 		//Used secret passage
 		if(cellToRoom.containsKey(cell))
 		{
 			remainingMoves = 0;
 			Room newRoom = cellToRoom.get(cell);
-			return putInRoom(currentPlayer, newRoom);
+			Cell placed = putInRoom(currentPlayer, newRoom);
+			log.add(EventLog.ENTER, seat, rooms.indexOf(newRoom), Board.cellIndex(placed), 0, 0);
 		}
 		else
 		{
-			board.setPosition(currentPlayer, cell);
+			recordPosition(currentPlayer);
+			setPosition(currentPlayer, cell);
 			lastRoom = getCurrentRoom();
+			recordRoom(currentPlayer);
 			playerToRoom.put(currentPlayer, null);
 			remainingMoves--;
-			playerPath.add(cell);
+			visit(Board.cellIndex(cell));
 		}
-		return cell;
+		return MoveStatus.OK;
 	}
 	
 	/**
 	 * Switches to the next active human player. 
-	 * Also resets global values for the next player
+	 * Also resets global values for the next player.
+	 * A player who cannot move (see canMove) can end their turn with moves left.
 	 * @return the next player in the turn
+	 * @throws HasRemainingMovesException
+	 * If the current player has moves left and can still use them
 	 */
 	public Player nextTurn() 
 	{
@@ -830,12 +1444,26 @@ public class Game
 		{
 			throw new IllegalMethodCallException("Game is over.");
 		}
-		if (remainingMoves != 0) 
+		if (remainingMoves != 0 && canMove()) 
 		{
 			throw new HasRemainingMovesException(currentPlayer.getName() + "  must continue moving");
 		}
+		beginAction();
+		//A stuck player gives up their moves, which undo gives back
+		remainingMoves = 0;
+		return advanceTurn();
+	}
+
+	/**
+	 * Switch to the next active player without checking
+	 * that the current player has finished their turn
+	 * @return the next player in the turn
+	 */
+	private Player advanceTurn() 
+	{
 		if(currentPlayer != null)
 		{
+			recordTransferred(currentPlayer);
 			transferred.put(currentPlayer,false);
 		}
 		currentPlayer = turn.next();
@@ -844,14 +1472,18 @@ public class Game
 		{
 			currentPlayer = turn.next();
 		}
+		log.add(EventLog.TURN, seats.indexOf(currentPlayer), 0, 0, 0, 0);
+		for (GameListener listener : listeners)
+		{
+			listener.turnChanged(currentPlayer);
+		}
 		//Reset for the next player
 		if(lastRoom != null)
 		{
 			lastRoom = null;
 		}
-		playerPath = new HashSet<Cell>();
-		Cell playerPos = getPosition(currentPlayer);
-		playerPath.add(playerPos);
+		Arrays.fill(playerPath, 0);
+		visit(Board.cellIndex(getPosition(currentPlayer)));
 		hasMadeSuggestion = false;
 		rollDice();
 		return currentPlayer;
@@ -875,6 +1507,7 @@ public class Game
 		}
 		if(piece == currentPlayer)
 		{
+			recordRoom(currentPlayer);
 			playerToRoom.put(currentPlayer, room);
 		}
 		for(Cell cell:roomCells.get(room))
@@ -892,7 +1525,8 @@ public class Game
 				 */
 				if(!board.containsPiece(cell))
 				{
-					board.setPosition(piece, cell);
+					recordPosition(piece);
+					setPosition(piece, cell);
 					return cell;
 				}
 			}
@@ -915,12 +1549,17 @@ public class Game
 			throw new IllegalMethodCallException("Game is over.");
 		}
 		assert remainingMoves == 0 : "Last player must not have any remaining moves ";
-		int d1 = (int) (Math.random() * 6 + 1);
-		int d2 = (int) (Math.random() * 6 + 1);
+		int d1 = random.nextInt(6) + 1;
+		int d2 = random.nextInt(6) + 1;
 		
 		// Update our diceRoll values for the calling class.
 		diceRoll[0] = d1;
 		diceRoll[1] = d2;
+		log.add(EventLog.ROLL, seats.indexOf(currentPlayer), d1, d2, 0, 0);
+		for (GameListener listener : listeners)
+		{
+			listener.diceRolled(d1, d2);
+		}
 		
 		remainingMoves = d1 + d2;
 	}
@@ -967,6 +1606,15 @@ public class Game
 	{
 		return Collections.unmodifiableList(activeHumanPlayers);
 	}
+
+	/**
+	 * @return Every human player in turn order, including eliminated players.
+	 * Suggestions are disproved in this order, starting after the suggesting player.
+	 */
+	public List<Player> getSeats() 
+	{
+		return seats;
+	}
 	
 	/**
 	 * Get the name that the users choose based
@@ -1189,27 +1837,485 @@ public class Game
 	
 	public Set<Cell> getDoorCells() 
 	{
-		return doorCells;
+		return topology.getDoorCells();
 	}
 
 	public Set<Cell> getOutOfBoundCells() 
 	{
-		return outOfBoundCells;
+		return topology.getOutOfBoundCells();
 	}
 
 	public Set<Cell> getSecretPassageCells() 
 	{
-		return secretPassageCells;
+		return topology.getSecretPassageCells();
 	}
 	
 	public Set<Cell> getRoomCells()
 	{
-		Set<Cell> cellsInRoom = new HashSet<Cell>();
-		for(Set<Cell> cells : roomCells.values())
+		return topology.getAllRoomCells();
+	}
+
+	/**
+	 * Take a snapshot of the game, which the game can be returned to
+	 * with restoreState, or resumed from with new Game(state).
+	 * @return The current state of the game
+	 */
+	public GameState getState()
+	{
+		GameState state = new GameState(seats, humanPlayerNames, seed);
+		state.answer = answer.getCards().getMask();
+		state.extraCards = CardSet.of(extraCards).getMask();
+		for (int seat = 0; seat < seats.size(); seat++) 
+		{
+			Player player = seats.get(seat);
+			state.hands[seat] = playerHandSet.get(player).getMask();
+			state.caseFiles[seat] = playerToCasefile.get(player).getCards().getMask();
+			if (activeHumanPlayers.contains(player)) 
+			{
+				state.activeSeats |= 1 << seat;
+			}
+		}
+		for (int i = 0; i < MAX_PLAYERS; i++) 
+		{
+			Player player = allPlayers.get(i);
+			state.positions[i] = (short) Board.cellIndex(board.getPosition(player));
+			Room room = playerToRoom.get(player);
+			state.characterRooms[i] = (byte) (room == null ? -1 : rooms.indexOf(room));
+			if (Boolean.TRUE.equals(transferred.get(player))) 
+			{
+				state.transferred |= 1 << i;
+			}
+		}
+		for (int i = 0; i < NUM_WEAPONS; i++) 
+		{
+			state.positions[MAX_PLAYERS + i] = (short) Board.cellIndex(board.getPosition(weapons.get(i)));
+		}
+		state.currentSeat = seats.indexOf(currentPlayer);
+		state.turnPos = turn.getPos();
+		state.remainingMoves = remainingMoves;
+		state.dice1 = diceRoll[0];
+		state.dice2 = diceRoll[1];
+		state.lastRoom = lastRoom == null ? -1 : rooms.indexOf(lastRoom);
+		state.flags = (gameOver ? GameState.FLAG_GAME_OVER : 0) | (hasMadeSuggestion ? GameState.FLAG_MADE_SUGGESTION : 0);
+		System.arraycopy(playerPath, 0, state.path, 0, playerPath.length);
+		state.randomState = random.getState();
+		return state;
+	}
+
+	/**
+	 * Return the game to a state it was in.
+	 * The state can be restored any number of times, and is not changed by the game.
+	 * @param state - Taken from getState() on this game, 
+	 * or a game created with the same players and seed
+	 * @throws IllegalArgumentException
+	 * If the argument is null or the state is from a different game
+	 */
+	public void restoreState(GameState state)
+	{
+		if (state == null) 
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		if (state.seed != seed || !state.seats.equals(seats)) 
+		{
+			throw new IllegalArgumentException("State is from a different game");
+		}
+		Player oldPlayer = currentPlayer;
+		int oldDice = diceRoll[0] | diceRoll[1] << 8;
+		activeHumanPlayers.clear();
+		for (int seat = 0; seat < seats.size(); seat++) 
+		{
+			Player player = seats.get(seat);
+			playerToCasefile.get(player).setCards(CardSet.ofMask(state.caseFiles[seat]));
+			if (state.isActive(seat)) 
+			{
+				activeHumanPlayers.add(player);
+			}
+		}
+		for (int i = 0; i < MAX_PLAYERS; i++) 
+		{
+			Player player = allPlayers.get(i);
+			setPosition(player, board.getCell(state.positions[i]));
+			int room = state.characterRooms[i];
+			playerToRoom.put(player, room < 0 ? null : rooms.get(room));
+			transferred.put(player, (state.transferred & (1 << i)) != 0);
+		}
+		for (int i = 0; i < NUM_WEAPONS; i++) 
+		{
+			setPosition(weapons.get(i), board.getCell(state.positions[MAX_PLAYERS + i]));
+		}
+		currentPlayer = seats.get(state.currentSeat);
+		turn.setPos(state.turnPos);
+		remainingMoves = state.remainingMoves;
+		diceRoll[0] = state.dice1;
+		diceRoll[1] = state.dice2;
+		lastRoom = state.lastRoom < 0 ? null : rooms.get(state.lastRoom);
+		gameOver = (state.flags & GameState.FLAG_GAME_OVER) != 0;
+		hasMadeSuggestion = (state.flags & GameState.FLAG_MADE_SUGGESTION) != 0;
+		System.arraycopy(state.path, 0, playerPath, 0, playerPath.length);
+		random.setState(state.randomState);
+		//The events that led to the state are not known
+		log.truncate(0);
+		clearUndo();
+		fireRestored(oldPlayer, oldDice);
+	}
+
+	/**
+	 * Start or stop recording the actions so they can be undone.
+	 * While undo is enabled, move, takeExit, makeSuggestion, removeCard,
+	 * makeAccusation and nextTurn can each be undone in constant time
+	 * without creating any objects, so a bot can search on a single game.
+	 * Actions that throw an exception do not need to be undone.
+	 * @param enabled - true to start recording, false to stop and forget the recorded actions
+	 */
+	public void setUndoEnabled(boolean enabled)
+	{
+		if (!enabled) 
+		{
+			journal = null;
+		}
+		else if (journal == null) 
+		{
+			journal = new int[64 * (FRAME_SIZE + 1)];
+		}
+		clearUndo();
+	}
+
+	/**
+	 * @return Everything that has happened in the game since it was created or last restored, in order.
+	 * Undoing an action removes its events.
+	 */
+	public EventLog getEventLog()
+	{
+		return log;
+	}
+
+	/**
+	 * Start telling a listener about the changes to the game
+	 * @param listener - Told about changes from now on, in the order listeners were added
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public void addListener(GameListener listener)
+	{
+		if (listener == null) 
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		GameListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+		added[listeners.length] = listener;
+		listeners = added;
+	}
+
+	/**
+	 * Stop telling a listener about changes. Does nothing if it was not added.
+	 * @param listener - A listener given to addListener
+	 */
+	public void removeListener(GameListener listener)
+	{
+		for (int i = 0; i < listeners.length; i++) 
+		{
+			if (listeners[i] == listener) 
+			{
+				GameListener[] removed = new GameListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, removed, 0, i);
+				System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+				listeners = removed;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Put a piece on a cell, and tell the listeners if it moved
+	 */
+	private void setPosition(Piece piece, Cell cell)
+	{
+		if (listeners.length == 0) 
+		{
+			board.setPosition(piece, cell);
+			return;
+		}
+		Cell from = board.getPosition(piece);
+		board.setPosition(piece, cell);
+		if (from != cell) 
+		{
+			for (GameListener listener : listeners) 
+			{
+				listener.pieceMoved(piece, from, cell);
+			}
+		}
+	}
+
+	private void firePlayerEliminated(Player player)
+	{
+		for (GameListener listener : listeners) 
+		{
+			listener.playerEliminated(player);
+		}
+	}
+
+	/**
+	 * Tell the listeners that the game was put back to an earlier state
+	 * @param oldPlayer - The current player before
+	 * @param oldDice - The dice before, packed as die1 | die2 << 8
+	 */
+	private void fireRestored(Player oldPlayer, int oldDice)
+	{
+		for (GameListener listener : listeners) 
+		{
+			if (currentPlayer != oldPlayer) 
+			{
+				listener.turnChanged(currentPlayer);
+			}
+			if ((diceRoll[0] | diceRoll[1] << 8) != oldDice) 
+			{
+				listener.diceRolled(diceRoll[0], diceRoll[1]);
+			}
+			listener.gameRestored();
+		}
+	}
+
+	/**
+	 * @return The number of actions that can be undone
+	 */
+	public int getUndoDepth()
+	{
+		return undoDepth;
+	}
+
+	/**
+	 * Forget the recorded actions. Called when the game is restored to a state.
+	 */
+	private void clearUndo()
+	{
+		journalSize = 0;
+		undoDepth = 0;
+	}
+
+	/**
+	 * Return the game exactly to how it was before the last recorded action.
+	 * @throws IllegalMethodCallException
+	 * If undo is not enabled or there are no actions to undo
+	 */
+	public void undo()
+	{
+		if (undoDepth == 0) 
+		{
+			throw new IllegalMethodCallException("No actions to undo");
+		}
+		Player oldPlayer = currentPlayer;
+		int oldDice = diceRoll[0] | diceRoll[1] << 8;
+		while (true) 
+		{
+			int header = journal[--journalSize];
+			int arg = header >>> 4;
+			switch (header & 0xF) 
+			{
+				case J_FRAME:
+					popFrame();
+					undoDepth--;
+					fireRestored(oldPlayer, oldDice);
+					return;
+				case J_PIECE:
+					Piece piece = arg < MAX_PLAYERS ? allPlayers.get(arg) : weapons.get(arg - MAX_PLAYERS);
+					setPosition(piece, board.getCell(journal[--journalSize]));
+					break;
+				case J_ROOM:
+					int room = journal[--journalSize];
+					playerToRoom.put(allPlayers.get(arg), room < 0 ? null : rooms.get(room));
+					break;
+				case J_TRANSFERRED:
+					int value = journal[--journalSize];
+					if (value < 0) 
+					{
+						transferred.remove(allPlayers.get(arg));
+					}
+					else 
+					{
+						transferred.put(allPlayers.get(arg), value != 0);
+					}
+					break;
+				case J_CASEFILE:
+					playerToCasefile.get(seats.get(arg)).setCards(CardSet.ofMask(journal[--journalSize]));
+					break;
+				case J_ACTIVE:
+					int active = journal[--journalSize];
+					activeHumanPlayers.clear();
+					for (int seat = 0; seat < seats.size(); seat++) 
+					{
+						if ((active & (1 << seat)) != 0) 
+						{
+							activeHumanPlayers.add(seats.get(seat));
+						}
+					}
+					break;
+				default:
+					throw new IllegalStateException("Corrupt undo journal");
+			}
+		}
+	}
+
+	/**
+	 * Called by each action after it has checked its arguments and before it changes anything.
+	 * Saves the values every action may change.
+	 */
+	private void beginAction()
+	{
+		if (journal == null) 
+		{
+			return;
+		}
+		if (journalSize + FRAME_SIZE + 1 > journal.length) 
+		{
+			journal = Arrays.copyOf(journal, journal.length * 2);
+		}
+		int[] j = journal;
+		int n = journalSize;
+		for (long word : playerPath) 
+		{
+			j[n++] = (int) word;
+			j[n++] = (int) (word >>> 32);
+		}
+		long randomState = random.getState();
+		j[n++] = (int) randomState;
+		j[n++] = (int) (randomState >>> 32);
+		j[n++] = remainingMoves;
+		j[n++] = diceRoll[0] | diceRoll[1] << 8;
+		j[n++] = lastRoom == null ? -1 : rooms.indexOf(lastRoom);
+		j[n++] = (gameOver ? GameState.FLAG_GAME_OVER : 0) | (hasMadeSuggestion ? GameState.FLAG_MADE_SUGGESTION : 0);
+		j[n++] = seats.indexOf(currentPlayer);
+		j[n++] = turn.getPos();
+		j[n++] = log.size();
+		j[n++] = J_FRAME;
+		journalSize = n;
+		undoDepth++;
+	}
+
+	/**
+	 * Restore the values saved by beginAction, in reverse order
+	 */
+	private void popFrame()
+	{
+		int[] j = journal;
+		int n = journalSize;
+		log.truncate(j[--n]);
+		turn.setPos(j[--n]);
+		currentPlayer = seats.get(j[--n]);
+		int flags = j[--n];
+		gameOver = (flags & GameState.FLAG_GAME_OVER) != 0;
+		hasMadeSuggestion = (flags & GameState.FLAG_MADE_SUGGESTION) != 0;
+		int room = j[--n];
+		lastRoom = room < 0 ? null : rooms.get(room);
+		int dice = j[--n];
+		diceRoll[0] = dice & 0xFF;
+		diceRoll[1] = dice >>> 8;
+		remainingMoves = j[--n];
+		long high = j[--n];
+		random.setState(high << 32 | (j[--n] & 0xFFFFFFFFL));
+		for (int i = playerPath.length - 1; i >= 0; i--) 
+		{
+			high = j[--n];
+			playerPath[i] = high << 32 | (j[--n] & 0xFFFFFFFFL);
+		}
+		journalSize = n;
+	}
+
+	/**
+	 * Add an entry to the journal
+	 * @param value - The old value
+	 * @param kind - What the value is
+	 * @param arg - The piece, character or seat the value belongs to
+	 */
+	private void push(int value, int kind, int arg)
+	{
+		if (journalSize + 2 > journal.length) 
 		{
-			cellsInRoom.addAll(cells);
+			journal = Arrays.copyOf(journal, journal.length * 2);
 		}
-		return cellsInRoom;
+		journal[journalSize++] = value;
+		journal[journalSize++] = kind | arg << 4;
+	}
+
+	/**
+	 * Save the position of a piece before it is moved
+	 */
+	private void recordPosition(Piece piece)
+	{
+		if (journal != null) 
+		{
+			int index = piece instanceof Weapon ? MAX_PLAYERS + weapons.indexOf(piece) : allPlayers.indexOf(piece);
+			push(Board.cellIndex(board.getPosition(piece)), J_PIECE, index);
+		}
+	}
+
+	/**
+	 * Save the room a character is in before it is changed
+	 */
+	private void recordRoom(Player player)
+	{
+		if (journal != null) 
+		{
+			Room room = playerToRoom.get(player);
+			push(room == null ? -1 : rooms.indexOf(room), J_ROOM, allPlayers.indexOf(player));
+		}
+	}
+
+	/**
+	 * Save whether a character was transferred before it is changed
+	 */
+	private void recordTransferred(Player player)
+	{
+		if (journal != null) 
+		{
+			Boolean value = transferred.get(player);
+			push(value == null ? -1 : (value ? 1 : 0), J_TRANSFERRED, allPlayers.indexOf(player));
+		}
+	}
+
+	/**
+	 * Save which seats are active before a player is eliminated
+	 */
+	private void recordActivePlayers()
+	{
+		if (journal != null) 
+		{
+			int active = 0;
+			for (int seat = 0; seat < seats.size(); seat++) 
+			{
+				if (activeHumanPlayers.contains(seats.get(seat))) 
+				{
+					active |= 1 << seat;
+				}
+			}
+			push(active, J_ACTIVE, 0);
+		}
+	}
+
+	/**
+	 * Add a cell to the cells the current player has been on this turn
+	 * @param index - The cell's index
+	 */
+	private void visit(int index)
+	{
+		playerPath[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * @param index - A cell's index
+	 * @return true if the current player has been on the cell this turn
+	 */
+	private boolean hasVisited(int index)
+	{
+		return (playerPath[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return The seed this game was created with
+	 */
+	public long getSeed()
+	{
+		return seed;
 	}
 
 	/**
@@ -1219,4 +2325,4 @@ public class Game
 		return gameOver;
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
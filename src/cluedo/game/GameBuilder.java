@@ -8,16 +8,24 @@ import java.util.Map;
 
 import cluedo.model.Player;
 import cluedo.model.Weapon;
+import cluedo.model.cards.Card;
 import cluedo.model.cards.CaseFile;
 import cluedo.model.cards.RoomCard;
 import cluedo.model.cards.SuspectCard;
 import cluedo.model.cards.WeaponCard;
+import cluedo.utility.RandomSource;
 
 /**
  * Creates the components for the Game class
  * These components include:
  * All players, human players, weapons, all cards (weapon, suspect, room)
  * and casefiles.
+ * 
+ * The weapons and cards are immutable, so they are only created once and
+ * every Game shares them. Each card's ID is its position in the deck:
+ * the suspects, then the weapons, then the rooms.
+ * This means cards are equal between games, and games can be created
+ * on many threads at once.
  *
  */
  public class GameBuilder {
@@ -31,18 +39,90 @@ import cluedo.model.cards.WeaponCard;
 	 */
 	 public static final String[] SUSPECT_NAMES = new String[]{ "Miss Scarlett","Colonel Mustard",
 			 "Mrs. White","Reverend Green","Mrs. Peacock","Professor Plum"};
-	 public static final Map<String, Integer> SUSPECT_ORDER = new HashMap<String, Integer>();
+	 public static final Map<String, Integer> SUSPECT_ORDER;
 	 static{
-			SUSPECT_ORDER.put("Miss Scarlett", 0);
-			SUSPECT_ORDER.put("Colonel Mustard", 1);
-			SUSPECT_ORDER.put("Mrs. White", 2);
-			SUSPECT_ORDER.put("Reverend Green", 3);
-			SUSPECT_ORDER.put("Mrs. Peacock", 4);
-			SUSPECT_ORDER.put("Professor Plum", 5);
+			Map<String, Integer> suspectOrder = new HashMap<String, Integer>();
+			suspectOrder.put("Miss Scarlett", 0);
+			suspectOrder.put("Colonel Mustard", 1);
+			suspectOrder.put("Mrs. White", 2);
+			suspectOrder.put("Reverend Green", 3);
+			suspectOrder.put("Mrs. Peacock", 4);
+			suspectOrder.put("Professor Plum", 5);
+			SUSPECT_ORDER = Collections.unmodifiableMap(suspectOrder);
 	}
 	
 	public static final String[] WEAPON_NAMES = new String[] { "Dagger", "Candlestick", "Revolver", "Rope",
 				"Lead Pipe", "Spanner" };
+
+	/**
+	 * The total number of cards in the deck
+	 */
+	public static final int NUM_CARDS = Game.MAX_PLAYERS + Game.NUM_WEAPONS + Game.NUM_ROOMS;
+
+	//The shared deck and weapons, created once
+	private static final List<SuspectCard> SUSPECT_CARDS;
+	private static final List<WeaponCard> WEAPON_CARDS;
+	private static final List<RoomCard> ROOM_CARDS;
+	private static final List<Weapon> WEAPONS;
+	/**
+	 * Every card, indexed by ID
+	 */
+	private static final Card[] DECK = new Card[NUM_CARDS];
+	static{
+		List<SuspectCard> suspectCards = new ArrayList<SuspectCard>();
+		List<WeaponCard> weaponCards = new ArrayList<WeaponCard>();
+		List<RoomCard> roomCards = new ArrayList<RoomCard>();
+		List<Weapon> weapons = new ArrayList<Weapon>();
+		int id = 0;
+		for (String suspectName : SUSPECT_NAMES) 
+		{
+			suspectCards.add(new SuspectCard(suspectName, id++));
+		}
+		for (String weaponName : WEAPON_NAMES) 
+		{
+			weaponCards.add(new WeaponCard(weaponName, id++));
+			weapons.add(new Weapon(weaponName, Game.MAX_PLAYERS + weapons.size()));
+		}
+		for (String roomName : ROOM_NAMES) 
+		{
+			roomCards.add(new RoomCard(roomName, id++));
+		}
+		assert id == NUM_CARDS : "Deck has the wrong number of cards";
+		for (Card card : suspectCards) 
+		{
+			DECK[card.getID()] = card;
+		}
+		for (Card card : weaponCards) 
+		{
+			DECK[card.getID()] = card;
+		}
+		for (Card card : roomCards) 
+		{
+			DECK[card.getID()] = card;
+		}
+		SUSPECT_CARDS = Collections.unmodifiableList(suspectCards);
+		WEAPON_CARDS = Collections.unmodifiableList(weaponCards);
+		ROOM_CARDS = Collections.unmodifiableList(roomCards);
+		WEAPONS = Collections.unmodifiableList(weapons);
+	}
+	/**
+	 * Get a card from its ID
+	 * 
+	 * @param id
+	 *            - The card's ID, between 0 (inclusive) and NUM_CARDS (exclusive)
+	 * @return The card with that ID
+	 * @throws IllegalArgumentException
+	 *            If there is no card with the ID
+	 */
+	public static Card getCard(int id)
+	{
+		if (id < 0 || id >= NUM_CARDS) 
+		{
+			throw new IllegalArgumentException("Not a valid card ID: " + id);
+		}
+		return DECK[id];
+	}
+
 	/**
 	 * Create all the players in the Cluedo game
 	 * 
@@ -55,7 +135,7 @@ import cluedo.model.cards.WeaponCard;
 		for (String playerName : SUSPECT_NAMES) 
 		{
 			assert i < Game.MAX_PLAYERS : "Exceeded the total number of players";
-			Player p = new Player(playerName);
+			Player p = new Player(playerName, i);
 			players.add(p);
 			i++;
 		}
@@ -72,14 +152,16 @@ import cluedo.model.cards.WeaponCard;
 	 * 
 	 * @param numPlayers
 	 *            - The number of players playing Cluedo
+	 * @param random
+	 *            - The game's source of random numbers
 	 * @return The characters that the human players will play as
 	 */
-	static List<Player> createHumanPlayers(int numPlayers, List<Player> allPlayers) 
+	static List<Player> createHumanPlayers(int numPlayers, List<Player> allPlayers, RandomSource random) 
 	{
 		assert allPlayers != null : "Must create all player objects first";
 		assert allPlayers.size() == Game.MAX_PLAYERS : "Must contain all players in the game";
 		List<Player> allRandomPlayers = new ArrayList<Player>(allPlayers);
-		Collections.shuffle(allRandomPlayers);
+		random.shuffle(allRandomPlayers);
 		Player[] playerArr = new Player[Game.MAX_HUMAN_PLAYERS];
 		Player startingPlayer = null; 
 		// Generate random players
@@ -121,70 +203,69 @@ import cluedo.model.cards.WeaponCard;
 	}
 
 	/**
-	 * Create the weapons in the Cluedo Game
+	 * Randomly select the characters for a game, in turn order.
+	 * See createHumanPlayers for how the order is decided.
 	 * 
-	 * @return All the weapons in the Cluedo Game
+	 * @param numPlayers
+	 *            - The number of players playing Cluedo
+	 * @param random
+	 *            - The source of random numbers for choosing the characters
+	 * @return The characters that the players will play as
+	 * @throws IllegalArgumentException
+	 *            If the number of players is not valid for a game
 	 */
-	static List<Weapon> createWeapons() 
+	public static List<Player> choosePlayers(int numPlayers, RandomSource random)
 	{
-		List<Weapon> weapons = new ArrayList<Weapon>();
-		for (int i = 0; i < Game.NUM_WEAPONS; i++) 
+		if (numPlayers < Game.MIN_HUMAN_PLAYERS || numPlayers > Game.MAX_HUMAN_PLAYERS) 
 		{
-			Weapon w = new Weapon(WEAPON_NAMES[i]);
-			weapons.add(w);
+			throw new IllegalArgumentException(
+					"Must have between: " + Game.MIN_HUMAN_PLAYERS + " and " + Game.MAX_HUMAN_PLAYERS + " human players");
 		}
-		return weapons;
+		if (random == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		return createHumanPlayers(numPlayers, Game.allPlayers, random);
+	}
+
+	/**
+	 * Get the weapons in the Cluedo Game
+	 * 
+	 * @return All the weapons in the Cluedo Game, which cannot be modified
+	 */
+	static List<Weapon> createWeapons() 
+	{
+		return WEAPONS;
 	}
 
 	/**
-	 * Create the weapon cards in the Cluedo Game
+	 * Get the weapon cards in the Cluedo Game
 	 * 
-	 * @return All the weapon cards in the Cluedo Game
+	 * @return All the weapon cards in the Cluedo Game, which cannot be modified
 	 */
 	static List<WeaponCard> createWeaponCards() 
 	{
-		List<WeaponCard> weaponCards = new ArrayList<WeaponCard>();
-		for (int i = 0; i < Game.NUM_WEAPONS; i++)
-		{
-			WeaponCard card = new WeaponCard(WEAPON_NAMES[i]);
-			weaponCards.add(card);
-		}
-		return weaponCards;
+		return WEAPON_CARDS;
 	}
 
 	/**
-	 * Create the suspect cards in the Cluedo Game
+	 * Get the suspect cards in the Cluedo Game
 	 * 
-	 * @return All the suspect cards in the Cluedo Game
+	 * @return All the suspect cards in the Cluedo Game, which cannot be modified
 	 */
 	static List<SuspectCard> createSuspectCards() 
 	{
-		List<SuspectCard> suspectCards = new ArrayList<SuspectCard>();
-		int i = 0;
-		for (String suspectName : SUSPECT_NAMES) 
-		{
-			assert i < Game.MAX_PLAYERS : "Exceeded the total number of suspects";
-			SuspectCard p = new SuspectCard(suspectName);
-			suspectCards.add(p);
-			i++;
-		}
-		return suspectCards;
+		return SUSPECT_CARDS;
 	}
 
 	/**
-	 * Create the room cards in the Cluedo Game
+	 * Get the room cards in the Cluedo Game
 	 * 
-	 * @return All the room cards in the Cluedo Game
+	 * @return All the room cards in the Cluedo Game, which cannot be modified
 	 */
 	static List<RoomCard> createRoomCards() 
 	{
-		List<RoomCard> roomCards = new ArrayList<RoomCard>();
-		for (int i = 0; i < Game.NUM_ROOMS; i++) 
-		{
-			RoomCard card = new RoomCard(ROOM_NAMES[i]);
-			roomCards.add(card);
-		}
-		return roomCards;
+		return ROOM_CARDS;
 	}
 
 	/**
@@ -198,24 +279,22 @@ import cluedo.model.cards.WeaponCard;
 	 *            - all the room cards
 	 * @param playerToCasefile
 	 * @param activeHumanPlayers
+	 * @param random
+	 *            - The game's source of random numbers
 	 * @return The CaseFile for the answer of the game
 	 */
 	static CaseFile createCaseFiles(List<SuspectCard> suspectCards, List<WeaponCard> weaponCards,
-			List<RoomCard> roomCards, Map<Player, CaseFile>  playerToCasefile, List<Player> activeHumanPlayers) 
+			List<RoomCard> roomCards, Map<Player, CaseFile>  playerToCasefile, List<Player> activeHumanPlayers,
+			RandomSource random) 
 	{
 		for (Player player : activeHumanPlayers) 
 		{
 			playerToCasefile.put(player, new CaseFile(suspectCards, weaponCards, roomCards));
 		}
-		List<SuspectCard> suspects = new ArrayList<SuspectCard>(suspectCards);
-		Collections.shuffle(suspects);
-		SuspectCard answerSuspect = suspects.get(0);
-		List<WeaponCard> weapons = new ArrayList<WeaponCard>(weaponCards);
-		Collections.shuffle(weapons);
-		WeaponCard answerWeapon = weapons.get(0);
-		List<RoomCard> rooms = new ArrayList<RoomCard>(roomCards);
-		Collections.shuffle(rooms);
-		RoomCard answerRoom = rooms.get(0);
+		// Picking a random index is the same as shuffling and taking the first card
+		SuspectCard answerSuspect = suspectCards.get(random.nextInt(suspectCards.size()));
+		WeaponCard answerWeapon = weaponCards.get(random.nextInt(weaponCards.size()));
+		RoomCard answerRoom = roomCards.get(random.nextInt(roomCards.size()));
 		return new CaseFile(answerSuspect, answerWeapon, answerRoom);
 	}
 	
@@ -0,0 +1,63 @@
+package cluedo.game;
+
+import cluedo.model.Cell;
+import cluedo.model.Piece;
+import cluedo.model.Player;
+
+/**
+ * Told about the changes to a Game as they happen, so a view can update
+ * only what changed instead of reading the whole game after every action.
+ *
+ * The methods are called on the thread that changed the game, after the change has been made,
+ * and do nothing by default so a listener only implements the events it needs.
+ * The game is not fully updated until the action that caused the event returns,
+ * so a listener should not call the game's actions.
+ *
+ * Undoing an action or restoring a state also reports the pieces that move, and the
+ * turn and dice if they change, then calls gameRestored for anything else that may differ.
+ */
+public interface GameListener
+{
+	/**
+	 * A player or weapon has been put on a different cell
+	 * @param piece - The Player or Weapon that moved
+	 * @param from - The cell it was on
+	 * @param to - The cell it is on now
+	 */
+	default void pieceMoved(Piece piece, Cell from, Cell to)
+	{
+	}
+
+	/**
+	 * It is now a different player's turn
+	 * @param player - The new current player
+	 */
+	default void turnChanged(Player player)
+	{
+	}
+
+	/**
+	 * The dice have been rolled for the current player
+	 * @param die1 - The first die, from 1 to 6
+	 * @param die2 - The second die, from 1 to 6
+	 */
+	default void diceRolled(int die1, int die2)
+	{
+	}
+
+	/**
+	 * A player made a wrong accusation and is out of the game
+	 * @param player - The eliminated player
+	 */
+	default void playerEliminated(Player player)
+	{
+	}
+
+	/**
+	 * An action was undone or a state restored, which may have changed
+	 * anything else, such as which players are still in the game
+	 */
+	default void gameRestored()
+	{
+	}
+}
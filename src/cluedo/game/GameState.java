@@ -0,0 +1,230 @@
+package cluedo.game;
+
+import java.util.Arrays;
+import java.util.List;
+
+import cluedo.board.Board;
+import cluedo.model.Player;
+
+/**
+ * A snapshot of everything that can change in a Game,
+ * stored in a few small arrays of primitives so it is cheap to take and copy.
+ * Bots can copy a state many times when searching,
+ * and a Game can be returned to a state or resumed from one.
+ *
+ * Seats are the human players in turn order (their index in the list the Game was created with).
+ * Characters are indexed as in Game.allPlayers and rooms as in GameBuilder.ROOM_NAMES.
+ * Cards are CardSet masks and cells are board indexes (y*WIDTH + x).
+ */
+public final class GameState
+{
+	static final int FLAG_GAME_OVER = 1;
+	static final int FLAG_MADE_SUGGESTION = 2;
+
+	/**
+	 * The characters of the human players and their names, in turn order.
+	 * These never change, so copies share them.
+	 */
+	final List<Player> seats;
+	final List<String> names;
+	final long seed;
+
+	//Cards
+	int answer;
+	int extraCards;
+	final int[] hands;
+	/**
+	 * The cards still in each seat's CaseFile
+	 */
+	final int[] caseFiles;
+
+	/**
+	 * The cell of each character, then each weapon
+	 */
+	final short[] positions;
+	/**
+	 * The room each character is in, -1 if they are not in a room
+	 */
+	final byte[] characterRooms;
+	/**
+	 * A bit for each character that was moved by a suggestion
+	 */
+	int transferred;
+
+	//Turn
+	/**
+	 * A bit for each seat that has not been eliminated
+	 */
+	int activeSeats;
+	int currentSeat;
+	/**
+	 * The seat that will be checked after the current one
+	 */
+	int turnPos;
+	int remainingMoves;
+	int dice1;
+	int dice2;
+	/**
+	 * The room the current player exited this turn, -1 if none
+	 */
+	int lastRoom;
+	int flags;
+	/**
+	 * The cells the current player has been on this turn, as a bitboard
+	 */
+	final long[] path;
+	long randomState;
+
+	GameState(List<Player> seats, List<String> names, long seed)
+	{
+		this.seats = seats;
+		this.names = names;
+		this.seed = seed;
+		hands = new int[seats.size()];
+		caseFiles = new int[seats.size()];
+		positions = new short[Game.MAX_PLAYERS + Game.NUM_WEAPONS];
+		characterRooms = new byte[Game.MAX_PLAYERS];
+		path = new long[Board.OCCUPANCY_WORDS];
+	}
+
+	private GameState(GameState other)
+	{
+		seats = other.seats;
+		names = other.names;
+		seed = other.seed;
+		answer = other.answer;
+		extraCards = other.extraCards;
+		hands = other.hands.clone();
+		caseFiles = other.caseFiles.clone();
+		positions = other.positions.clone();
+		characterRooms = other.characterRooms.clone();
+		transferred = other.transferred;
+		activeSeats = other.activeSeats;
+		currentSeat = other.currentSeat;
+		turnPos = other.turnPos;
+		remainingMoves = other.remainingMoves;
+		dice1 = other.dice1;
+		dice2 = other.dice2;
+		lastRoom = other.lastRoom;
+		flags = other.flags;
+		path = other.path.clone();
+		randomState = other.randomState;
+	}
+
+	/**
+	 * @return An independent copy of this state
+	 */
+	public GameState copy()
+	{
+		return new GameState(this);
+	}
+
+	/**
+	 * @return The characters of the human players in turn order
+	 */
+	public List<Player> getSeats()
+	{
+		return seats;
+	}
+
+	public int getCurrentSeat()
+	{
+		return currentSeat;
+	}
+
+	/**
+	 * @param seat
+	 * @return true if the seat's player has not been eliminated
+	 */
+	public boolean isActive(int seat)
+	{
+		return (activeSeats & (1 << seat)) != 0;
+	}
+
+	public int getRemainingMoves()
+	{
+		return remainingMoves;
+	}
+
+	public boolean isGameOver()
+	{
+		return (flags & FLAG_GAME_OVER) != 0;
+	}
+
+	/**
+	 * @param seat
+	 * @return The CardSet mask of the cards in the seat's hand
+	 */
+	public int getHand(int seat)
+	{
+		return hands[seat];
+	}
+
+	/**
+	 * @param seat
+	 * @return The CardSet mask of the cards still in the seat's CaseFile
+	 */
+	public int getCaseFile(int seat)
+	{
+		return caseFiles[seat];
+	}
+
+	/**
+	 * @return The CardSet mask of the cards every player can see
+	 */
+	public int getExtraCards()
+	{
+		return extraCards;
+	}
+
+	/**
+	 * @param piece - A character index, or Game.MAX_PLAYERS plus a weapon's index
+	 * @return The cell index of the piece
+	 */
+	public int getPosition(int piece)
+	{
+		return positions[piece];
+	}
+
+	/**
+	 * @param character
+	 * @return The index of the room the character is in, or -1 if they are not in one
+	 */
+	public int getRoom(int character)
+	{
+		return characterRooms[character];
+	}
+
+	/**
+	 * Two states are equal if the games are in exactly the same position
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		if (!(o instanceof GameState))
+		{
+			return false;
+		}
+		GameState s = (GameState) o;
+		return seed == s.seed && seats.equals(s.seats) && answer == s.answer && extraCards == s.extraCards
+				&& Arrays.equals(hands, s.hands) && Arrays.equals(caseFiles, s.caseFiles)
+				&& Arrays.equals(positions, s.positions) && Arrays.equals(characterRooms, s.characterRooms)
+				&& transferred == s.transferred && activeSeats == s.activeSeats && currentSeat == s.currentSeat
+				&& turnPos == s.turnPos && remainingMoves == s.remainingMoves && dice1 == s.dice1
+				&& dice2 == s.dice2 && lastRoom == s.lastRoom && flags == s.flags && Arrays.equals(path, s.path)
+				&& randomState == s.randomState;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = Long.hashCode(seed);
+		result = prime * result + Arrays.hashCode(positions);
+		result = prime * result + Arrays.hashCode(caseFiles);
+		result = prime * result + currentSeat;
+		result = prime * result + remainingMoves;
+		result = prime * result + Long.hashCode(randomState);
+		return result;
+	}
+}
@@ -0,0 +1,243 @@
+package cluedo.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cluedo.board.Board;
+import cluedo.model.Cell;
+import cluedo.model.Room;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * Where the current player can get to with the rest of their roll:
+ * every corridor cell they can move to, and every room they can enter.
+ * A cell is reachable if the player could be standing on it after some of their moves.
+ *
+ * Found with a flood fill over bitboards (see Board.getOccupancy),
+ * one step of the roll at a time, so it is cheap enough to find every frame.
+ */
+public final class Reachability
+{
+	private static final int NUM_DIRECTIONS = Direction.values().length;
+	/**
+	 * The change in cell index for a step in each direction, by ordinal
+	 */
+	private static final int[] SHIFT = new int[NUM_DIRECTIONS];
+	static
+	{
+		SHIFT[Direction.North.ordinal()] = -Board.WIDTH;
+		SHIFT[Direction.South.ordinal()] = Board.WIDTH;
+		SHIFT[Direction.East.ordinal()] = 1;
+		SHIFT[Direction.West.ordinal()] = -1;
+	}
+
+	private final BoardTopology topology;
+	/**
+	 * The bitboard of reachable corridor cells
+	 */
+	private final long[] cells;
+	/**
+	 * A bit for each room that can be entered, by index in BoardTopology.getRooms()
+	 */
+	private final int rooms;
+
+	private Reachability(BoardTopology topology, long[] cells, int rooms)
+	{
+		this.topology = topology;
+		this.cells = cells;
+		this.rooms = rooms;
+	}
+
+	/**
+	 * Flood fill the corridors from the start cells
+	 * @param start - The cells the player is on before the first step. This is modified.
+	 * @param reached - The cells already reachable. This is modified and kept in the result.
+	 * @param blocked - The cells the player cannot move onto
+	 * @param moves - The number of steps the player can take
+	 * @param rooms - The rooms that can already be entered
+	 * @param excludedRooms - The rooms that cannot be entered
+	 */
+	static Reachability find(BoardTopology topology, long[] start, long[] reached, long[] blocked, int moves,
+			int rooms, int excludedRooms)
+	{
+		long[] frontier = start;
+		long[] next = new long[Board.OCCUPANCY_WORDS];
+		long[] corridor = topology.getCorridorMask();
+		int numRooms = topology.getRooms().size();
+		for (int step = 0; step < moves && !isEmpty(frontier); step++)
+		{
+			for (int d = 0; d < NUM_DIRECTIONS; d++)
+			{
+				shiftInto(frontier, topology.getStepMask(d), SHIFT[d], next);
+			}
+			for (int r = 0; r < numRooms; r++)
+			{
+				if ((rooms & (1 << r)) == 0 && intersects(next, topology.getEntranceMask(r)))
+				{
+					rooms |= 1 << r;
+				}
+			}
+			for (int i = 0; i < Board.OCCUPANCY_WORDS; i++)
+			{
+				next[i] &= corridor[i] & ~blocked[i] & ~reached[i];
+				reached[i] |= next[i];
+			}
+			long[] swap = frontier;
+			frontier = next;
+			next = swap;
+			clear(next);
+		}
+		return new Reachability(topology, reached, rooms & ~excludedRooms);
+	}
+
+	/**
+	 * @return Nowhere can be reached
+	 */
+	static Reachability none(BoardTopology topology)
+	{
+		return new Reachability(topology, new long[Board.OCCUPANCY_WORDS], 0);
+	}
+
+	/**
+	 * OR the cells of from that are in mask, moved by shift cell indexes, into to.
+	 * The mask must not let any cell move off the board.
+	 */
+	private static void shiftInto(long[] from, long[] mask, int shift, long[] to)
+	{
+		int n = Board.OCCUPANCY_WORDS;
+		if (shift > 0)
+		{
+			long carry = 0;
+			for (int i = 0; i < n; i++)
+			{
+				long word = from[i] & mask[i];
+				to[i] |= word << shift | carry;
+				carry = word >>> (Long.SIZE - shift);
+			}
+		}
+		else
+		{
+			int s = -shift;
+			long carry = 0;
+			for (int i = n - 1; i >= 0; i--)
+			{
+				long word = from[i] & mask[i];
+				to[i] |= word >>> s | carry;
+				carry = word << (Long.SIZE - s);
+			}
+		}
+	}
+
+	private static boolean intersects(long[] a, long[] b)
+	{
+		for (int i = 0; i < Board.OCCUPANCY_WORDS; i++)
+		{
+			if ((a[i] & b[i]) != 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEmpty(long[] bits)
+	{
+		for (long word : bits)
+		{
+			if (word != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void clear(long[] bits)
+	{
+		for (int i = 0; i < bits.length; i++)
+		{
+			bits[i] = 0;
+		}
+	}
+
+	/**
+	 * @param cell - May not be null
+	 * @return true if the player can move onto the cell this turn
+	 */
+	public boolean canReach(Cell cell)
+	{
+		if (cell == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		int index = Board.cellIndex(cell);
+		return (cells[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param room - May not be null
+	 * @return true if the player can enter the room this turn
+	 */
+	public boolean canEnter(Room room)
+	{
+		if (room == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		int index = topology.getRooms().indexOf(room);
+		return index >= 0 && (rooms & (1 << index)) != 0;
+	}
+
+	/**
+	 * @return The reachable corridor cells, in index order
+	 */
+	public List<Cell> getCells()
+	{
+		List<Cell> list = new ArrayList<Cell>();
+		Cell[][] board = topology.getCells();
+		for (int i = 0; i < Board.OCCUPANCY_WORDS; i++)
+		{
+			long word = cells[i];
+			while (word != 0)
+			{
+				int index = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+				list.add(board[index % Board.WIDTH][index / Board.WIDTH]);
+				word &= word - 1;
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * @return The rooms that can be entered, in the same order as GameBuilder.ROOM_NAMES
+	 */
+	public List<Room> getRooms()
+	{
+		List<Room> list = new ArrayList<Room>();
+		for (int r = 0; r < topology.getRooms().size(); r++)
+		{
+			if ((rooms & (1 << r)) != 0)
+			{
+				list.add(topology.getRooms().get(r));
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * @return A copy of the bitboard of reachable corridor cells
+	 */
+	public long[] getCellMask()
+	{
+		return cells.clone();
+	}
+
+	/**
+	 * @return A bit for each room that can be entered, by index in the rooms list
+	 */
+	public int getRoomMask()
+	{
+		return rooms;
+	}
+}
@@ -0,0 +1,503 @@
+package cluedo.game;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cluedo.board.Board;
+import cluedo.exceptions.HasRemainingMovesException;
+import cluedo.exceptions.IllegalMethodCallException;
+import cluedo.exceptions.InvalidMoveException;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * A game recorded as its seed and the actions the players took, so it can be archived
+ * in a few hundred bytes and played again, for example to check old games after the rules change.
+ * Everything else, such as the cards dealt and the dice, comes from the seed.
+ *
+ * The format is a header, then one token per action:
+ * <ul>
+ * <li>Header - "CLRP", the version, the seed as 8 bytes, the number of seats,
+ * then each seat's character index and name (a varint length and UTF-8)</li>
+ * <li>MOVES - up to 32 moves in a row, with the count in the tag's high bits and
+ * the directions packed 4 to a byte</li>
+ * <li>EXIT - the cell index of the exit taken, as a varint</li>
+ * <li>SUGGEST - one byte for the suspect and weapon, the room is where the player is</li>
+ * <li>REVEAL - the card ID shown to the suggester</li>
+ * <li>ACCUSE - the accusing seat in the tag's high bits, a byte for the suspect and weapon and one for the room</li>
+ * <li>END_TURN, and END after the last action</li>
+ * </ul>
+ * Each token starts with a tag byte whose lowest 3 bits are the type.
+ *
+ * Playing a replay keeps a GameState every KEYFRAME_INTERVAL turns,
+ * so later calls to playTo only play the turns after the nearest one.
+ * A Replay should only be played by one thread at a time.
+ */
+public final class Replay
+{
+	/**
+	 * The number of turns between the states kept while playing
+	 */
+	public static final int KEYFRAME_INTERVAL = 16;
+
+	private static final byte[] MAGIC = { 'C', 'L', 'R', 'P' };
+	private static final int VERSION = 1;
+
+	private static final int MOVES = 0;
+	private static final int EXIT = 1;
+	private static final int SUGGEST = 2;
+	private static final int REVEAL = 3;
+	private static final int ACCUSE = 4;
+	private static final int END_TURN = 5;
+	private static final int END = 7;
+	private static final int TAG_BITS = 3;
+	private static final int MAX_RUN = 1 << (Byte.SIZE - TAG_BITS);
+
+	/**
+	 * Direction.values(), which makes a new array each time it is called
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final byte[] data;
+	private final long seed;
+	private final List<Player> seats;
+	private final List<String> names;
+	/**
+	 * The index of the first token
+	 */
+	private final int start;
+
+	/**
+	 * The state at the start of every KEYFRAME_INTERVAL-th turn played so far,
+	 * and the index of the token the turn starts at
+	 */
+	private final List<GameState> keyframes = new ArrayList<GameState>();
+	private final List<Integer> keyframeTokens = new ArrayList<Integer>();
+
+	/**
+	 * Read the header of a recorded game
+	 * @param data - From record. It is not copied, so must not be changed afterwards.
+	 * @throws IllegalArgumentException
+	 * If the data is null or is not a replay
+	 */
+	public Replay(byte[] data)
+	{
+		if (data == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		this.data = data;
+		int pos = 0;
+		for (byte b : MAGIC)
+		{
+			if (readByte(pos++) != b)
+			{
+				throw new IllegalArgumentException("Not a replay");
+			}
+		}
+		if (readByte(pos++) != VERSION)
+		{
+			throw new IllegalArgumentException("Unknown replay version");
+		}
+		long value = 0;
+		for (int i = 0; i < Long.BYTES; i++)
+		{
+			value = value << Byte.SIZE | readByte(pos++);
+		}
+		seed = value;
+		int numSeats = readByte(pos++);
+		List<Player> players = new ArrayList<Player>(numSeats);
+		List<String> playerNames = new ArrayList<String>(numSeats);
+		for (int seat = 0; seat < numSeats; seat++)
+		{
+			int character = readByte(pos++);
+			if (character >= Game.MAX_PLAYERS)
+			{
+				throw new IllegalArgumentException("Not a character: " + character);
+			}
+			players.add(Game.allPlayers.get(character));
+			int length = readVarint(pos);
+			pos += varintSize(length);
+			readByte(pos + length - 1);
+			playerNames.add(new String(data, pos, length, StandardCharsets.UTF_8));
+			pos += length;
+		}
+		seats = Collections.unmodifiableList(players);
+		names = Collections.unmodifiableList(playerNames);
+		start = pos;
+	}
+
+	/**
+	 * Record a game from its event log.
+	 * The game must have been created with new Game, not resumed from or restored to a state,
+	 * as the actions before that are not known.
+	 * @param game - The game to record, which can be finished or still being played
+	 * @return The replay's data
+	 * @throws IllegalArgumentException
+	 * If the argument is null
+	 */
+	public static byte[] record(Game game)
+	{
+		if (game == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		out.write(MAGIC, 0, MAGIC.length);
+		out.write(VERSION);
+		for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+		{
+			out.write((int) (game.getSeed() >>> shift));
+		}
+		List<Player> players = game.getSeats();
+		out.write(players.size());
+		for (Player player : players)
+		{
+			out.write(Game.allPlayers.indexOf(player));
+			byte[] name = game.getHumanName(player).getBytes(StandardCharsets.UTF_8);
+			writeVarint(out, name.length);
+			out.write(name, 0, name.length);
+		}
+
+		EventLog log = game.getEventLog();
+		int[] run = new int[MAX_RUN];
+		int runLength = 0;
+		int current = -1;
+		for (int i = 0; i < log.size(); i++)
+		{
+			long event = log.get(i);
+			int type = EventLog.getType(event);
+			if (type == EventLog.MOVE)
+			{
+				if (runLength == MAX_RUN)
+				{
+					writeMoves(out, run, runLength);
+					runLength = 0;
+				}
+				run[runLength++] = direction(EventLog.getArg(event, 0), EventLog.getArg(event, 1));
+				continue;
+			}
+			if (isAction(log, i) && runLength > 0)
+			{
+				writeMoves(out, run, runLength);
+				runLength = 0;
+			}
+			switch (type)
+			{
+				case EventLog.TURN:
+					//The first turn is started by the game, and the turn after eliminating the current player by the accusation
+					long previous = i > 0 ? log.get(i - 1) : 0;
+					if (i > 0 && (EventLog.getType(previous) != EventLog.ELIMINATE || EventLog.getSeat(previous) != current))
+					{
+						out.write(END_TURN);
+					}
+					current = EventLog.getSeat(event);
+					break;
+				case EventLog.EXIT:
+					out.write(EXIT);
+					writeVarint(out, EventLog.getArg(event, 1));
+					break;
+				case EventLog.SUGGEST:
+					out.write(SUGGEST);
+					out.write(pair(EventLog.getArg(event, 0), EventLog.getArg(event, 1)));
+					break;
+				case EventLog.REVEAL:
+					out.write(REVEAL);
+					out.write(EventLog.getArg(event, 0));
+					break;
+				case EventLog.ACCUSE:
+					out.write(ACCUSE | EventLog.getSeat(event) << TAG_BITS);
+					out.write(pair(EventLog.getArg(event, 0), EventLog.getArg(event, 1)));
+					out.write(EventLog.getArg(event, 2) - Game.MAX_PLAYERS - Game.NUM_WEAPONS);
+					break;
+				default:
+					//Follows from the actions and the seed
+			}
+		}
+		if (runLength > 0)
+		{
+			writeMoves(out, run, runLength);
+		}
+		out.write(END);
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return true if the event at the index is written as a token
+	 */
+	private static boolean isAction(EventLog log, int i)
+	{
+		switch (EventLog.getType(log.get(i)))
+		{
+			case EventLog.TURN:
+			case EventLog.EXIT:
+			case EventLog.SUGGEST:
+			case EventLog.REVEAL:
+			case EventLog.ACCUSE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return The ordinal of the direction from one cell to its neighbour
+	 */
+	private static int direction(int from, int to)
+	{
+		int difference = to - from;
+		if (difference == -Board.WIDTH)
+		{
+			return Direction.North.ordinal();
+		}
+		if (difference == Board.WIDTH)
+		{
+			return Direction.South.ordinal();
+		}
+		return difference == 1 ? Direction.East.ordinal() : Direction.West.ordinal();
+	}
+
+	private static void writeMoves(ByteArrayOutputStream out, int[] run, int length)
+	{
+		out.write(MOVES | (length - 1) << TAG_BITS);
+		for (int i = 0; i < length; i += 4)
+		{
+			int packed = 0;
+			for (int j = i; j < Math.min(i + 4, length); j++)
+			{
+				packed |= run[j] << (2 * (j - i));
+			}
+			out.write(packed);
+		}
+	}
+
+	/**
+	 * @return A suspect and weapon card ID as one number below 36
+	 */
+	private static int pair(int suspect, int weapon)
+	{
+		return suspect * Game.NUM_WEAPONS + weapon - Game.MAX_PLAYERS;
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write(value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int varintSize(int value)
+	{
+		int size = 1;
+		while ((value & ~0x7F) != 0)
+		{
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private int readVarint(int pos)
+	{
+		int value = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7)
+		{
+			int b = readByte(pos++);
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Replay has a bad number at " + pos);
+	}
+
+	/**
+	 * @return The unsigned byte at the index
+	 * @throws IllegalArgumentException
+	 * If the data ends before the index
+	 */
+	private int readByte(int pos)
+	{
+		if (pos >= data.length)
+		{
+			throw new IllegalArgumentException("Replay is cut short");
+		}
+		return data[pos] & 0xFF;
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * @return The characters of the human players in turn order
+	 */
+	public List<Player> getSeats()
+	{
+		return seats;
+	}
+
+	public List<String> getNames()
+	{
+		return names;
+	}
+
+	/**
+	 * Play every action of the replay
+	 * @return The game after the last action
+	 * @throws IllegalArgumentException
+	 * If the replay is corrupt or an action is no longer allowed by the rules
+	 */
+	public Game play()
+	{
+		return playTo(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Play the replay up to the start of a turn, starting from the nearest state kept
+	 * by an earlier call if there is one. The game's event log only holds the events
+	 * played by this call.
+	 * @param turn - The number of turns that have ended, 0 for the start of the game
+	 * @return The game at the start of the turn, or after the last action
+	 * if the replay ends first
+	 * @throws IllegalArgumentException
+	 * If the turn is negative, the replay is corrupt or an action is no longer allowed by the rules
+	 */
+	public Game playTo(int turn)
+	{
+		if (turn < 0)
+		{
+			throw new IllegalArgumentException("Turn cannot be negative");
+		}
+		int keyframe = Math.min(turn / KEYFRAME_INTERVAL, keyframes.size());
+		if (keyframe == 0)
+		{
+			return play(new Game(seats, names, seed), start, 0, turn);
+		}
+		return play(new Game(keyframes.get(keyframe - 1)), keyframeTokens.get(keyframe - 1),
+				keyframe * KEYFRAME_INTERVAL, turn);
+	}
+
+	/**
+	 * Play the tokens from an index until the target turn starts or the replay ends
+	 * @param pos - The index of the first token to play
+	 * @param turn - The turn that the game is on
+	 * @param target - The turn to stop at
+	 * @return The game
+	 */
+	private Game play(Game game, int pos, int turn, int target)
+	{
+		Player disprover = null;
+		try
+		{
+			while (turn < target)
+			{
+				int tag = readByte(pos++);
+				switch (tag & (1 << TAG_BITS) - 1)
+				{
+					case MOVES:
+						int length = (tag >>> TAG_BITS) + 1;
+						for (int i = 0; i < length; i++)
+						{
+							int packed = readByte(pos + i / 4);
+							game.move(DIRECTIONS[packed >>> (2 * (i % 4)) & 3]);
+						}
+						pos += (length + 3) / 4;
+						break;
+					case EXIT:
+						int cell = readVarint(pos);
+						pos += varintSize(cell);
+						if (cell >= Board.NUM_CELLS)
+						{
+							throw new IllegalArgumentException("Not a cell: " + cell);
+						}
+						game.takeExit(game.getCells()[cell % Board.WIDTH][cell / Board.WIDTH]);
+						break;
+					case SUGGEST:
+						int suggested = readByte(pos++);
+						Map<Player, Set<Card>> disproved = game.makeSuggestion(
+								(WeaponCard) card(Game.MAX_PLAYERS + suggested % Game.NUM_WEAPONS),
+								(SuspectCard) card(suggested / Game.NUM_WEAPONS));
+						disprover = disproved.isEmpty() ? null : disproved.keySet().iterator().next();
+						break;
+					case REVEAL:
+						if (disprover == null)
+						{
+							throw new IllegalArgumentException("Card revealed without a disprover at " + pos);
+						}
+						game.removeCard(Collections.singletonMap(disprover, card(readByte(pos++))));
+						disprover = null;
+						break;
+					case ACCUSE:
+						int seat = tag >>> TAG_BITS;
+						if (seat >= seats.size())
+						{
+							throw new IllegalArgumentException("Not a seat: " + seat);
+						}
+						int accused = readByte(pos++);
+						Card room = card(Game.MAX_PLAYERS + Game.NUM_WEAPONS + readByte(pos++));
+						Player current = game.getCurrentPlayer();
+						game.makeAccusation(seats.get(seat), (WeaponCard) card(Game.MAX_PLAYERS + accused % Game.NUM_WEAPONS),
+								(RoomCard) room, (SuspectCard) card(accused / Game.NUM_WEAPONS));
+						if (!game.isGameOver() && game.getCurrentPlayer() != current)
+						{
+							turn = startTurn(game, pos, turn);
+						}
+						break;
+					case END_TURN:
+						game.nextTurn();
+						turn = startTurn(game, pos, turn);
+						break;
+					case END:
+						return game;
+					default:
+						throw new IllegalArgumentException("Unknown token " + tag + " at " + (pos - 1));
+				}
+			}
+		}
+		catch (InvalidMoveException | IllegalMethodCallException | HasRemainingMovesException | ClassCastException e)
+		{
+			throw new IllegalArgumentException("Replay does not match the game at " + pos, e);
+		}
+		return game;
+	}
+
+	/**
+	 * Count a new turn, and keep the state if it is the next keyframe
+	 * @param pos - The index of the turn's first token
+	 * @return The new turn number
+	 */
+	private int startTurn(Game game, int pos, int turn)
+	{
+		turn++;
+		if (turn == (keyframes.size() + 1) * KEYFRAME_INTERVAL)
+		{
+			keyframes.add(game.getState());
+			keyframeTokens.add(pos);
+		}
+		return turn;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 * If there is no card with the ID
+	 */
+	private static Card card(int id)
+	{
+		return GameBuilder.getCard(id);
+	}
+}
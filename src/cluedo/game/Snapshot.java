@@ -0,0 +1,348 @@
+package cluedo.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import cluedo.board.Board;
+import cluedo.model.Player;
+import cluedo.model.Room;
+
+/**
+ * Saves a GameState as a fixed size binary record, so a game can be suspended to a file
+ * and resumed later by mapping the file into memory.
+ *
+ * Every record is RECORD_SIZE bytes, so a file can hold many games, one per slot,
+ * and any one of them can be read or replaced without touching the others.
+ * The record is, in order (big-endian):
+ * <ul>
+ * <li>"CLSN", the version (short), the number of seats and the current seat (bytes)</li>
+ * <li>The seed and the random number generator's state (longs)</li>
+ * <li>The answer and extra cards, then every seat's hand, then every seat's CaseFile (CardSet masks as ints)</li>
+ * <li>The cell index of each character then each weapon (shorts)</li>
+ * <li>The room each character is in or -1, the character index of each seat (bytes)</li>
+ * <li>The turn position, flags, transferred characters, active seats, remaining moves,
+ * the two dice and the room exited this turn or -1 (bytes)</li>
+ * <li>The cells the current player has been on this turn (Board.OCCUPANCY_WORDS longs)</li>
+ * <li>Each seat's name as a length (short) and UTF-8, padded to NAME_SIZE bytes</li>
+ * </ul>
+ * Arrays indexed by seat always have MAX_HUMAN_PLAYERS entries, with the unused ones 0.
+ */
+public final class Snapshot
+{
+	/**
+	 * The most bytes of a seat's name, including its length
+	 */
+	public static final int NAME_SIZE = 64;
+	public static final int RECORD_SIZE = 4 + 2 + 2 + 2 * Long.BYTES
+			+ (2 + 2 * Game.MAX_HUMAN_PLAYERS) * Integer.BYTES
+			+ (Game.MAX_PLAYERS + Game.NUM_WEAPONS) * Short.BYTES
+			+ Game.MAX_PLAYERS + Game.MAX_HUMAN_PLAYERS + 8
+			+ Board.OCCUPANCY_WORDS * Long.BYTES
+			+ Game.MAX_HUMAN_PLAYERS * NAME_SIZE;
+
+	private static final int MAGIC = 'C' << 24 | 'L' << 16 | 'S' << 8 | 'N';
+	private static final short VERSION = 1;
+
+	private static final int SUSPECTS = (1 << Game.MAX_PLAYERS) - 1;
+	private static final int WEAPONS = (1 << Game.NUM_WEAPONS) - 1 << Game.MAX_PLAYERS;
+	private static final int ROOMS = (1 << Game.NUM_ROOMS) - 1 << Game.MAX_PLAYERS + Game.NUM_WEAPONS;
+	private static final int DECK = (1 << GameBuilder.NUM_CARDS) - 1;
+
+	private Snapshot()
+	{
+	}
+
+	/**
+	 * Save a game into a slot of a file, creating the file if it does not exist
+	 * and making it longer if the slot is past its end.
+	 * The record is written to the mapped file, and the operating system writes it to disk.
+	 * @param game - The game to save
+	 * @param file - The file to save to
+	 * @param slot - The index of the record to write, from 0
+	 * @throws IOException
+	 * If the file cannot be opened or mapped
+	 * @throws IllegalArgumentException
+	 * If an argument is null, the slot is negative or a name is too long to save
+	 */
+	public static void save(Game game, Path file, int slot) throws IOException
+	{
+		if (game == null || file == null || slot < 0)
+		{
+			throw new IllegalArgumentException("Must have a game, a file and a non negative slot");
+		}
+		GameState state = game.getState();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE))
+		{
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) slot * RECORD_SIZE, RECORD_SIZE);
+			write(state, buffer);
+		}
+	}
+
+	/**
+	 * Resume a game saved in a slot of a file
+	 * @param file - The file saved to
+	 * @param slot - The index of the record to read, from 0
+	 * @return A new game in the saved state
+	 * @throws IOException
+	 * If the file cannot be opened or mapped
+	 * @throws IllegalArgumentException
+	 * If an argument is null, there is no record in the slot or the record is not a valid snapshot
+	 */
+	public static Game load(Path file, int slot) throws IOException
+	{
+		if (file == null || slot < 0)
+		{
+			throw new IllegalArgumentException("Must have a file and a non negative slot");
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			long offset = (long) slot * RECORD_SIZE;
+			if (offset + RECORD_SIZE > channel.size())
+			{
+				throw new IllegalArgumentException("No snapshot in slot " + slot);
+			}
+			return new Game(read(channel.map(FileChannel.MapMode.READ_ONLY, offset, RECORD_SIZE)));
+		}
+	}
+
+	/**
+	 * Write a state at the buffer's position, which is moved past it
+	 * @param state - The state to write
+	 * @param buffer - Must have RECORD_SIZE bytes remaining
+	 * @throws IllegalArgumentException
+	 * If an argument is null, the buffer is too small or a name is too long to save
+	 */
+	public static void write(GameState state, ByteBuffer buffer)
+	{
+		if (state == null || buffer == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		if (buffer.remaining() < RECORD_SIZE)
+		{
+			throw new IllegalArgumentException("Buffer has less than " + RECORD_SIZE + " bytes left");
+		}
+		int numSeats = state.seats.size();
+		List<byte[]> names = new ArrayList<byte[]>(numSeats);
+		for (String name : state.names)
+		{
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > NAME_SIZE - Short.BYTES)
+			{
+				throw new IllegalArgumentException("Name is too long to save: " + name);
+			}
+			names.add(bytes);
+		}
+		int start = buffer.position();
+		buffer.putInt(MAGIC).putShort(VERSION).put((byte) numSeats).put((byte) state.currentSeat);
+		buffer.putLong(state.seed).putLong(state.randomState);
+		buffer.putInt(state.answer).putInt(state.extraCards);
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			buffer.putInt(seat < numSeats ? state.hands[seat] : 0);
+		}
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			buffer.putInt(seat < numSeats ? state.caseFiles[seat] : 0);
+		}
+		for (short position : state.positions)
+		{
+			buffer.putShort(position);
+		}
+		buffer.put(state.characterRooms);
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			buffer.put((byte) (seat < numSeats ? Game.allPlayers.indexOf(state.seats.get(seat)) : 0));
+		}
+		buffer.put((byte) state.turnPos).put((byte) state.flags).put((byte) state.transferred)
+				.put((byte) state.activeSeats).put((byte) state.remainingMoves).put((byte) state.dice1)
+				.put((byte) state.dice2).put((byte) state.lastRoom);
+		for (long word : state.path)
+		{
+			buffer.putLong(word);
+		}
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			int nameStart = buffer.position();
+			if (seat < numSeats)
+			{
+				buffer.putShort((short) names.get(seat).length).put(names.get(seat));
+			}
+			while (buffer.position() < nameStart + NAME_SIZE)
+			{
+				buffer.put((byte) 0);
+			}
+		}
+		assert buffer.position() - start == RECORD_SIZE : "Snapshot layout does not match RECORD_SIZE";
+	}
+
+	/**
+	 * Read a state from the buffer's position, which is moved past it
+	 * @param buffer - Must have RECORD_SIZE bytes remaining
+	 * @return The state, which new Game(state) resumes
+	 * @throws IllegalArgumentException
+	 * If the argument is null, the buffer is too small or does not hold a valid snapshot
+	 */
+	public static GameState read(ByteBuffer buffer)
+	{
+		if (buffer == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		if (buffer.remaining() < RECORD_SIZE)
+		{
+			throw new IllegalArgumentException("Buffer has less than " + RECORD_SIZE + " bytes left");
+		}
+		if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+		{
+			throw new IllegalArgumentException("Not a snapshot");
+		}
+		int numSeats = buffer.get();
+		int currentSeat = buffer.get();
+		check(numSeats >= Game.MIN_HUMAN_PLAYERS && numSeats <= Game.MAX_HUMAN_PLAYERS && currentSeat >= 0
+				&& currentSeat < numSeats);
+		long seed = buffer.getLong();
+		long randomState = buffer.getLong();
+		int answer = buffer.getInt();
+		int extraCards = buffer.getInt();
+		//One card of each type, and every card is in at most one of the answer, the extra cards and the hands
+		check(Integer.bitCount(answer & SUSPECTS) == 1 && Integer.bitCount(answer & WEAPONS) == 1
+				&& Integer.bitCount(answer & ROOMS) == 1 && (answer & ~DECK) == 0);
+		int dealt = answer;
+		check((extraCards & ~DECK) == 0 && (extraCards & dealt) == 0);
+		dealt |= extraCards;
+		int[] hands = new int[numSeats];
+		int[] caseFiles = new int[numSeats];
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			int hand = buffer.getInt();
+			if (seat < numSeats)
+			{
+				check((hand & ~DECK) == 0 && (hand & dealt) == 0);
+				dealt |= hand;
+				hands[seat] = hand;
+			}
+		}
+		check(dealt == DECK);
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			int caseFile = buffer.getInt();
+			if (seat < numSeats)
+			{
+				check((caseFile & ~DECK) == 0);
+				caseFiles[seat] = caseFile;
+			}
+		}
+		short[] positions = new short[Game.MAX_PLAYERS + Game.NUM_WEAPONS];
+		for (int i = 0; i < positions.length; i++)
+		{
+			positions[i] = buffer.getShort();
+			check(positions[i] >= 0 && positions[i] < Board.NUM_CELLS);
+		}
+		//Every piece on its own cell, except that a character who failed an accusation
+		//goes back to their starting cell even if somebody has moved onto it
+		for (int i = 0; i < positions.length; i++)
+		{
+			for (int j = i + 1; j < positions.length; j++)
+			{
+				check(positions[i] != positions[j] || i < Game.MAX_PLAYERS && positions[i] == Game.getStartingCell(i)
+						|| j < Game.MAX_PLAYERS && positions[j] == Game.getStartingCell(j));
+			}
+		}
+		//Each character in the room their cell is in
+		byte[] characterRooms = new byte[Game.MAX_PLAYERS];
+		buffer.get(characterRooms);
+		BoardTopology topology = BoardTopology.get();
+		for (int i = 0; i < Game.MAX_PLAYERS; i++)
+		{
+			Room room = topology.getCellToRoom().get(topology.getCells()[positions[i] % Board.WIDTH][positions[i] / Board.WIDTH]);
+			check(characterRooms[i] == (room == null ? -1 : topology.getRooms().indexOf(room)));
+		}
+		List<Player> seats = new ArrayList<Player>(numSeats);
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			int character = buffer.get();
+			if (seat >= numSeats)
+			{
+				continue;
+			}
+			check(character >= 0 && character < Game.MAX_PLAYERS && !seats.contains(Game.allPlayers.get(character)));
+			seats.add(Game.allPlayers.get(character));
+		}
+		int turnPos = buffer.get();
+		int flags = buffer.get();
+		int transferred = buffer.get();
+		int activeSeats = buffer.get();
+		int remainingMoves = buffer.get();
+		int dice1 = buffer.get();
+		int dice2 = buffer.get();
+		int lastRoom = buffer.get();
+		check(turnPos >= 0 && turnPos < numSeats && (activeSeats & ~((1 << numSeats) - 1)) == 0
+				&& (transferred & ~((1 << Game.MAX_PLAYERS) - 1)) == 0
+				&& lastRoom >= -1 && lastRoom < Game.NUM_ROOMS);
+		check(dice1 >= 1 && dice1 <= 6 && dice2 >= 1 && dice2 <= 6 && remainingMoves >= 0
+				&& remainingMoves <= dice1 + dice2
+				&& (flags & ~(GameState.FLAG_GAME_OVER | GameState.FLAG_MADE_SUGGESTION)) == 0);
+		//Until the game is over somebody is still playing, and it is their turn;
+		//a game everybody was eliminated from ends with no active seats
+		check((flags & GameState.FLAG_GAME_OVER) != 0 || activeSeats != 0 && (activeSeats & 1 << currentSeat) != 0);
+		long[] path = new long[Board.OCCUPANCY_WORDS];
+		for (int i = 0; i < path.length; i++)
+		{
+			path[i] = buffer.getLong();
+		}
+		List<String> names = new ArrayList<String>(numSeats);
+		byte[] name = new byte[NAME_SIZE];
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			int length = buffer.getShort();
+			check(length >= 0 && length <= NAME_SIZE - Short.BYTES);
+			buffer.get(name, 0, NAME_SIZE - Short.BYTES);
+			if (seat < numSeats)
+			{
+				names.add(new String(name, 0, length, StandardCharsets.UTF_8));
+			}
+		}
+
+		GameState state = new GameState(seats, names, seed);
+		state.answer = answer;
+		state.extraCards = extraCards;
+		System.arraycopy(hands, 0, state.hands, 0, numSeats);
+		System.arraycopy(caseFiles, 0, state.caseFiles, 0, numSeats);
+		System.arraycopy(positions, 0, state.positions, 0, positions.length);
+		System.arraycopy(characterRooms, 0, state.characterRooms, 0, characterRooms.length);
+		state.transferred = transferred;
+		state.activeSeats = activeSeats;
+		state.currentSeat = currentSeat;
+		state.turnPos = turnPos;
+		state.remainingMoves = remainingMoves;
+		state.dice1 = dice1;
+		state.dice2 = dice2;
+		state.lastRoom = lastRoom;
+		state.flags = flags;
+		System.arraycopy(path, 0, state.path, 0, path.length);
+		state.randomState = randomState;
+		return state;
+	}
+
+	/**
+	 * @param valid - Whether a value read from a snapshot is one a game can have
+	 * @throws IllegalArgumentException
+	 * If it is not
+	 */
+	private static void check(boolean valid)
+	{
+		if (!valid)
+		{
+			throw new IllegalArgumentException("Snapshot is corrupt");
+		}
+	}
+}
@@ -0,0 +1,550 @@
+package cluedo.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cluedo.board.Board;
+import cluedo.model.Cell;
+import cluedo.model.Room;
+import cluedo.utility.Heading.Direction;
+
+/**
+ * The expected number of turns to enter each room, and the chance of entering it
+ * within a number of turns, from every corridor cell and every room.
+ *
+ * Each turn the player rolls two dice (as in Game.rollDice) and must use the whole roll,
+ * unless they enter a room, which ends their move. The player is assumed to
+ * choose the best place to move to each turn, and other pieces are ignored.
+ * On the grid every path between two cells has the same odd or even length,
+ * so a roll can end on a cell if it is far enough and of the same parity
+ * (this ignores whether there is space to walk around to use up extra moves).
+ *
+ * The tables are found once, solving the rooms in parallel, and shared by every Game.
+ * Cells are board indexes (y*WIDTH + x) and rooms are indexes in BoardTopology.getRooms().
+ */
+public final class TravelTable
+{
+	/**
+	 * The most turns getProbability can be asked about
+	 */
+	public static final int MAX_TURNS = 20;
+	private static final int MIN_ROLL = 2;
+	private static final int MAX_ROLL = 12;
+	/**
+	 * The chance of rolling each total with two six-sided dice
+	 */
+	private static final double[] ROLL_PROBABILITY = new double[MAX_ROLL + 1];
+	static
+	{
+		for (int d1 = 1; d1 <= 6; d1++)
+		{
+			for (int d2 = 1; d2 <= 6; d2++)
+			{
+				ROLL_PROBABILITY[d1 + d2] += 1.0 / 36;
+			}
+		}
+	}
+	/**
+	 * The expected turns stop being improved once no state changes by more than this
+	 */
+	private static final double TOLERANCE = 1e-9;
+	private static final int MAX_ITERATIONS = 100000;
+	private static final int NONE = Integer.MAX_VALUE;
+	private static final int NUM_DIRECTIONS = Direction.values().length;
+
+	private final int numRooms;
+	/**
+	 * The corridor cells are states 0 to numCorridors - 1, followed by a state for each room
+	 */
+	private final int numStates;
+	private final int numCorridors;
+	/**
+	 * The state of each cell index: its corridor state, its room's state or -1
+	 */
+	private final int[] cellState;
+
+	/**
+	 * Where each state can move in one turn, sorted by the fewest steps.
+	 * Corridor cells are split by whether they take an odd or even number of steps,
+	 * rooms can be entered with any roll of at least their steps.
+	 */
+	private final int[][] evenTargets;
+	private final int[][] evenSteps;
+	private final int[][] oddTargets;
+	private final int[][] oddSteps;
+	private final int[][] roomTargets;
+	private final int[][] roomSteps;
+
+	/**
+	 * Indexed [room * numStates + state]
+	 */
+	private final double[] expected;
+	/**
+	 * Indexed [(room * numStates + state) * MAX_TURNS + turns - 1]
+	 */
+	private final float[] probability;
+
+	/**
+	 * Built the first time it is used, see BoardTopology
+	 */
+	private static class Holder
+	{
+		private static final TravelTable INSTANCE = new TravelTable(BoardTopology.get(), DistanceTable.get());
+	}
+
+	private TravelTable(BoardTopology topology, DistanceTable distances)
+	{
+		List<Room> rooms = topology.getRooms();
+		numRooms = rooms.size();
+		long[] corridor = topology.getCorridorMask();
+		cellState = new int[Board.NUM_CELLS];
+		Arrays.fill(cellState, -1);
+		List<Integer> corridorCells = new ArrayList<Integer>();
+		for (int cell = 0; cell < Board.NUM_CELLS; cell++)
+		{
+			if ((corridor[cell >>> 6] & (1L << cell)) != 0)
+			{
+				cellState[cell] = corridorCells.size();
+				corridorCells.add(cell);
+			}
+		}
+		numCorridors = corridorCells.size();
+		numStates = numCorridors + numRooms;
+		for (Cell cell : topology.getAllRoomCells())
+		{
+			cellState[Board.cellIndex(cell)] = numCorridors + rooms.indexOf(topology.getCellToRoom().get(cell));
+		}
+
+		//Steps between every pair of corridor cells
+		int[] adjacency = topology.getAdjacency();
+		short[][] corridorSteps = new short[numCorridors][];
+		int[] queue = new int[numCorridors];
+		for (int from = 0; from < numCorridors; from++)
+		{
+			short[] steps = new short[numCorridors];
+			Arrays.fill(steps, Short.MAX_VALUE);
+			steps[from] = 0;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = from;
+			while (head < tail)
+			{
+				int current = queue[head++];
+				int cell = corridorCells.get(current);
+				for (int d = 0; d < NUM_DIRECTIONS; d++)
+				{
+					int neighbour = adjacency[cell * NUM_DIRECTIONS + d];
+					if (neighbour >= 0 && cellState[neighbour] >= 0 && cellState[neighbour] < numCorridors
+							&& steps[cellState[neighbour]] == Short.MAX_VALUE)
+					{
+						steps[cellState[neighbour]] = (short) (steps[current] + 1);
+						queue[tail++] = cellState[neighbour];
+					}
+				}
+			}
+			corridorSteps[from] = steps;
+		}
+
+		evenTargets = new int[numStates][];
+		evenSteps = new int[numStates][];
+		oddTargets = new int[numStates][];
+		oddSteps = new int[numStates][];
+		roomTargets = new int[numStates][];
+		roomSteps = new int[numStates][];
+		int[] even = new int[numCorridors];
+		int[] odd = new int[numCorridors];
+		int[] toRoom = new int[numRooms];
+		for (int state = 0; state < numStates; state++)
+		{
+			Arrays.fill(even, NONE);
+			Arrays.fill(odd, NONE);
+			Arrays.fill(toRoom, NONE);
+			if (state < numCorridors)
+			{
+				int cell = corridorCells.get(state);
+				addCorridorSteps(corridorSteps[state], 0, state, even, odd);
+				for (int r = 0; r < numRooms; r++)
+				{
+					int steps = distances.getDistanceToRoom(cell, r);
+					toRoom[r] = steps == DistanceTable.UNREACHABLE ? NONE : steps;
+				}
+			}
+			else
+			{
+				//Taking an exit is the first step, and a secret passage enters the other room
+				int room = state - numCorridors;
+				for (Cell exit : topology.getExitCells().get(rooms.get(room)))
+				{
+					int exitState = cellState[Board.cellIndex(exit)];
+					if (exitState < numCorridors)
+					{
+						addCorridorSteps(corridorSteps[exitState], 1, -1, even, odd);
+					}
+				}
+				for (int r = 0; r < numRooms; r++)
+				{
+					int steps = distances.getRoomDistance(room, r);
+					toRoom[r] = r == room || steps == DistanceTable.UNREACHABLE ? NONE : steps;
+				}
+			}
+			int[][] sorted = sortByStep(even, 0);
+			evenTargets[state] = sorted[0];
+			evenSteps[state] = sorted[1];
+			sorted = sortByStep(odd, 0);
+			oddTargets[state] = sorted[0];
+			oddSteps[state] = sorted[1];
+			sorted = sortByStep(toRoom, numCorridors);
+			roomTargets[state] = sorted[0];
+			roomSteps[state] = sorted[1];
+		}
+
+		expected = new double[numRooms * numStates];
+		probability = new float[numRooms * numStates * MAX_TURNS];
+		List<RoomTask> tasks = new ArrayList<RoomTask>();
+		for (int r = 0; r < numRooms; r++)
+		{
+			RoomTask task = new RoomTask(r);
+			tasks.add(task);
+			ForkJoinPool.commonPool().execute(task);
+		}
+		for (RoomTask task : tasks)
+		{
+			task.join();
+		}
+	}
+
+	/**
+	 * Keep the fewest odd and even steps to each corridor cell within a roll
+	 * @param steps - The steps from a corridor cell to every corridor cell
+	 * @param extra - Steps taken before that cell
+	 * @param skip - A state that cannot be moved to, or -1
+	 */
+	private static void addCorridorSteps(short[] steps, int extra, int skip, int[] even, int[] odd)
+	{
+		for (int to = 0; to < steps.length; to++)
+		{
+			int total = steps[to] + extra;
+			if (to == skip || steps[to] == Short.MAX_VALUE || total > MAX_ROLL)
+			{
+				continue;
+			}
+			int[] parity = (total & 1) == 0 ? even : odd;
+			if (total < parity[to])
+			{
+				parity[to] = total;
+			}
+		}
+	}
+
+	/**
+	 * @param steps - The steps to each target, NONE if it cannot be reached in one turn
+	 * @param offset - Added to each target's index to make its state
+	 * @return The states and their steps, sorted by steps
+	 */
+	private static int[][] sortByStep(int[] steps, int offset)
+	{
+		List<int[]> targets = new ArrayList<int[]>();
+		for (int i = 0; i < steps.length; i++)
+		{
+			if (steps[i] <= MAX_ROLL)
+			{
+				targets.add(new int[] { i + offset, steps[i] });
+			}
+		}
+		targets.sort((a, b) -> a[1] - b[1]);
+		int[][] sorted = new int[2][targets.size()];
+		for (int i = 0; i < targets.size(); i++)
+		{
+			sorted[0][i] = targets.get(i)[0];
+			sorted[1][i] = targets.get(i)[1];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Solves the tables for entering one room
+	 */
+	private class RoomTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int room;
+
+		RoomTask(int room)
+		{
+			this.room = room;
+		}
+
+		@Override
+		protected void compute()
+		{
+			solveExpected(room);
+			solveProbability(room);
+		}
+	}
+
+	/**
+	 * Value iteration: a state's expected turns is one more than the average,
+	 * over the rolls, of the best state it can move to with that roll
+	 */
+	private void solveExpected(int room)
+	{
+		int target = numCorridors + room;
+		boolean[] reachable = findStatesThatReach(target);
+		double[] value = new double[numStates];
+		for (int state = 0; state < numStates; state++)
+		{
+			value[state] = reachable[state] ? 0 : Double.POSITIVE_INFINITY;
+		}
+		double[] best = new double[MAX_ROLL + 1];
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++)
+		{
+			double change = 0;
+			for (int state = 0; state < numStates; state++)
+			{
+				if (state == target || !reachable[state])
+				{
+					continue;
+				}
+				bestPerRoll(state, value, best, false);
+				double total = 1;
+				for (int roll = MIN_ROLL; roll <= MAX_ROLL; roll++)
+				{
+					total += ROLL_PROBABILITY[roll] * (Double.isNaN(best[roll]) ? value[state] : best[roll]);
+				}
+				change = Math.max(change, Math.abs(total - value[state]));
+				value[state] = total;
+			}
+			if (change < TOLERANCE)
+			{
+				break;
+			}
+		}
+		System.arraycopy(value, 0, expected, room * numStates, numStates);
+	}
+
+	/**
+	 * The chance of entering the room within k turns is the average, over the rolls,
+	 * of the best chance within k - 1 turns of a state it can move to with that roll
+	 */
+	private void solveProbability(int room)
+	{
+		int target = numCorridors + room;
+		double[] previous = new double[numStates];
+		double[] current = new double[numStates];
+		double[] best = new double[MAX_ROLL + 1];
+		previous[target] = 1;
+		for (int turns = 1; turns <= MAX_TURNS; turns++)
+		{
+			for (int state = 0; state < numStates; state++)
+			{
+				if (state == target)
+				{
+					current[state] = 1;
+					continue;
+				}
+				bestPerRoll(state, previous, best, true);
+				double total = 0;
+				for (int roll = MIN_ROLL; roll <= MAX_ROLL; roll++)
+				{
+					total += ROLL_PROBABILITY[roll] * (Double.isNaN(best[roll]) ? previous[state] : best[roll]);
+				}
+				current[state] = total;
+				probability[(room * numStates + state) * MAX_TURNS + turns - 1] = (float) total;
+			}
+			double[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		for (int turns = 1; turns <= MAX_TURNS; turns++)
+		{
+			probability[(room * numStates + target) * MAX_TURNS + turns - 1] = 1;
+		}
+	}
+
+	/**
+	 * Find the best value of the states the player can move to with each roll
+	 * @param best - Set to the best value for each roll, or NaN if the player cannot move
+	 * @param highest - true to find the highest value, false for the lowest
+	 */
+	private void bestPerRoll(int state, double[] value, double[] best, boolean highest)
+	{
+		Arrays.fill(best, Double.NaN);
+		bestByParity(evenTargets[state], evenSteps[state], MIN_ROLL, value, best, highest);
+		bestByParity(oddTargets[state], oddSteps[state], MIN_ROLL + 1, value, best, highest);
+		//A room can be entered with any roll that reaches it
+		int[] targets = roomTargets[state];
+		int[] steps = roomSteps[state];
+		int i = 0;
+		double room = Double.NaN;
+		for (int roll = MIN_ROLL; roll <= MAX_ROLL; roll++)
+		{
+			for (; i < targets.length && steps[i] <= roll; i++)
+			{
+				room = better(room, value[targets[i]], highest);
+			}
+			best[roll] = better(best[roll], room, highest);
+		}
+	}
+
+	/**
+	 * Find the best value of the corridor cells that each roll of one parity can end on
+	 * @param firstRoll - The smallest roll of the parity
+	 */
+	private static void bestByParity(int[] targets, int[] steps, int firstRoll, double[] value, double[] best,
+			boolean highest)
+	{
+		int i = 0;
+		double found = Double.NaN;
+		for (int roll = firstRoll; roll <= MAX_ROLL; roll += 2)
+		{
+			for (; i < targets.length && steps[i] <= roll; i++)
+			{
+				found = better(found, value[targets[i]], highest);
+			}
+			best[roll] = found;
+		}
+	}
+
+	/**
+	 * @return The better of two values, where NaN means there is no value
+	 */
+	private static double better(double a, double b, boolean highest)
+	{
+		if (Double.isNaN(a))
+		{
+			return b;
+		}
+		if (Double.isNaN(b))
+		{
+			return a;
+		}
+		return highest ? Math.max(a, b) : Math.min(a, b);
+	}
+
+	/**
+	 * @return Whether each state can ever enter the target, moving with the largest roll
+	 */
+	private boolean[] findStatesThatReach(int target)
+	{
+		boolean[] reaches = new boolean[numStates];
+		reaches[target] = true;
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (int state = 0; state < numStates; state++)
+			{
+				if (!reaches[state] && (anyReaches(evenTargets[state], reaches)
+						|| anyReaches(oddTargets[state], reaches) || anyReaches(roomTargets[state], reaches)))
+				{
+					reaches[state] = true;
+					changed = true;
+				}
+			}
+		}
+		return reaches;
+	}
+
+	private static boolean anyReaches(int[] targets, boolean[] reaches)
+	{
+		for (int target : targets)
+		{
+			if (reaches[target])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The travel tables for the Cluedo board, shared by all games
+	 */
+	public static TravelTable get()
+	{
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * @param cell - A corridor or room cell's index. A room cell means the player is in that room.
+	 * @param room - The index of the room to enter
+	 * @return The expected number of turns to enter the room, 0 if the cell is in the room,
+	 * or infinity if it cannot be entered from the cell
+	 */
+	public double getExpectedTurns(int cell, int room)
+	{
+		int state = cellState[cell];
+		return state < 0 ? Double.POSITIVE_INFINITY : expected[room * numStates + state];
+	}
+
+	/**
+	 * @param from - The index of the room the player is in
+	 * @param to - The index of the room to enter
+	 * @return The expected number of turns to enter the second room
+	 */
+	public double getExpectedTurnsFromRoom(int from, int to)
+	{
+		return expected[to * numStates + numCorridors + from];
+	}
+
+	/**
+	 * @param cell - A corridor or room cell's index. A room cell means the player is in that room.
+	 * @param room - The index of the room to enter
+	 * @param turns - Between 1 and MAX_TURNS
+	 * @return The chance of entering the room within that many turns
+	 * @throws IllegalArgumentException
+	 * If turns is out of range
+	 */
+	public double getProbability(int cell, int room, int turns)
+	{
+		int state = cellState[cell];
+		return state < 0 ? 0 : probabilityOf(state, room, turns);
+	}
+
+	/**
+	 * @param from - The index of the room the player is in
+	 * @param to - The index of the room to enter
+	 * @param turns - Between 1 and MAX_TURNS
+	 * @return The chance of entering the second room within that many turns
+	 * @throws IllegalArgumentException
+	 * If turns is out of range
+	 */
+	public double getProbabilityFromRoom(int from, int to, int turns)
+	{
+		return probabilityOf(numCorridors + from, to, turns);
+	}
+
+	private double probabilityOf(int state, int room, int turns)
+	{
+		if (turns < 1 || turns > MAX_TURNS)
+		{
+			throw new IllegalArgumentException("Turns must be between 1 and " + MAX_TURNS);
+		}
+		return probability[(room * numStates + state) * MAX_TURNS + turns - 1];
+	}
+
+	/**
+	 * @param cell - May not be null
+	 * @param room - May not be null
+	 * @return The expected number of turns to enter the room from the cell
+	 * @throws IllegalArgumentException
+	 * If the arguments are null or the room is not on the board
+	 */
+	public double getExpectedTurns(Cell cell, Room room)
+	{
+		if (cell == null || room == null)
+		{
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		int index = BoardTopology.get().getRooms().indexOf(room);
+		if (index < 0)
+		{
+			throw new IllegalArgumentException(room.getName() + " is not a valid room!");
+		}
+		return getExpectedTurns(Board.cellIndex(cell), index);
+	}
+}
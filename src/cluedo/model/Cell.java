@@ -1,8 +1,8 @@
 package cluedo.model;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
-import java.util.TreeSet;
 
 import cluedo.utility.Heading.Direction;
 
@@ -24,12 +24,16 @@ public class Cell
 	private final int y;
 	
 	/**
-	 * The walls that this Cell has.
+	 * The walls that this Cell has, one bit per Direction (1 << ordinal).
 	 * A wall indicates that any Piece in this Cell can't move in that direction.
 	 * 
 	 * A Cell as 0 .. 4 walls, which are determined on construction.
 	 */
-	protected final Set<Direction> walls = new TreeSet<Direction>();
+	private final int walls;
+	/**
+	 * The same walls as a Set, created once for getWalls
+	 */
+	private final Set<Direction> wallSet;
 
 	/**
 	 * The basic unit within a Board.
@@ -56,6 +60,7 @@ public class Cell
 			throw new IllegalArgumentException("walls may not contain duplicate items");
 		}
 		
+		int mask = 0;
 		for (Direction d : walls)
 		{
 			if (d == null)
@@ -63,16 +68,23 @@ public class Cell
 				throw new IllegalArgumentException("walls may not contain null items");
 			}
 			
-			if (this.walls.contains(d)) // We've come across this Direction before, this suggests the caller is using the constructor incorrectly.
+			if ((mask & wallBit(d)) != 0) // We've come across this Direction before, this suggests the caller is using the constructor incorrectly.
 			{
 				throw new IllegalArgumentException("walls may not contain duplicate items");
 			}
 			
-			this.walls.add(d);
+			mask |= wallBit(d);
 		}
 		
 		this.x = x;
 		this.y = y;
+		this.walls = mask;
+		Set<Direction> set = EnumSet.noneOf(Direction.class);
+		for (Direction d : walls)
+		{
+			set.add(d);
+		}
+		this.wallSet = Collections.unmodifiableSet(set);
 	}
 
 	/**
@@ -84,12 +96,33 @@ public class Cell
 	 */
 	public boolean hasWall(Direction d)
 	{
-		return walls.contains(d);
+		return (walls & wallBit(d)) != 0;
 	}
 	
+	/**
+	 * @return The walls of this Cell, in the order of Direction. Cannot be modified.
+	 */
 	public Set<Direction> getWalls()
 	{
-		return Collections.unmodifiableSet(walls);
+		return wallSet;
+	}
+
+	/**
+	 * The walls of this Cell as a bit mask.
+	 * @return The bits (1 << Direction.ordinal()) of the walls this Cell has.
+	 */
+	public int getWallMask()
+	{
+		return walls;
+	}
+
+	/**
+	 * @param d The direction of a wall. May not be null.
+	 * @return The bit for the direction in a wall mask.
+	 */
+	public static int wallBit(Direction d)
+	{
+		return 1 << d.ordinal();
 	}
 	
 	/**
@@ -129,14 +162,13 @@ public class Cell
 	}
 	
 	/** 
-	 * Default hashcode as generated by Eclipse.
+	 * Only uses the x and y values, to be consistent with equals.
 	 */
 	@Override
 	public int hashCode()
 	{
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((walls == null) ? 0 : walls.hashCode());
 		result = prime * result + x;
 		result = prime * result + y;
 		return result;
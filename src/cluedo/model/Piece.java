@@ -6,5 +6,11 @@ package cluedo.model;
  */
 public interface Piece
 {
-	
+	/**
+	 * The number the Board keeps this piece under, so finding it is an array read.
+	 * Characters are numbered by their index in Game.allPlayers (0 to 5), and weapons after them (6 to 11).
+	 * Equal pieces must have the same number, and different pieces on a board different numbers.
+	 * @return A non negative number
+	 */
+	int getPieceNumber();
 }
\ No newline at end of file
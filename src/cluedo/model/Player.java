@@ -13,8 +13,16 @@ public class Player implements Piece
 	 * Example: Miss Scarlett
 	 */
 	private final String name;
+	/**
+	 * The index of this character in Game.allPlayers
+	 */
+	private final int number;
 
-	public Player(String name)
+	/**
+	 * @param name - The character's name. May not be empty, or null.
+	 * @param number - The character's index in Game.allPlayers, see Piece.getPieceNumber()
+	 */
+	public Player(String name, int number)
 	{
 		if (name == null)
 		{
@@ -26,7 +34,13 @@ public class Player implements Piece
 			throw new IllegalArgumentException("Name must be a non empty string");
 		}
 
+		if (number < 0)
+		{
+			throw new IllegalArgumentException("Number must not be negative");
+		}
+
 		this.name = name;
+		this.number = number;
 	}
 
 	/**
@@ -38,6 +52,12 @@ public class Player implements Piece
 		return name;
 	}
 
+	@Override
+	public int getPieceNumber()
+	{
+		return number;
+	}
+
 	/**
 	 * Two players are considered equal iff their names are equal.
 	 */
@@ -1,15 +1,19 @@
 package cluedo.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A potential murder weapon, found in one of the Rooms.
  * Each Weapon has a final unique ID, which can be used to distinguish one Weapon from another.
+ * Weapons are immutable, so the GameBuilder creates them once and shares them between games.
  */
 public class Weapon implements Piece
 {
 	/**
 	 * Used to generate unique IDs for the weapons - will increment by one per Weapon created.
+	 * Atomic so that Weapons can be created by several threads at once.
 	 */
-	private static int generateID = 0;
+	private static final AtomicInteger generateID = new AtomicInteger();
 	
 	/**
 	 * The unique ID for this Weapon, can be used to distinguish different Weapons.
@@ -23,12 +27,17 @@ public class Weapon implements Piece
 	 * Example: Lead Pipe
 	 */
 	private final String name;
+	/**
+	 * Game.MAX_PLAYERS plus the index of this Weapon in the game's weapons
+	 */
+	private final int number;
 
 	/**
 	 * A potential murder Weapon.
 	 * @param name The human readable name of the Weapon. May not be empty, or null.
+	 * @param number The Weapon's number on the Board, see Piece.getPieceNumber()
 	 */
-	public Weapon(String name)
+	public Weapon(String name, int number)
 	{
 		if (name == null)
 		{
@@ -40,10 +49,15 @@ public class Weapon implements Piece
 			throw new IllegalArgumentException("Name must be a non empty string");
 		}
 
+		if (number < 0)
+		{
+			throw new IllegalArgumentException("Number must not be negative");
+		}
+
 		this.name = name;
+		this.number = number;
 		
-		this.uniqueID = generateID;
-		generateID++;
+		this.uniqueID = generateID.getAndIncrement();
 	}
 	
 	/**
@@ -63,6 +77,12 @@ public class Weapon implements Piece
 	{
 		return name;
 	}
+
+	@Override
+	public int getPieceNumber()
+	{
+		return number;
+	}
 	
 	/**
 	 * Two Weapons are considered equal iff their IDs are are equal.
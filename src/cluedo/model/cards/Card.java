@@ -9,14 +9,12 @@ package cluedo.model.cards;
  * will be used to ensure type safety and will rely on this class for functionality.
  * 
  * Note that the Pieces on the Board are separate from their Cards representations. 
+ * 
+ * Cards are immutable. The GameBuilder creates a single deck with fixed IDs
+ * which is shared by every Game, so Cards are equal across games.
  */
 public abstract class Card
 {
-	/**
-	 * Used to generate unique IDs for the cards - will increment by one per Card created.
-	 */
-	private static int generateID = 0;
-
 	/**
 	 * The unique ID for this Card, can be used to distinguish different Cards.
 	 */
@@ -35,8 +33,9 @@ public abstract class Card
 	/**
 	 * A Card held by at most one human player.
 	 * @param name The human readable name of the Card. May not be empty, or null.
+	 * @param id The unique ID for the Card. May not be negative.
 	 */
-	public Card(String name)
+	public Card(String name, int id)
 	{
 		if (name == null)
 		{
@@ -48,10 +47,13 @@ public abstract class Card
 			throw new IllegalArgumentException("Name must be a non empty string");
 		}
 
-		this.name = name;
+		if (id < 0)
+		{
+			throw new IllegalArgumentException("ID must not be negative");
+		}
 
-		this.uniqueID = generateID;
-		generateID++;
+		this.name = name;
+		this.uniqueID = id;
 	}
 
 	/**
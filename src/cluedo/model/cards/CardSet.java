@@ -0,0 +1,179 @@
+package cluedo.model.cards;
+
+import java.util.Collection;
+
+/**
+ * An immutable set of Cards, stored as a bit mask of their IDs.
+ * Bit n is set if the card with ID n is in the set.
+ *
+ * A game only has 21 cards, so every set fits in an int and
+ * checking or combining sets is a single bitwise operation.
+ * Card IDs must be less than MAX_CARDS.
+ */
+public final class CardSet
+{
+	/**
+	 * The number of different card IDs a set can hold
+	 */
+	public static final int MAX_CARDS = Integer.SIZE;
+
+	public static final CardSet EMPTY = new CardSet(0);
+
+	private final int mask;
+
+	private CardSet(int mask)
+	{
+		this.mask = mask;
+	}
+
+	/**
+	 * @param mask - Bit n is set for the card with ID n
+	 * @return The set of cards in the mask
+	 */
+	public static CardSet ofMask(int mask)
+	{
+		return mask == 0 ? EMPTY : new CardSet(mask);
+	}
+
+	/**
+	 * @param cards - The cards in the set. May not be null or contain null.
+	 * @return A set of the cards
+	 * @throws IllegalArgumentException if the arguments are null or a card's ID is too large
+	 */
+	public static CardSet of(Card... cards)
+	{
+		if (cards == null)
+		{
+			throw new IllegalArgumentException("Arguments may not be null");
+		}
+		int mask = 0;
+		for (Card card : cards)
+		{
+			mask |= bit(card);
+		}
+		return ofMask(mask);
+	}
+
+	/**
+	 * @param cards - The cards in the set. May not be null or contain null.
+	 * @return A set of the cards
+	 * @throws IllegalArgumentException if the arguments are null or a card's ID is too large
+	 */
+	public static CardSet of(Collection<? extends Card> cards)
+	{
+		if (cards == null)
+		{
+			throw new IllegalArgumentException("Arguments may not be null");
+		}
+		int mask = 0;
+		for (Card card : cards)
+		{
+			mask |= bit(card);
+		}
+		return ofMask(mask);
+	}
+
+	/**
+	 * @param card - May not be null
+	 * @return The bit for the card in a mask
+	 * @throws IllegalArgumentException if the card is null or its ID is too large
+	 */
+	public static int bit(Card card)
+	{
+		if (card == null)
+		{
+			throw new IllegalArgumentException("Arguments may not be null");
+		}
+		if (card.getID() >= MAX_CARDS)
+		{
+			throw new IllegalArgumentException("Card ID is too large for a CardSet: " + card.getID());
+		}
+		return 1 << card.getID();
+	}
+
+	/**
+	 * @return The bit mask of the card IDs in this set
+	 */
+	public int getMask()
+	{
+		return mask;
+	}
+
+	public boolean contains(Card card)
+	{
+		return card != null && card.getID() < MAX_CARDS && (mask & (1 << card.getID())) != 0;
+	}
+
+	/**
+	 * @param id - A card ID
+	 * @return true if the card with the ID is in this set
+	 */
+	public boolean containsID(int id)
+	{
+		return id >= 0 && id < MAX_CARDS && (mask & (1 << id)) != 0;
+	}
+
+	/**
+	 * @return true if this set has any of the cards in other
+	 */
+	public boolean containsAny(CardSet other)
+	{
+		return (mask & other.mask) != 0;
+	}
+
+	public CardSet with(Card card)
+	{
+		return ofMask(mask | bit(card));
+	}
+
+	public CardSet without(Card card)
+	{
+		return ofMask(mask & ~bit(card));
+	}
+
+	public CardSet union(CardSet other)
+	{
+		return ofMask(mask | other.mask);
+	}
+
+	public CardSet intersect(CardSet other)
+	{
+		return ofMask(mask & other.mask);
+	}
+
+	public CardSet minus(CardSet other)
+	{
+		return ofMask(mask & ~other.mask);
+	}
+
+	public int size()
+	{
+		return Integer.bitCount(mask);
+	}
+
+	public boolean isEmpty()
+	{
+		return mask == 0;
+	}
+
+	/**
+	 * Two CardSets are equal iff they have the same cards.
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof CardSet && ((CardSet) o).mask == mask;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return mask;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CardSet[" + Integer.toBinaryString(mask) + "]";
+	}
+}
@@ -1,6 +1,7 @@
 package cluedo.model.cards;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -11,12 +12,23 @@ import java.util.List;
  * from the case and could therefore could still be part of the answer
  * Cards may be removed from a player's CaseFile throughout the game.
  * 
+ * The cards still in the CaseFile are kept in a CardSet, so checking
+ * and removing a card does not search a list.
+ * 
  */
 public class CaseFile 
 {
-	private List<SuspectCard> suspectCards;
-	private List<WeaponCard> weaponCards;
-	private List<RoomCard> roomCards;
+	/**
+	 * The cards the CaseFile started with, in their original order
+	 */
+	private final List<SuspectCard> suspectCards;
+	private final List<WeaponCard> weaponCards;
+	private final List<RoomCard> roomCards;
+	private final CardSet initialCards;
+	/**
+	 * The cards that have not been removed
+	 */
+	private CardSet cards;
 
 	public CaseFile(List<SuspectCard> suspectCards, List<WeaponCard> weaponCards, List<RoomCard> roomCards) 
 	{
@@ -27,6 +39,8 @@ public class CaseFile
 		this.roomCards = new ArrayList<RoomCard>(roomCards);
 		this.suspectCards = new ArrayList<SuspectCard>(suspectCards);
 		this.weaponCards = new ArrayList<WeaponCard>(weaponCards);
+		initialCards = CardSet.of(suspectCards).union(CardSet.of(weaponCards)).union(CardSet.of(roomCards));
+		cards = initialCards;
 	}
 
 	public CaseFile(SuspectCard suspectC, WeaponCard weaponC, RoomCard roomC) 
@@ -41,6 +55,8 @@ public class CaseFile
 		weaponCards.add(weaponC);
 		roomCards = new ArrayList<RoomCard>();
 		roomCards.add(roomC);
+		initialCards = CardSet.of(suspectC, weaponC, roomC);
+		cards = initialCards;
 	}
 	/**
 	 * Remove the card from the casefile
@@ -48,62 +64,82 @@ public class CaseFile
 	 */
 	public void removeCard(Card card) 
 	{
-		if (card instanceof SuspectCard) 
-		{
-			suspectCards.remove(card);
-		} 
-		else if (card instanceof RoomCard) 
-		{
-			roomCards.remove(card);
-		} 
-		else if (card instanceof WeaponCard) 
-		{
-			weaponCards.remove(card);
-		}
+		cards = cards.without(card);
 	}
 
+	/**
+	 * @return The suspect cards still in the casefile. Cannot be modified.
+	 */
 	public List<SuspectCard> getSuspectCards() 
 	{
-		return suspectCards;
+		return remaining(suspectCards);
 	}
 
+	/**
+	 * @return The weapon cards still in the casefile. Cannot be modified.
+	 */
 	public List<WeaponCard> getWeaponCards() 
 	{
-		return weaponCards;
+		return remaining(weaponCards);
 	}
 
+	/**
+	 * @return The room cards still in the casefile. Cannot be modified.
+	 */
 	public List<RoomCard> getRoomCards() 
 	{
-		return roomCards;
+		return remaining(roomCards);
 	}
-	public boolean containsCard(Card card)
+
+	/**
+	 * @return All the cards still in the casefile
+	 */
+	public CardSet getCards()
 	{
-		if (card instanceof SuspectCard) 
-		{
-			return suspectCards.contains(card);
-		} 
-		else if (card instanceof RoomCard) 
-		{
-			return roomCards.contains(card);
-		} 
-		else if (card instanceof WeaponCard) 
+		return cards;
+	}
+
+	/**
+	 * Set the cards still in the casefile, such as when restoring a saved game.
+	 * Only the cards the casefile started with are kept.
+	 * @param cards - The cards that have not been removed
+	 */
+	public void setCards(CardSet cards)
+	{
+		if (cards == null)
 		{
-			return weaponCards.contains(card);
+			throw new IllegalArgumentException("Arguments may not be null");
 		}
-		return false;
+		this.cards = cards.intersect(initialCards);
+	}
+
+	public boolean containsCard(Card card)
+	{
+		return cards.contains(card);
 	}
 	public boolean containsSuspectCard(SuspectCard card)
 	{
-		return suspectCards.contains(card);
+		return cards.contains(card);
 	}
 	public boolean containsWeaponCard(WeaponCard card)
 	{
-		return weaponCards.contains(card);
+		return cards.contains(card);
 	}
 	public boolean containsRoomCard(RoomCard card)
 	{
-		return roomCards.contains(card);
+		return cards.contains(card);
 	}
 
-	
+	private <C extends Card> List<C> remaining(List<C> all)
+	{
+		List<C> remaining = new ArrayList<C>(all.size());
+		for (C card : all)
+		{
+			if (cards.contains(card))
+			{
+				remaining.add(card);
+			}
+		}
+		return Collections.unmodifiableList(remaining);
+	}
 }
@@ -5,8 +5,8 @@ package cluedo.model.cards;
  */
 public class RoomCard extends Card
 {
-	public RoomCard(String name)
+	public RoomCard(String name, int id)
 	{
-		super(name);
+		super(name, id);
 	}
 }
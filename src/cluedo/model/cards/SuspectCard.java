@@ -5,8 +5,8 @@ package cluedo.model.cards;
  */
 public class SuspectCard extends Card
 {
-	public SuspectCard(String name)
+	public SuspectCard(String name, int id)
 	{
-		super(name);
+		super(name, id);
 	}
 }
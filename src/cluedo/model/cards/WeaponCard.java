@@ -5,8 +5,8 @@ package cluedo.model.cards;
  */
 public class WeaponCard extends Card
 {
-	public WeaponCard(String name)
+	public WeaponCard(String name, int id)
 	{
-		super(name);
+		super(name, id);
 	}
 }
@@ -0,0 +1,244 @@
+package cluedo.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import cluedo.engine.Agent;
+import cluedo.engine.Driver;
+import cluedo.engine.Engine;
+import cluedo.engine.RandomAgent;
+import cluedo.engine.Result;
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.Player;
+import cluedo.utility.RandomSource;
+
+/**
+ * Plays many complete games of Cluedo between Agents, spread across all cores.
+ *
+ * The games are split into tasks on a ForkJoinPool, so idle workers steal
+ * work from busy ones. Each task creates its own Games and Agents, and the
+ * only shared state is the SimulationResult, which is updated without locking.
+ *
+ * Each game's characters, seed and agents only depend on the simulation's
+ * seed and the game's index, so a simulation can be repeated exactly
+ * no matter how the games were scheduled.
+ */
+public class Simulation
+{
+	public static final int DEFAULT_MAX_TURNS = 2000;
+	/**
+	 * The number of games a task plays itself rather than splitting
+	 */
+	private static final int GAMES_PER_TASK = 32;
+
+	/**
+	 * Creates the agent for each seat, in turn order.
+	 * Each agent is given its own source of random numbers.
+	 */
+	private final List<Function<RandomSource, ? extends Agent>> seats;
+	private final List<String> seatNames;
+	private final int maxTurns;
+
+	/**
+	 * @param seats - Creates the agent for each seat (player) in turn order
+	 * @throws IllegalArgumentException
+	 * If there is not a valid number of seats for a game
+	 */
+	public Simulation(List<Function<RandomSource, ? extends Agent>> seats)
+	{
+		this(seats, DEFAULT_MAX_TURNS);
+	}
+
+	/**
+	 * @param seats - Creates the agent for each seat (player) in turn order
+	 * @param maxTurns - Games that are still going after this many turns are given up on
+	 * @throws IllegalArgumentException
+	 * If there is not a valid number of seats for a game or maxTurns is not positive
+	 */
+	public Simulation(List<Function<RandomSource, ? extends Agent>> seats, int maxTurns)
+	{
+		if (seats == null || seats.size() < Game.MIN_HUMAN_PLAYERS || seats.size() > Game.MAX_HUMAN_PLAYERS)
+		{
+			throw new IllegalArgumentException(
+					"Must have between: " + Game.MIN_HUMAN_PLAYERS + " and " + Game.MAX_HUMAN_PLAYERS + " seats");
+		}
+		if (maxTurns <= 0)
+		{
+			throw new IllegalArgumentException("maxTurns must be positive");
+		}
+		this.seats = new ArrayList<Function<RandomSource, ? extends Agent>>(seats);
+		this.maxTurns = maxTurns;
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < seats.size(); i++)
+		{
+			names.add("Seat " + (i + 1));
+		}
+		seatNames = Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * A simulation where every seat is played by the same kind of agent
+	 * @param numPlayers - The number of players in each game
+	 * @param agent - Creates an agent for a seat
+	 */
+	public static Simulation of(int numPlayers, Function<RandomSource, ? extends Agent> agent)
+	{
+		return new Simulation(Collections.<Function<RandomSource, ? extends Agent>>nCopies(numPlayers, agent));
+	}
+
+	/**
+	 * Play the games on the common ForkJoinPool
+	 * @param numGames - The number of games to play
+	 * @param seed - The seed the games are created from
+	 * @return The totals for all the games
+	 */
+	public SimulationResult run(long numGames, long seed)
+	{
+		return run(numGames, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Play the games on the given pool
+	 * @param numGames - The number of games to play
+	 * @param seed - The seed the games are created from
+	 * @param pool - The pool to run the games on
+	 * @return The totals for all the games
+	 * @throws IllegalArgumentException
+	 * If numGames is negative or the pool is null
+	 */
+	public SimulationResult run(long numGames, long seed, ForkJoinPool pool)
+	{
+		if (numGames < 0 || pool == null)
+		{
+			throw new IllegalArgumentException("Must have a pool and a non negative number of games");
+		}
+		SimulationResult result = new SimulationResult();
+		pool.invoke(new GamesTask(0, numGames, seed, result));
+		return result;
+	}
+
+	/**
+	 * Play one game from start to finish and add it to the result
+	 * @param index - The game's index in the simulation
+	 * @param seed - The simulation's seed
+	 */
+	private void playGame(long index, long seed, SimulationResult result)
+	{
+		RandomSource random = new RandomSource(new RandomSource(seed + index).nextLong());
+		List<Player> players = GameBuilder.choosePlayers(seats.size(), random);
+		Engine engine = new Engine(new Game(players, seatNames, random));
+		Game game = engine.getGame();
+		List<Agent> agents = new ArrayList<Agent>(players.size());
+		for (int i = 0; i < players.size(); i++)
+		{
+			agents.add(seats.get(i).apply(random.split()));
+		}
+		Driver driver = new Driver(engine, agents);
+
+		Player winner = null;
+		int turns = 0;
+		int suggestions = 0;
+		int eliminations = 0;
+		// A game is given up on if an agent keeps giving commands that break the rules
+		while (!game.isGameOver() && turns < maxTurns && !driver.isStuck())
+		{
+			Result outcome = driver.step();
+			if (!outcome.isAccepted())
+			{
+				continue;
+			}
+			switch (outcome.getType())
+			{
+				case SUGGEST:
+					suggestions++;
+					break;
+				case ACCUSE:
+					if (outcome.isCorrect())
+					{
+						winner = outcome.getPlayer();
+					}
+					else
+					{
+						eliminations++;
+					}
+					break;
+				case END_TURN:
+					turns++;
+					break;
+				default:
+					break;
+			}
+		}
+		if (winner == null)
+		{
+			result.record(-1, -1, game.isGameOver(), turns, suggestions, eliminations);
+		}
+		else
+		{
+			result.record(Game.allPlayers.indexOf(winner), players.indexOf(winner), true, turns, suggestions, eliminations);
+		}
+	}
+
+	/**
+	 * Plays the games from one index up to (but not including) another,
+	 * splitting the range in half until it is small enough to play
+	 */
+	private class GamesTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final long from;
+		private final long to;
+		private final long seed;
+		private final SimulationResult result;
+
+		GamesTask(long from, long to, long seed, SimulationResult result)
+		{
+			this.from = from;
+			this.to = to;
+			this.seed = seed;
+			this.result = result;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= GAMES_PER_TASK)
+			{
+				for (long i = from; i < to; i++)
+				{
+					playGame(i, seed, result);
+				}
+			}
+			else
+			{
+				long middle = (from + to) >>> 1;
+				invokeAll(new GamesTask(from, middle, seed, result), new GamesTask(middle, to, seed, result));
+			}
+		}
+	}
+
+	/**
+	 * Play games between random agents and print the totals.
+	 * Arguments: number of games, number of players, and optionally the seed
+	 */
+	public static void main(String[] args)
+	{
+		long numGames = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+		int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : Game.MAX_HUMAN_PLAYERS;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : RandomSource.randomSeed();
+
+		Simulation simulation = Simulation.of(numPlayers, RandomAgent::new);
+		long start = System.nanoTime();
+		SimulationResult result = simulation.run(numGames, seed);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.print(result);
+		System.out.println(String.format("Seed %d: %d games in %.2f seconds (%.0f games per second)",
+				seed, numGames, seconds, numGames / seconds));
+	}
+}
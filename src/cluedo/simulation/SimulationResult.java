@@ -0,0 +1,147 @@
+package cluedo.simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import cluedo.game.Game;
+
+/**
+ * The totals from a Simulation.
+ * Games played on different threads are recorded at the same time
+ * using LongAdders, so the workers never wait on each other.
+ * The totals are only exact once the simulation has finished.
+ */
+public class SimulationResult
+{
+	private final LongAdder games = new LongAdder();
+	/**
+	 * Games that hit the turn limit before anyone won or every player was eliminated
+	 */
+	private final LongAdder unfinishedGames = new LongAdder();
+	/**
+	 * Games where every player made an incorrect accusation
+	 */
+	private final LongAdder noWinnerGames = new LongAdder();
+	private final LongAdder turns = new LongAdder();
+	private final LongAdder suggestions = new LongAdder();
+	private final LongAdder eliminations = new LongAdder();
+	/**
+	 * Wins for each character, in the order of Game.allPlayers
+	 */
+	private final LongAdder[] characterWins = createAdders(Game.MAX_PLAYERS);
+	/**
+	 * Wins for each seat, where seat 0 is the player who had the first turn
+	 */
+	private final LongAdder[] seatWins = createAdders(Game.MAX_HUMAN_PLAYERS);
+
+	private static LongAdder[] createAdders(int size)
+	{
+		LongAdder[] adders = new LongAdder[size];
+		for (int i = 0; i < size; i++)
+		{
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	/**
+	 * Add one game to the totals
+	 * @param character - The winner's index in Game.allPlayers, -1 if nobody won
+	 * @param seat - The winner's seat, -1 if nobody won
+	 * @param finished - false if the game hit the turn limit
+	 */
+	void record(int character, int seat, boolean finished, int gameTurns, int gameSuggestions, int gameEliminations)
+	{
+		games.increment();
+		turns.add(gameTurns);
+		suggestions.add(gameSuggestions);
+		eliminations.add(gameEliminations);
+		if (!finished)
+		{
+			unfinishedGames.increment();
+		}
+		else if (character < 0)
+		{
+			noWinnerGames.increment();
+		}
+		else
+		{
+			characterWins[character].increment();
+			seatWins[seat].increment();
+		}
+	}
+
+	public long getGames()
+	{
+		return games.sum();
+	}
+
+	public long getUnfinishedGames()
+	{
+		return unfinishedGames.sum();
+	}
+
+	public long getNoWinnerGames()
+	{
+		return noWinnerGames.sum();
+	}
+
+	public long getTurns()
+	{
+		return turns.sum();
+	}
+
+	public long getSuggestions()
+	{
+		return suggestions.sum();
+	}
+
+	public long getEliminations()
+	{
+		return eliminations.sum();
+	}
+
+	/**
+	 * @param character - Index of the character in Game.allPlayers
+	 * @return The number of games the character won
+	 */
+	public long getCharacterWins(int character)
+	{
+		return characterWins[character].sum();
+	}
+
+	/**
+	 * @param seat - 0 is the player who had the first turn
+	 * @return The number of games won from the seat
+	 */
+	public long getSeatWins(int seat)
+	{
+		return seatWins[seat].sum();
+	}
+
+	/**
+	 * @return The mean number of turns per game
+	 */
+	public double getAverageTurns()
+	{
+		long played = getGames();
+		return played == 0 ? 0 : (double) getTurns() / played;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Games: %d (unfinished %d, no winner %d)%n", getGames(), getUnfinishedGames(), getNoWinnerGames()));
+		sb.append(String.format("Turns: %d (%.2f per game)%n", getTurns(), getAverageTurns()));
+		sb.append(String.format("Suggestions: %d, Eliminations: %d%n", getSuggestions(), getEliminations()));
+		for (int i = 0; i < characterWins.length; i++)
+		{
+			sb.append(String.format("%s: %d wins%n", Game.allPlayers.get(i).getName(), getCharacterWins(i)));
+		}
+		for (int i = 0; i < seatWins.length; i++)
+		{
+			sb.append(String.format("Seat %d: %d wins%n", i + 1, getSeatWins(i)));
+		}
+		return sb.toString();
+	}
+}
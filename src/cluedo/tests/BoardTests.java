@@ -1,6 +1,6 @@
 package cluedo.tests;
 
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,7 +17,7 @@ import cluedo.utility.Heading.Direction;
 public class BoardTests
 {
 	private Board board;
-	private Piece validPiece = new Weapon("Dagger");
+	private Piece validPiece = new Weapon("Dagger", 0);
 
 	private Cell validCell;
 
@@ -109,7 +109,7 @@ public class BoardTests
 	@Test (expected = IllegalMethodCallException.class)
 	public void invalidMoveNonexistentPiece() throws InvalidMoveException 
 	{
-		board.move(new Weapon("Lead Pipe"), getRandomDirection());
+		board.move(new Weapon("Lead Pipe", 1), getRandomDirection());
 	}
 
 	/*@Test (expected = InvalidMoveException.class)
@@ -141,4 +141,65 @@ public class BoardTests
 	}*/
 
 
+	/**
+	 * Moving a piece frees its old cell and occupies the new one,
+	 * in both the cell lookups and the bitboard
+	 */
+	@Test
+	public void occupancyFollowsPiece()
+	{
+		int index = Board.cellIndex(validCell);
+		assertTrue(board.containsPiece(validCell));
+		assertTrue(board.isOccupied(index));
+		assertEquals(validPiece, board.getPiece(index));
+		assertEquals(1, countOccupied(board.getOccupancy()));
+
+		int x = validCell.getX() == 0 ? 1 : 0;
+		int y = validCell.getY();
+		board.setPosition(validPiece, x, y);
+		int newIndex = Board.cellIndex(x, y);
+		assertFalse(board.isOccupied(index));
+		assertNull(board.getPiece(index));
+		assertTrue(board.isOccupied(newIndex));
+		assertEquals(board.getCell(newIndex), board.getPosition(validPiece));
+		long[] occupancy = board.getOccupancy();
+		assertEquals(1, countOccupied(occupancy));
+		assertTrue((occupancy[newIndex / Long.SIZE] & (1L << newIndex)) != 0);
+	}
+
+	/**
+	 * A wall on either cell blocks the move both ways, as does the edge of the board
+	 */
+	@Test
+	public void adjacencyAccountsForWalls()
+	{
+		Cell[][] cells = new Cell[Board.WIDTH][Board.HEIGHT];
+		for (int y = 0; y < Board.HEIGHT; y++)
+		{
+			for (int x = 0; x < Board.WIDTH; x++)
+			{
+				cells[x][y] = x == 5 && y == 5 ? new Cell(x, y, Direction.East) : new Cell(x, y);
+			}
+		}
+		Board walled = new Board(cells);
+		int index = Board.cellIndex(5, 5);
+		assertEquals(-1, walled.getNeighbour(index, Direction.East));
+		assertEquals(-1, walled.getNeighbour(Board.cellIndex(6, 5), Direction.West));
+		assertEquals(Board.cellIndex(5, 4), walled.getNeighbour(index, Direction.North));
+		assertEquals(Board.cellIndex(4, 5), walled.getNeighbour(index, Direction.West));
+		assertEquals(-1, walled.getNeighbour(Board.cellIndex(0, 0), Direction.North));
+		assertEquals(-1, walled.getNeighbour(Board.cellIndex(0, 0), Direction.West));
+		assertEquals(-1, walled.getNeighbour(Board.cellIndex(Board.WIDTH - 1, Board.HEIGHT - 1), Direction.South));
+	}
+
+	private int countOccupied(long[] occupancy)
+	{
+		int count = 0;
+		for (long word : occupancy)
+		{
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
 }
@@ -0,0 +1,96 @@
+package cluedo.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.cards.Card;
+import cluedo.model.cards.CardSet;
+import cluedo.model.cards.CaseFile;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+
+public class CardTests
+{
+	private final SuspectCard suspect = (SuspectCard) GameBuilder.getCard(2);
+	private final WeaponCard weapon = (WeaponCard) GameBuilder.getCard(Game.MAX_PLAYERS + 1);
+	private final RoomCard room = (RoomCard) GameBuilder.getCard(GameBuilder.NUM_CARDS - 1);
+
+	/**
+	 * Each card is the bit of its ID
+	 */
+	@Test
+	public void testBit()
+	{
+		assertEquals(1, CardSet.bit(GameBuilder.getCard(0)));
+		assertEquals(1 << Game.MAX_PLAYERS + 1, CardSet.bit(weapon));
+		assertEquals(1 << GameBuilder.NUM_CARDS - 1, CardSet.bit(room));
+		try
+		{
+			CardSet.bit(new SuspectCard("Too large", CardSet.MAX_CARDS));
+			fail("A card ID past MAX_CARDS cannot be in a set");
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+
+	/**
+	 * A set made from cards or from their mask holds exactly those cards
+	 */
+	@Test
+	public void testOfAndContains()
+	{
+		CardSet set = CardSet.of(suspect, weapon, room);
+		assertEquals(CardSet.bit(suspect) | CardSet.bit(weapon) | CardSet.bit(room), set.getMask());
+		assertEquals(set, CardSet.of(Arrays.asList(room, suspect, weapon)));
+		assertEquals(set, CardSet.ofMask(set.getMask()));
+		assertSame(CardSet.EMPTY, CardSet.ofMask(0));
+		for (int id = 0; id < GameBuilder.NUM_CARDS; id++)
+		{
+			Card card = GameBuilder.getCard(id);
+			boolean in = card == suspect || card == weapon || card == room;
+			assertEquals(in, set.contains(card));
+			assertEquals(in, set.containsID(id));
+		}
+		assertFalse(set.contains(null));
+		assertFalse(set.containsID(-1));
+		assertFalse(set.containsID(CardSet.MAX_CARDS));
+	}
+
+	/**
+	 * Removing a card from a CaseFile removes it from the getters, which keep the original order
+	 */
+	@Test
+	public void testCaseFileRemoveCard()
+	{
+		SuspectCard otherSuspect = (SuspectCard) GameBuilder.getCard(0);
+		CaseFile caseFile = new CaseFile(Arrays.asList(otherSuspect, suspect), Arrays.asList(weapon),
+				Arrays.asList(room));
+		assertEquals(CardSet.of(otherSuspect, suspect, weapon, room), caseFile.getCards());
+
+		caseFile.removeCard(otherSuspect);
+		assertEquals(Arrays.asList(suspect), caseFile.getSuspectCards());
+		assertEquals(Arrays.asList(weapon), caseFile.getWeaponCards());
+		assertEquals(Arrays.asList(room), caseFile.getRoomCards());
+		assertFalse(caseFile.containsCard(otherSuspect));
+		assertFalse(caseFile.containsSuspectCard(otherSuspect));
+		assertTrue(caseFile.containsSuspectCard(suspect));
+
+		caseFile.removeCard(weapon);
+		caseFile.removeCard(weapon);
+		assertTrue(caseFile.getWeaponCards().isEmpty());
+		assertEquals(CardSet.of(suspect, room), caseFile.getCards());
+
+		//Only the cards the CaseFile started with can be put back
+		caseFile.setCards(CardSet.of(otherSuspect, weapon, GameBuilder.getCard(Game.MAX_PLAYERS)));
+		assertEquals(CardSet.of(otherSuspect, weapon), caseFile.getCards());
+		assertEquals(Arrays.asList(otherSuspect), caseFile.getSuspectCards());
+		assertFalse(caseFile.containsRoomCard(room));
+	}
+}
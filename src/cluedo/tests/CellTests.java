@@ -3,7 +3,12 @@ package cluedo.tests;
 import cluedo.model.Cell;
 import cluedo.utility.Heading.Direction;
 
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -87,4 +92,33 @@ public class CellTests
 		Direction[] invalidWalls = {Direction.North, Direction.West, Direction.East, Direction.South, Direction.North};
 		new Cell(validX, validY, invalidWalls){};
 	}
+	
+	/*
+	 * Valid tests
+	 */
+	
+	@Test
+	public void wallsMatchConstructor()
+	{
+		Cell cell = new Cell(validX, validY, validWalls);
+		Set<Direction> expected = new HashSet<Direction>(Arrays.asList(validWalls));
+		assertEquals(expected, cell.getWalls());
+		for (Direction d : Direction.values())
+		{
+			assertEquals(expected.contains(d), cell.hasWall(d));
+			assertEquals(expected.contains(d), (cell.getWallMask() & Cell.wallBit(d)) != 0);
+		}
+	}
+	
+	/**
+	 * Cells are equal by position, so they must hash the same whatever their walls
+	 */
+	@Test
+	public void hashCodeUsesPosition()
+	{
+		Cell walled = new Cell(validX, validY, Direction.values());
+		Cell open = new Cell(validX, validY);
+		assertEquals(walled, open);
+		assertEquals(walled.hashCode(), open.hashCode());
+	}
 }
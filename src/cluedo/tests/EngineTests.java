@@ -0,0 +1,216 @@
+package cluedo.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cluedo.engine.Agent;
+import cluedo.engine.Command;
+import cluedo.engine.Driver;
+import cluedo.engine.Engine;
+import cluedo.engine.RandomAgent;
+import cluedo.engine.Result;
+import cluedo.exceptions.IllegalMethodCallException;
+import cluedo.game.Game;
+import cluedo.game.GameState;
+import cluedo.model.Cell;
+import cluedo.model.Player;
+import cluedo.model.Room;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+import cluedo.utility.Heading;
+import cluedo.utility.Heading.Direction;
+import cluedo.utility.RandomSource;
+
+public class EngineTests
+{
+	private Engine engine;
+	private Game game;
+
+	@Before
+	public void setup()
+	{
+		List<Player> activePlayers = new ArrayList<Player>(Game.allPlayers);
+		List<String> playerNames = new ArrayList<String>();
+		for (int i = 0; i < activePlayers.size(); i++)
+		{
+			playerNames.add(Integer.toString(i));
+		}
+		engine = new Engine(activePlayers, playerNames);
+		game = engine.getGame();
+	}
+
+	/**
+	 * Cannot end a turn with moves remaining, and the game is unchanged
+	 */
+	@Test
+	public void testEndTurnWithRemainingMoves()
+	{
+		Player player = game.getCurrentPlayer();
+		int remainingMoves = game.getRemainingMoves();
+		Result result = engine.execute(Command.endTurn());
+		assertFalse(result.isAccepted());
+		assertNotNull(result.getMessage());
+		assertEquals(player, game.getCurrentPlayer());
+		assertEquals(remainingMoves, game.getRemainingMoves());
+	}
+
+	/**
+	 * Moving into a wall is rejected rather than thrown
+	 */
+	@Test
+	public void testMoveIntoWallRejected()
+	{
+		// Every starting position is against the edge of the board
+		Cell pos = game.getPosition(game.getCurrentPlayer());
+		Direction wall = null;
+		for (Direction direction : Direction.values())
+		{
+			if (pos.hasWall(direction))
+			{
+				wall = direction;
+			}
+		}
+		assertNotNull(wall);
+		int remainingMoves = game.getRemainingMoves();
+		Result result = engine.execute(Command.move(wall));
+		assertFalse(result.isAccepted());
+		assertEquals(Command.Type.MOVE, result.getType());
+		assertEquals(pos, game.getPosition(game.getCurrentPlayer()));
+		assertEquals(remainingMoves, game.getRemainingMoves());
+	}
+
+	/**
+	 * Cannot suggest outside of a room
+	 */
+	@Test
+	public void testSuggestionOutsideRoomRejected()
+	{
+		SuspectCard suspect = (SuspectCard) game.getSuspectCards().get(0);
+		WeaponCard weapon = (WeaponCard) game.getWeaponCards().get(0);
+		assertFalse(engine.execute(Command.suggest(suspect, weapon)).isAccepted());
+	}
+
+	/**
+	 * Nothing can be done once the game is over
+	 */
+	@Test
+	public void testCommandsRejectedWhenGameOver()
+	{
+		Player player = game.getCurrentPlayer();
+		SuspectCard suspect = (SuspectCard) game.getSuspectCards().get(0);
+		WeaponCard weapon = (WeaponCard) game.getWeaponCards().get(0);
+		RoomCard room = (RoomCard) game.getRoomCards().get(0);
+		while (!game.isGameOver())
+		{
+			Result result = engine.execute(Command.accuse(game.getActivePlayers().get(0), suspect, weapon, room));
+			assertTrue(result.isAccepted());
+		}
+		assertFalse(engine.execute(Command.move(Direction.East)).isAccepted());
+		assertFalse(engine.execute(Command.accuse(player, suspect, weapon, room)).isAccepted());
+	}
+
+	/**
+	 * A path that goes back to a cell it has been on is rejected without moving the player at all
+	 */
+	@Test
+	public void testMovePathIsAtomic() throws Exception
+	{
+		Direction first = null;
+		for (Room room : game.getRooms())
+		{
+			List<Direction> path = game.findPath(room);
+			if (path != null && path.size() > 1)
+			{
+				first = path.get(0);
+				break;
+			}
+		}
+		assertNotNull(first);
+		List<Direction> path = new ArrayList<Direction>();
+		path.add(first);
+		path.add(Heading.opposite(first));
+		GameState before = game.getState();
+		Result result = engine.execute(Command.moveAlong(path));
+		assertFalse(result.isAccepted());
+		assertEquals(Command.Type.MOVE_PATH, result.getType());
+		assertEquals(before, game.getState());
+
+		result = engine.execute(Command.moveAlong(path.subList(0, 1)));
+		assertTrue(result.isAccepted());
+		assertEquals(before.getRemainingMoves() - 1, game.getRemainingMoves());
+	}
+
+	/**
+	 * Moving toward a room follows the shortest path and stops when out of moves
+	 */
+	@Test
+	public void testMoveTowardRoom() throws Exception
+	{
+		for (Room room : game.getRooms())
+		{
+			List<Direction> path = game.findPath(room);
+			if (path == null)
+			{
+				continue;
+			}
+			int remainingMoves = game.getRemainingMoves();
+			Result result = engine.execute(Command.moveToward(room));
+			assertTrue(result.getMessage(), result.isAccepted());
+			if (path.size() <= remainingMoves)
+			{
+				assertEquals(room, game.getCurrentRoom());
+				assertEquals(0, game.getRemainingMoves());
+			}
+			else
+			{
+				assertFalse(game.isInRoom());
+				assertEquals(0, game.getRemainingMoves());
+				assertEquals(result.getCell(), game.getPosition(game.getCurrentPlayer()));
+			}
+			return;
+		}
+		fail("No room can be reached");
+	}
+
+	/**
+	 * The driver plays agents until a person has to act, and plays a game of agents to the end
+	 */
+	@Test
+	public void testDriver()
+	{
+		RandomSource random = new RandomSource(42);
+		List<Agent> agents = new ArrayList<Agent>();
+		for (int i = 0; i < game.getSeats().size(); i++)
+		{
+			agents.add(new RandomAgent(random.split()));
+		}
+		int person = (game.getSeats().indexOf(game.getCurrentPlayer()) + 1) % agents.size();
+		agents.set(person, null);
+		Driver driver = new Driver(engine, agents);
+		driver.playAgents();
+		assertFalse(driver.isStuck());
+		assertTrue(game.isGameOver() || engine.getPendingDisprover() == game.getSeats().get(person)
+				|| game.getCurrentPlayer() == game.getSeats().get(person));
+		try
+		{
+			driver.step();
+			fail("Only agents can be stepped");
+		}
+		catch (IllegalMethodCallException e)
+		{
+		}
+
+		agents.set(person, new RandomAgent(random.split()));
+		setup();
+		driver = new Driver(engine, agents);
+		driver.playAgents();
+		assertTrue(game.isGameOver());
+		assertFalse(driver.isAgentTurn());
+	}
+}
@@ -3,32 +3,57 @@ package cluedo.tests;
 import static org.junit.Assert.*;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import cluedo.board.Board;
+import cluedo.board.MoveStatus;
+import cluedo.deduction.Notebook;
 import cluedo.exceptions.HasRemainingMovesException;
 import cluedo.exceptions.IllegalMethodCallException;
 import cluedo.exceptions.InvalidMoveException;
 import cluedo.exceptions.NoAvailableExitException;
+import cluedo.game.Action;
+import cluedo.game.BoardTopology;
+import cluedo.game.DistanceTable;
+import cluedo.game.EventLog;
 import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.game.GameListener;
+import cluedo.game.GameState;
+import cluedo.game.Reachability;
+import cluedo.game.Replay;
+import cluedo.game.Snapshot;
+import cluedo.game.TravelTable;
 import cluedo.model.Cell;
+import cluedo.model.Piece;
 import cluedo.model.Player;
 import cluedo.model.Room;
 import cluedo.model.Weapon;
 import cluedo.model.cards.Card;
+import cluedo.model.cards.CardSet;
 import cluedo.model.cards.CaseFile;
 import cluedo.model.cards.RoomCard;
 import cluedo.model.cards.SuspectCard;
 import cluedo.model.cards.WeaponCard;
+import cluedo.utility.Heading;
 import cluedo.utility.Heading.Direction;
+import cluedo.utility.RandomSource;
 
 public class GameTests {
 
@@ -55,6 +80,14 @@ public class GameTests {
 	 	setupGame(6);
 	}
 	public void setupGame(int numPlayers)
+	{
+		setupGame(numPlayers, RandomSource.randomSeed());
+	}
+
+	/**
+	 * Set up a game that is dealt and rolls the dice the same way every time
+	 */
+	public void setupGame(int numPlayers, long seed)
 	{
 		List<Player> activePlayers = new ArrayList<Player>(Game.allPlayers);
 		List<String> playerNames = new ArrayList<String>();
@@ -69,7 +102,7 @@ public class GameTests {
 			playerNames.add(Integer.toString(i));
 		}
 		
-		game = new Game(activePlayers, playerNames);
+		game = new Game(activePlayers, playerNames, seed);
 	}
 	/**
 	 * Using reflection to set remainingMoves to zero for testing purposes
@@ -588,6 +621,28 @@ public class GameTests {
 		game.move(Direction.West);
 	}
 	
+	/**
+	 * A player whose path is blocked can end their turn with moves left,
+	 * and undoing that gives them their moves back
+	 */
+	@Test
+	public void testEndTurnWhenStuck()
+	{
+		teleportPlayer(getSpecificPlayer("Mrs. White"),22,6);
+		getSpecificPlayer("Mrs. Peacock");
+		game.setUndoEnabled(true);
+		setRemainingMoves(2);
+		GameState before = game.getState();
+		assertFalse(game.canMove());
+		assertEquals(before, game.getState());
+
+		game.nextTurn();
+		assertNotEquals("Mrs. Peacock", game.getCurrentPlayer().getName());
+		game.undo();
+		assertEquals(before, game.getState());
+		assertEquals(2, game.getRemainingMoves());
+	}
+
 	/**
 	 * Entering a room
 	 */
@@ -936,6 +991,54 @@ public class GameTests {
 		assertTrue(cards.contains(guessSuspect));
 	}
 	
+	/**
+	 * Suggestion where the next player holds two of the three suggested cards,
+	 * both of which they can reveal
+	 */
+	@Test
+	public void testSuggestionTwoOfThreeCards() throws Exception
+	{
+		Player disprover = Game.allPlayers.get(SUSPECT_ORDER.get("Professor Plum"));
+		Field playerHandField = Game.class.getDeclaredField("playerHand");
+		playerHandField.setAccessible(true);
+		WeaponCard guessWeapon = null;
+		SuspectCard guessSuspect = null;
+		//Find a deal where Professor Plum has a weapon and a suspect, but not the Conservatory
+		for (long seed = 0; guessWeapon == null || guessSuspect == null; seed++)
+		{
+			setupGame(6, seed);
+			guessWeapon = null;
+			guessSuspect = null;
+			@SuppressWarnings("unchecked")
+			Map<Player, List<Card>> hands = (Map<Player, List<Card>>) playerHandField.get(game);
+			List<Card> hand = hands.get(disprover);
+			boolean hasRoom = false;
+			for (Card card : hand)
+			{
+				if (card instanceof WeaponCard)
+				{
+					guessWeapon = (WeaponCard) card;
+				}
+				else if (card instanceof SuspectCard)
+				{
+					guessSuspect = (SuspectCard) card;
+				}
+				else if (card.getName().equals("Conservatory"))
+				{
+					hasRoom = true;
+				}
+			}
+			if (hasRoom)
+			{
+				guessWeapon = null;
+			}
+		}
+		putPeacockInRoom();
+		Map<Player, Set<Card>> disproving = game.makeSuggestion(guessWeapon, guessSuspect);
+		assertEquals(Collections.singleton(disprover), disproving.keySet());
+		assertEquals(new HashSet<Card>(Arrays.asList(guessWeapon, guessSuspect)), disproving.get(disprover));
+	}
+
 	/**
 	 * Suggestion with one player who has one of the cards to disprove
 	 * the suggestion
@@ -1135,4 +1238,950 @@ public class GameTests {
 		fail("Should not be allowed to make a suggestion twice in one turn");
 	}
 	
+	/**
+	 * Games with the same seed deal the same cards,
+	 * place the weapons in the same rooms and roll the same dice
+	 */
+	@Test
+	public void testSameSeedSameGame()
+	{
+		List<Player> activePlayers = new ArrayList<Player>(Game.allPlayers);
+		List<String> playerNames = new ArrayList<String>();
+		for (int i = 0; i < activePlayers.size(); i++)
+		{
+			playerNames.add(Integer.toString(i));
+		}
+		Game first = new Game(activePlayers, playerNames, 42);
+		Game second = new Game(activePlayers, playerNames, 42);
+		assertEquals(42, first.getSeed());
+		for (int turn = 0; turn < 10; turn++)
+		{
+			assertEquals(first.getCurrentPlayer(), second.getCurrentPlayer());
+			assertEquals(first.getDiceRoll()[0], second.getDiceRoll()[0]);
+			assertEquals(first.getDiceRoll()[1], second.getDiceRoll()[1]);
+			for (int i = 0; i < first.getPlayerHand().size(); i++)
+			{
+				assertEquals(first.getPlayerHand().get(i), second.getPlayerHand().get(i));
+			}
+			for (int i = 0; i < first.getWeapons().size(); i++)
+			{
+				assertEquals(first.getPosition(first.getWeapons().get(i)), second.getPosition(second.getWeapons().get(i)));
+			}
+			game = first;
+			resetRemainingMoves();
+			first.nextTurn();
+			game = second;
+			resetRemainingMoves();
+			second.nextTurn();
+		}
+	}
+
+	/**
+	 * Games created on different threads share the same cards, weapons and board layout,
+	 * so cards from one game are equal to the same cards from another.
+	 */
+	@Test
+	public void testGamesCreatedConcurrently() throws Exception
+	{
+		final List<Player> activePlayers = new ArrayList<Player>(Game.allPlayers);
+		final List<String> playerNames = new ArrayList<String>();
+		for (int i = 0; i < activePlayers.size(); i++)
+		{
+			playerNames.add(Integer.toString(i));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Game>> futures = new ArrayList<Future<Game>>();
+		for (int i = 0; i < 100; i++)
+		{
+			futures.add(executor.submit(() -> new Game(activePlayers, playerNames)));
+		}
+		executor.shutdown();
+		Game first = futures.get(0).get();
+		for (Future<Game> future : futures)
+		{
+			Game other = future.get();
+			assertEquals(first.getSuspectCards(), other.getSuspectCards());
+			assertEquals(first.getWeaponCards(), other.getWeaponCards());
+			assertEquals(first.getRoomCards(), other.getRoomCards());
+			assertEquals(first.getWeapons(), other.getWeapons());
+			assertSame(first.getCells(), other.getCells());
+		}
+		Set<Integer> ids = new HashSet<Integer>();
+		for (Card card : first.getSuspectCards())
+		{
+			ids.add(card.getID());
+		}
+		for (Card card : first.getWeaponCards())
+		{
+			ids.add(card.getID());
+		}
+		for (Card card : first.getRoomCards())
+		{
+			ids.add(card.getID());
+		}
+		assertEquals(GameBuilder.NUM_CARDS, ids.size());
+	}
+
+	/**
+	 * A game returned to an earlier state, or resumed from it,
+	 * carries on exactly as the original game did
+	 */
+	@Test
+	public void testRestoreState()
+	{
+		GameState start = game.getState();
+		assertEquals(start, start.copy());
+		List<Integer> rolls = new ArrayList<Integer>();
+		for (int turn = 0; turn < 5; turn++)
+		{
+			resetRemainingMoves();
+			game.nextTurn();
+			rolls.add(game.getRemainingMoves());
+		}
+		GameState end = game.getState();
+		assertNotEquals(start, end);
+
+		game.restoreState(start);
+		assertEquals(start, game.getState());
+		Game resumed = new Game(start);
+		assertEquals(start, resumed.getState());
+		for (int turn = 0; turn < 5; turn++)
+		{
+			resetRemainingMoves();
+			game.nextTurn();
+			assertEquals(rolls.get(turn).intValue(), game.getRemainingMoves());
+		}
+		assertEquals(end, game.getState());
+		game = resumed;
+		for (int turn = 0; turn < 5; turn++)
+		{
+			resetRemainingMoves();
+			game.nextTurn();
+		}
+		assertEquals(end, resumed.getState());
+	}
+
+	/**
+	 * Eliminating or restoring players does not change the list of players the game was made with,
+	 * which may be unmodifiable
+	 */
+	@Test
+	public void testRestoreStateKeepsPlayerList()
+	{
+		List<Player> players = Collections.unmodifiableList(new ArrayList<Player>(game.getSeats()));
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < players.size(); i++)
+		{
+			names.add(Integer.toString(i));
+		}
+		Game first = new Game(players, names, 1L);
+		Game second = new Game(players, names, 1L);
+		Player accuser = first.getCurrentPlayer();
+		game = first;
+		RoomCard room = getAnswerRoomCard();
+		first.makeAccusation(accuser, (WeaponCard) GameBuilder.getCard(Game.MAX_PLAYERS),
+				(RoomCard) GameBuilder.getCard(room.getID() == GameBuilder.NUM_CARDS - 1 ? room.getID() - 1 : room.getID() + 1),
+				(SuspectCard) GameBuilder.getCard(0));
+		assertFalse(first.getActivePlayers().contains(accuser));
+
+		second.restoreState(first.getState());
+		assertEquals(first.getState(), second.getState());
+		assertFalse(second.getActivePlayers().contains(accuser));
+	}
+
+	/**
+	 * Play random actions with undo enabled, then undo them
+	 * and check the game goes back through the same states
+	 */
+	@Test
+	public void testUndo() throws Exception
+	{
+		game.setUndoEnabled(true);
+		RandomSource random = new RandomSource(11);
+		Direction[] directions = Direction.values();
+		List<GameState> states = new ArrayList<GameState>();
+		for (int step = 0; step < 400 && !game.isGameOver(); step++)
+		{
+			GameState before = game.getState();
+			int depth = game.getUndoDepth();
+			try
+			{
+				if (step % 150 == 149)
+				{
+					game.makeAccusation(game.getCurrentPlayer(), (WeaponCard) game.getWeaponCards().get(0),
+							(RoomCard) game.getRoomCards().get(0), (SuspectCard) game.getSuspectCards().get(0));
+				}
+				else if (game.canMakeSuggestion() && random.nextInt(2) == 0)
+				{
+					List<Card> weapons = game.getWeaponCards();
+					List<Card> suspects = game.getSuspectCards();
+					Map<Player, Set<Card>> disprover = game.makeSuggestion(
+							(WeaponCard) weapons.get(random.nextInt(weapons.size())),
+							(SuspectCard) suspects.get(random.nextInt(suspects.size())));
+					states.add(before);
+					depth = game.getUndoDepth();
+					for (Map.Entry<Player, Set<Card>> entry : disprover.entrySet())
+					{
+						before = game.getState();
+						depth = game.getUndoDepth();
+						Map<Player, Card> shown = new HashMap<Player, Card>();
+						shown.put(entry.getKey(), entry.getValue().iterator().next());
+						game.removeCard(shown);
+					}
+				}
+				else if (game.getRemainingMoves() == 0)
+				{
+					game.nextTurn();
+				}
+				else if (game.isInRoom())
+				{
+					List<Cell> exits = game.getAvailableExits();
+					game.takeExit(exits.get(random.nextInt(exits.size())));
+				}
+				else
+				{
+					game.move(directions[random.nextInt(directions.length)]);
+				}
+			}
+			catch (InvalidMoveException | NoAvailableExitException e)
+			{
+				assertEquals(depth, game.getUndoDepth());
+				assertEquals(before, game.getState());
+				if (e instanceof NoAvailableExitException)
+				{
+					break;
+				}
+			}
+			if (game.getUndoDepth() > depth)
+			{
+				states.add(before);
+			}
+		}
+		assertEquals(states.size(), game.getUndoDepth());
+		assertTrue(states.size() > 20);
+		for (int i = states.size() - 1; i >= 0; i--)
+		{
+			game.undo();
+			assertEquals(states.get(i), game.getState());
+		}
+		try
+		{
+			game.undo();
+			fail("Should not be able to undo past the start");
+		}
+		catch (IllegalMethodCallException e)
+		{
+		}
+	}
+
+	/**
+	 * Check the reachable cells and rooms against trying every sequence of moves
+	 */
+	@Test
+	public void testReachable() throws Exception
+	{
+		game.setUndoEnabled(true);
+		for (int turn = 0; turn < 12; turn++)
+		{
+			Reachability reachable = game.getReachable();
+			Set<Cell> cells = new HashSet<Cell>();
+			Set<Room> rooms = new HashSet<Room>();
+			if (game.isInRoom())
+			{
+				for (Cell exit : game.getAvailableExits())
+				{
+					game.takeExit(exit);
+					addReachable(new HashMap<Cell, Integer>(), cells, rooms);
+					game.undo();
+				}
+			}
+			else
+			{
+				explore(new HashMap<Cell, Integer>(), cells, rooms);
+			}
+			assertEquals(cells, new HashSet<Cell>(reachable.getCells()));
+			assertEquals(rooms, new HashSet<Room>(reachable.getRooms()));
+			for (Cell cell : cells)
+			{
+				assertTrue(reachable.canReach(cell));
+			}
+			assertFalse(reachable.canReach(game.getPosition(game.getCurrentPlayer())));
+			resetRemainingMoves();
+			game.nextTurn();
+		}
+	}
+
+	/**
+	 * Try every move from the current position, keeping the most moves
+	 * the player had left on each cell so each cell is only explored again with more moves
+	 */
+	private void explore(Map<Cell, Integer> best, Set<Cell> cells, Set<Room> rooms)
+	{
+		for (Direction direction : Direction.values())
+		{
+			try
+			{
+				game.move(direction);
+			}
+			catch (InvalidMoveException e)
+			{
+				continue;
+			}
+			addReachable(best, cells, rooms);
+			game.undo();
+		}
+	}
+
+	private void addReachable(Map<Cell, Integer> best, Set<Cell> cells, Set<Room> rooms)
+	{
+		if (game.isInRoom())
+		{
+			rooms.add(game.getCurrentRoom());
+			return;
+		}
+		Cell cell = game.getPosition(game.getCurrentPlayer());
+		cells.add(cell);
+		Integer moves = best.get(cell);
+		if (moves == null || moves < game.getRemainingMoves())
+		{
+			best.put(cell, game.getRemainingMoves());
+			explore(best, cells, rooms);
+		}
+	}
+
+	/**
+	 * Each distance must be one more than a neighbour's distance,
+	 * and a room the player can enter this turn cannot be further than their roll
+	 */
+	@Test
+	public void testDistanceTable() throws Exception
+	{
+		DistanceTable distances = DistanceTable.get();
+		List<Room> rooms = game.getRooms();
+		Board board = new Board(BoardTopology.get().getCells());
+		for (int cell = 0; cell < Board.NUM_CELLS; cell++)
+		{
+			for (int room = 0; room < rooms.size(); room++)
+			{
+				int distance = distances.getDistanceToRoom(cell, room);
+				if (distance == DistanceTable.UNREACHABLE)
+				{
+					continue;
+				}
+				boolean closer = false;
+				for (Direction direction : Direction.values())
+				{
+					int neighbour = board.getNeighbour(cell, direction);
+					if (neighbour < 0)
+					{
+						continue;
+					}
+					if (distance == 1)
+					{
+						closer |= BoardTopology.get().getCellToRoom().get(board.getCell(neighbour)) == rooms.get(room);
+					}
+					else
+					{
+						closer |= distances.getDistanceToRoom(neighbour, room) == distance - 1;
+					}
+				}
+				assertTrue(closer);
+			}
+		}
+		int kitchen = rooms.indexOf(game.getRoom(board.getCell(Board.cellIndex(4, 6))));
+		int study = rooms.indexOf(game.getRoom(board.getCell(Board.cellIndex(23, 21))));
+		assertEquals(1, distances.getRoomDistance(kitchen, study));
+		assertEquals(1, distances.getRoomDistance(study, kitchen));
+
+		for (int turn = 0; turn < 6; turn++)
+		{
+			Reachability reachable = game.getReachable();
+			Cell position = game.getPosition(game.getCurrentPlayer());
+			for (Room room : reachable.getRooms())
+			{
+				assertTrue(distances.getDistanceToRoom(position, room) <= game.getRemainingMoves());
+			}
+			resetRemainingMoves();
+			game.nextTurn();
+		}
+	}
+
+	@Test
+	public void testTravelTable()
+	{
+		TravelTable travel = TravelTable.get();
+		DistanceTable distances = DistanceTable.get();
+		int numRooms = game.getRooms().size();
+		for (int cell = 0; cell < Board.NUM_CELLS; cell++)
+		{
+			for (int room = 0; room < numRooms; room++)
+			{
+				int distance = distances.getDistanceToRoom(cell, room);
+				if (distance == DistanceTable.UNREACHABLE)
+				{
+					continue;
+				}
+				//Every roll is at least 2
+				if (distance <= 2)
+				{
+					assertEquals(1, travel.getExpectedTurns(cell, room), 1e-6);
+				}
+				assertTrue(travel.getExpectedTurns(cell, room) >= 1);
+				double previous = 0;
+				for (int turns = 1; turns <= TravelTable.MAX_TURNS; turns++)
+				{
+					double probability = travel.getProbability(cell, room, turns);
+					assertTrue(probability >= previous - 1e-6 && probability <= 1 + 1e-6);
+					previous = probability;
+				}
+			}
+		}
+		for (int room = 0; room < numRooms; room++)
+		{
+			assertEquals(0, travel.getExpectedTurnsFromRoom(room, room), 0);
+		}
+		List<Room> rooms = game.getRooms();
+		BoardTopology topology = BoardTopology.get();
+		int kitchen = rooms.indexOf(topology.getCellToRoom().get(topology.getCells()[4][6]));
+		int study = rooms.indexOf(topology.getCellToRoom().get(topology.getCells()[23][21]));
+		assertEquals(1, travel.getExpectedTurnsFromRoom(kitchen, study), 1e-6);
+		assertEquals(1, travel.getProbabilityFromRoom(study, kitchen, 1), 1e-6);
+	}
+
+	/**
+	 * Illegal moves give a status without changing the game
+	 */
+	@Test
+	public void testTryMoveStatus()
+	{
+		Cell pos = game.getPosition(game.getCurrentPlayer());
+		Direction wall = null;
+		Direction open = null;
+		for (Direction direction : Direction.values())
+		{
+			if (pos.hasWall(direction))
+			{
+				wall = direction;
+			}
+			else if (game.tryMove(direction) == MoveStatus.OK)
+			{
+				open = direction;
+				break;
+			}
+		}
+		GameState moved = game.getState();
+		if (wall != null)
+		{
+			assertEquals(MoveStatus.WALL, game.tryMove(wall));
+		}
+		assertNotNull(open);
+		assertEquals(MoveStatus.REVISIT, game.tryMove(Heading.opposite(open)));
+		assertEquals(moved, game.getState());
+		assertEquals(MoveStatus.NOT_IN_ROOM, game.tryExit(pos));
+	}
+
+	/**
+	 * Play random legal actions, checking at each step that the listed moves and exits
+	 * are exactly the ones that can be made
+	 */
+	@Test
+	public void testLegalActions() throws Exception
+	{
+		setupGame(Game.MAX_HUMAN_PLAYERS, 5);
+		game.setUndoEnabled(true);
+		RandomSource random = new RandomSource(5);
+		int[] actions = new int[Action.MAX_ACTIONS];
+		for (int step = 0; step < 300 && !game.isGameOver(); step++)
+		{
+			int count = game.getLegalActions(actions, false);
+			int moves = 0;
+			int suggestions = 0;
+			boolean endTurn = false;
+			for (int i = 0; i < count; i++)
+			{
+				int action = actions[i];
+				switch (Action.getType(action))
+				{
+					case Action.MOVE:
+						assertEquals(MoveStatus.OK, game.tryMove(Action.getDirection(action)));
+						game.undo();
+						moves++;
+						break;
+					case Action.EXIT:
+						int cell = Action.getCell(action);
+						assertEquals(MoveStatus.OK, game.tryExit(game.getCells()[cell % Board.WIDTH][cell / Board.WIDTH]));
+						game.undo();
+						moves++;
+						break;
+					case Action.SUGGEST:
+						suggestions++;
+						break;
+					case Action.END_TURN:
+						endTurn = true;
+						break;
+					default:
+						fail("Accusations were not asked for");
+				}
+			}
+			if (!game.isInRoom() && game.getRemainingMoves() > 0)
+			{
+				int open = 0;
+				for (Direction direction : Direction.values())
+				{
+					if (game.tryMove(direction) == MoveStatus.OK)
+					{
+						game.undo();
+						open++;
+					}
+				}
+				assertEquals(open, moves);
+			}
+			assertEquals(game.canMakeSuggestion() ? Game.MAX_PLAYERS * Game.NUM_WEAPONS : 0, suggestions);
+			assertEquals(moves == 0, endTurn);
+			assertEquals(count + Game.MAX_PLAYERS * Game.NUM_WEAPONS * Game.NUM_ROOMS, game.getLegalActions(actions, true));
+
+			int action = actions[random.nextInt(count)];
+			if (Action.getType(action) == Action.END_TURN)
+			{
+				assertFalse(game.canMove());
+			}
+			playAction(game, action);
+		}
+	}
+
+	/**
+	 * Play random legal actions, checking the events each one adds to the log,
+	 * then check every seat's notebook from the log and that undo removes the events
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEventLog() throws Exception
+	{
+		setupGame(Game.MAX_HUMAN_PLAYERS, 9);
+		game.setUndoEnabled(true);
+		EventLog log = game.getEventLog();
+		assertEquals(2, log.size());
+		assertEquals(EventLog.TURN, EventLog.getType(log.get(0)));
+		assertEquals(EventLog.ROLL, EventLog.getType(log.get(1)));
+		assertEquals(game.getDiceRoll()[0], EventLog.getArg(log.get(1), 0));
+		List<Player> seats = game.getSeats();
+		RandomSource random = new RandomSource(9);
+		int[] actions = new int[Action.MAX_ACTIONS];
+		int suggestions = 0;
+		for (int step = 0; step < 400 && !game.isGameOver(); step++)
+		{
+			int seat = seats.indexOf(game.getCurrentPlayer());
+			int from = Board.cellIndex(game.getPosition(game.getCurrentPlayer()));
+			int before = log.size();
+			int action = actions[random.nextInt(game.getLegalActions(actions, false))];
+			playAction(game, action);
+			switch (Action.getType(action))
+			{
+				case Action.MOVE:
+					long move = log.get(before);
+					assertEquals(EventLog.MOVE, EventLog.getType(move));
+					assertEquals(seat, EventLog.getSeat(move));
+					assertEquals(from, EventLog.getArg(move, 0));
+					assertEquals(game.isInRoom() ? before + 2 : before + 1, log.size());
+					break;
+				case Action.EXIT:
+					int cell = Action.getCell(action);
+					assertEquals(EventLog.EXIT, EventLog.getType(log.get(before)));
+					assertEquals(cell, EventLog.getArg(log.get(before), 1));
+					break;
+				case Action.SUGGEST:
+					suggestions++;
+					int i = before;
+					while (EventLog.getType(log.get(i)) == EventLog.TRANSFER)
+					{
+						i++;
+					}
+					long suggest = log.get(i);
+					assertEquals(EventLog.SUGGEST, EventLog.getType(suggest));
+					assertEquals(Action.getSuspect(action), EventLog.getArg(suggest, 0));
+					int disproverSeat = EventLog.getArg(suggest, 3);
+					if (disproverSeat == EventLog.NONE)
+					{
+						assertEquals(seats.size() - 1, log.size() - i - 1);
+						break;
+					}
+					//The passes, then the disprover's reveal
+					assertEquals((disproverSeat - seat - 1 + seats.size()) % seats.size(), log.size() - i - 2);
+					long reveal = log.get(log.size() - 1);
+					assertEquals(EventLog.REVEAL, EventLog.getType(reveal));
+					int card = EventLog.getArg(reveal, 0);
+					assertTrue(card == Action.getSuspect(action) || card == Action.getWeapon(action)
+							|| card >= Game.MAX_PLAYERS + Game.NUM_WEAPONS);
+					assertTrue(EventLog.isVisibleTo(reveal, seat));
+					assertFalse(EventLog.isVisibleTo(reveal, (disproverSeat + 1) % seats.size() == seat
+							? (seat + 1) % seats.size() : (disproverSeat + 1) % seats.size()));
+					break;
+				default:
+					assertEquals(EventLog.TURN, EventLog.getType(log.get(before)));
+					assertEquals(seats.indexOf(game.getCurrentPlayer()), EventLog.getSeat(log.get(before)));
+					assertEquals(EventLog.ROLL, EventLog.getType(log.get(before + 1)));
+			}
+		}
+		assertTrue(suggestions > 5);
+
+		Field playerHandField = Game.class.getDeclaredField("playerHand");
+		playerHandField.setAccessible(true);
+		Map<Player, List<Card>> hands = (Map<Player, List<Card>>) playerHandField.get(game);
+		int handSize = hands.get(seats.get(0)).size();
+		int[] handSizes = new int[seats.size()];
+		Arrays.fill(handSizes, handSize);
+		int extra = 0;
+		for (Card card : game.getExtraCards())
+		{
+			extra |= 1 << card.getID();
+		}
+		for (int viewer = 0; viewer < seats.size(); viewer++)
+		{
+			Notebook notebook = new Notebook(handSizes, extra);
+			notebook.observeHand(viewer, CardSet.of(hands.get(seats.get(viewer))).getMask());
+			assertEquals(log.size(), notebook.observe(log, 0, viewer));
+			for (int seat = 0; seat < seats.size(); seat++)
+			{
+				int hand = CardSet.of(hands.get(seats.get(seat))).getMask();
+				assertEquals(0, notebook.getHeld(seat) & ~hand);
+				assertEquals(hand, notebook.getPossible(seat) & hand);
+			}
+		}
+
+		while (game.getUndoDepth() > 0)
+		{
+			game.undo();
+		}
+		assertEquals(2, log.size());
+	}
+
+	/**
+	 * A listener that only hears about changes must always agree with the game,
+	 * through moves, suggestions, eliminations and undoing all of them
+	 */
+	@Test
+	public void testListener() throws Exception
+	{
+		setupGame(Game.MAX_HUMAN_PLAYERS, 5);
+		game.setUndoEnabled(true);
+		Map<Piece, Cell> positions = new HashMap<Piece, Cell>();
+		for (Player player : Game.allPlayers)
+		{
+			positions.put(player, game.getPosition(player));
+		}
+		for (Weapon weapon : game.getWeapons())
+		{
+			positions.put(weapon, game.getPosition(weapon));
+		}
+		Player[] current = { game.getCurrentPlayer() };
+		int[] dice = game.getDiceRoll().clone();
+		List<Player> eliminated = new ArrayList<Player>();
+		GameListener listener = new GameListener()
+		{
+			@Override
+			public void pieceMoved(Piece piece, Cell from, Cell to)
+			{
+				assertEquals(positions.get(piece), from);
+				assertNotEquals(from, to);
+				positions.put(piece, to);
+			}
+
+			@Override
+			public void turnChanged(Player player)
+			{
+				current[0] = player;
+			}
+
+			@Override
+			public void diceRolled(int die1, int die2)
+			{
+				dice[0] = die1;
+				dice[1] = die2;
+			}
+
+			@Override
+			public void playerEliminated(Player player)
+			{
+				eliminated.add(player);
+			}
+		};
+		game.addListener(listener);
+		RandomSource random = new RandomSource(5);
+		int[] actions = new int[Action.MAX_ACTIONS];
+		for (int step = 0; step < 300; step++)
+		{
+			playAction(game, actions[random.nextInt(game.getLegalActions(actions, false))]);
+			for (Map.Entry<Piece, Cell> entry : positions.entrySet())
+			{
+				assertEquals(game.getPosition(entry.getKey()), entry.getValue());
+			}
+			assertEquals(game.getCurrentPlayer(), current[0]);
+			assertArrayEquals(game.getDiceRoll(), dice);
+		}
+		Player accuser = game.getCurrentPlayer();
+		RoomCard room = getAnswerRoomCard();
+		game.makeAccusation(accuser, (WeaponCard) GameBuilder.getCard(Game.MAX_PLAYERS),
+				(RoomCard) GameBuilder.getCard(room.getID() == GameBuilder.NUM_CARDS - 1 ? room.getID() - 1 : room.getID() + 1),
+				(SuspectCard) GameBuilder.getCard(0));
+		assertEquals(Arrays.asList(accuser), eliminated);
+		assertNotEquals(accuser, current[0]);
+		assertEquals(game.getPosition(accuser), positions.get(accuser));
+
+		while (game.getUndoDepth() > 0)
+		{
+			game.undo();
+		}
+		for (Map.Entry<Piece, Cell> entry : positions.entrySet())
+		{
+			assertEquals(game.getPosition(entry.getKey()), entry.getValue());
+		}
+		assertEquals(game.getCurrentPlayer(), current[0]);
+		assertArrayEquals(game.getDiceRoll(), dice);
+
+		game.removeListener(listener);
+		resetRemainingMoves();
+		game.nextTurn();
+		assertNotEquals(game.getCurrentPlayer(), current[0]);
+	}
+
+	/**
+	 * Playing a recorded game must give exactly the same game,
+	 * and playing to a turn must give the state at the start of that turn
+	 */
+	@Test
+	public void testReplay() throws Exception
+	{
+		setupGame(Game.MAX_HUMAN_PLAYERS, 11);
+		RandomSource random = new RandomSource(11);
+		int[] actions = new int[Action.MAX_ACTIONS];
+		List<GameState> turnStarts = new ArrayList<GameState>();
+		turnStarts.add(game.getState());
+		for (int step = 0; step < 3000 && !game.isGameOver(); step++)
+		{
+			Player current = game.getCurrentPlayer();
+			if (random.nextInt(250) == 0)
+			{
+				List<Player> active = game.getActivePlayers();
+				game.makeAccusation(active.get(random.nextInt(active.size())),
+						(WeaponCard) GameBuilder.getCard(Game.MAX_PLAYERS + random.nextInt(Game.NUM_WEAPONS)),
+						(RoomCard) GameBuilder.getCard(Game.MAX_PLAYERS + Game.NUM_WEAPONS + random.nextInt(Game.NUM_ROOMS)),
+						(SuspectCard) GameBuilder.getCard(random.nextInt(Game.MAX_PLAYERS)));
+			}
+			else
+			{
+				playAction(game, actions[random.nextInt(game.getLegalActions(actions, false))]);
+			}
+			if (!game.isGameOver() && game.getCurrentPlayer() != current)
+			{
+				turnStarts.add(game.getState());
+			}
+		}
+		assertTrue(turnStarts.size() > 2 * Replay.KEYFRAME_INTERVAL);
+
+		byte[] data = Replay.record(game);
+		//A few bytes a turn
+		assertTrue(data.length < 8 * turnStarts.size());
+		Replay replay = new Replay(data);
+		assertEquals(game.getSeed(), replay.getSeed());
+		assertEquals(game.getSeats(), replay.getSeats());
+		Game played = replay.play();
+		assertEquals(game.getState(), played.getState());
+		assertArrayEquals(game.getEventLog().toArray(0), played.getEventLog().toArray(0));
+		assertArrayEquals(data, Replay.record(played));
+		for (int turn = turnStarts.size() - 1; turn >= 0; turn -= 7)
+		{
+			assertEquals(turnStarts.get(turn), replay.playTo(turn).getState());
+		}
+
+		data[data.length - 1] = 6;
+		try
+		{
+			new Replay(data).play();
+			fail("A replay with an unknown token should be rejected");
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+
+	/**
+	 * A replay of actions the rules do not allow is rejected like a corrupt one
+	 */
+	@Test
+	public void testReplayIllegalAction()
+	{
+		List<String> names = new ArrayList<String>();
+		for (Player player : game.getSeats())
+		{
+			names.add(game.getHumanName(player));
+		}
+		byte[] start = Replay.record(new Game(game.getSeats(), names, 5));
+		//End the first turn before moving, then make a suggestion in a corridor
+		byte[][] illegal = { { 5, 7 }, { 2, 0, 7 } };
+		for (byte[] tokens : illegal)
+		{
+			byte[] data = Arrays.copyOf(start, start.length - 1 + tokens.length);
+			System.arraycopy(tokens, 0, data, start.length - 1, tokens.length);
+			try
+			{
+				new Replay(data).play();
+				fail("A replay of an illegal action should be rejected");
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+		}
+	}
+
+	/**
+	 * A game saved to a snapshot file must resume in exactly the same state,
+	 * and carry on the same way as the game it was saved from
+	 */
+	@Test
+	public void testSnapshot() throws Exception
+	{
+		setupGame(Game.MAX_HUMAN_PLAYERS, 3);
+		RandomSource random = new RandomSource(3);
+		int[] actions = new int[Action.MAX_ACTIONS];
+		Path file = Files.createTempFile("cluedo", ".snapshot");
+		try
+		{
+			GameState[] saved = new GameState[3];
+			for (int slot = 2; slot >= 0; slot--)
+			{
+				for (int step = 0; step < 40; step++)
+				{
+					int action = actions[random.nextInt(game.getLegalActions(actions, false))];
+					playAction(game, action);
+				}
+				saved[slot] = game.getState();
+				Snapshot.save(game, file, slot);
+			}
+			assertEquals(3 * Snapshot.RECORD_SIZE, Files.size(file));
+			for (int slot = 0; slot < saved.length; slot++)
+			{
+				assertEquals(saved[slot], Snapshot.load(file, slot).getState());
+			}
+
+			Game resumed = Snapshot.load(file, 0);
+			for (int step = 0; step < 200; step++)
+			{
+				int action = actions[random.nextInt(game.getLegalActions(actions, false))];
+				playAction(game, action);
+				playAction(resumed, action);
+				assertEquals(game.getState(), resumed.getState());
+			}
+
+			Files.write(file, new byte[Snapshot.RECORD_SIZE]);
+			try
+			{
+				Snapshot.load(file, 0);
+				fail("An empty record is not a snapshot");
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+			try
+			{
+				Snapshot.load(file, 1);
+				fail("There is no record in slot 1");
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * A snapshot with a value no game can have is rejected rather than resumed
+	 */
+	@Test
+	public void testSnapshotCorrupt()
+	{
+		ByteBuffer record = ByteBuffer.allocate(Snapshot.RECORD_SIZE);
+		Snapshot.write(game.getState(), record);
+		int answer = 4 + 2 + 2 + 2 * Long.BYTES;
+		int hands = answer + 2 * Integer.BYTES;
+		int rooms = hands + 2 * Game.MAX_HUMAN_PLAYERS * Integer.BYTES + (Game.MAX_PLAYERS + Game.NUM_WEAPONS) * Short.BYTES;
+		int positions = rooms - (Game.MAX_PLAYERS + Game.NUM_WEAPONS) * Short.BYTES;
+		int turnPos = rooms + Game.MAX_PLAYERS + Game.MAX_HUMAN_PLAYERS;
+		int flags = turnPos + 1, activeSeats = turnPos + 3, remainingMoves = turnPos + 4, dice1 = turnPos + 5;
+		record.flip();
+		int hand = record.getInt(hands);
+		int currentSeat = record.get(7);
+		assertEquals(game.getState(), new Game(Snapshot.read(record.duplicate())).getState());
+
+		List<ByteBuffer> corrupt = new ArrayList<ByteBuffer>();
+		corrupt.add(copyOf(record).putInt(answer, 0));
+		corrupt.add(copyOf(record).putInt(hands, record.getInt(hands + Integer.BYTES)));
+		corrupt.add(copyOf(record).put(rooms, (byte) 99));
+		corrupt.add(copyOf(record).put(turnPos, (byte) Game.MAX_HUMAN_PLAYERS));
+		//A card missing from the deal
+		corrupt.add(copyOf(record).putInt(hands, hand & hand - 1));
+		//Two weapons on one cell
+		int weapons = positions + Game.MAX_PLAYERS * Short.BYTES;
+		corrupt.add(copyOf(record).putShort(weapons + Short.BYTES, record.getShort(weapons)));
+		//A character in a room that does not hold their cell
+		corrupt.add(copyOf(record).put(rooms, (byte) ((record.get(rooms) + 2) % Game.NUM_ROOMS)));
+		//Impossible dice, moves and flags
+		corrupt.add(copyOf(record).put(dice1, (byte) 0));
+		corrupt.add(copyOf(record).put(dice1 + 1, (byte) 7));
+		corrupt.add(copyOf(record).put(remainingMoves, (byte) -1));
+		corrupt.add(copyOf(record).put(remainingMoves,
+				(byte) (record.get(dice1) + record.get(dice1 + 1) + 1)));
+		corrupt.add(copyOf(record).put(flags, (byte) 4));
+		//Nobody left playing, or the current seat eliminated, in a game that is not over
+		corrupt.add(copyOf(record).put(activeSeats, (byte) 0));
+		corrupt.add(copyOf(record).put(activeSeats, (byte) (record.get(activeSeats) & ~(1 << currentSeat))));
+		for (ByteBuffer buffer : corrupt)
+		{
+			try
+			{
+				new Game(Snapshot.read(buffer));
+				fail("A corrupt snapshot should be rejected");
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+		}
+	}
+
+	private static ByteBuffer copyOf(ByteBuffer buffer)
+	{
+		return ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.limit()));
+	}
+
+	/**
+	 * Play a legal action for the current player, revealing the first card that disproves a suggestion
+	 */
+	private void playAction(Game game, int action) throws InvalidMoveException
+	{
+		switch (Action.getType(action))
+		{
+			case Action.MOVE:
+				game.move(Action.getDirection(action));
+				break;
+			case Action.EXIT:
+				int cell = Action.getCell(action);
+				game.takeExit(game.getCells()[cell % Board.WIDTH][cell / Board.WIDTH]);
+				break;
+			case Action.SUGGEST:
+				Map<Player, Set<Card>> disprover = game.makeSuggestion(
+						(WeaponCard) GameBuilder.getCard(Action.getWeapon(action)),
+						(SuspectCard) GameBuilder.getCard(Action.getSuspect(action)));
+				for (Map.Entry<Player, Set<Card>> entry : disprover.entrySet())
+				{
+					Map<Player, Card> shown = new HashMap<Player, Card>();
+					shown.put(entry.getKey(), entry.getValue().iterator().next());
+					game.removeCard(shown);
+				}
+				break;
+			default:
+				game.nextTurn();
+		}
+	}
 }
@@ -0,0 +1,296 @@
+package cluedo.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import cluedo.deduction.DealCounter;
+import cluedo.deduction.DealSampler;
+import cluedo.deduction.Estimate;
+import cluedo.deduction.Notebook;
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+import cluedo.utility.RandomSource;
+
+public class NotebookTests {
+
+	private static final int SUSPECTS = 0;
+	private static final int WEAPONS = Game.MAX_PLAYERS;
+	private static final int ROOMS = Game.MAX_PLAYERS + Game.NUM_WEAPONS;
+
+	/**
+	 * The owner of every card in a random deal: a seat, -1 for the answer or -2 for an extra card
+	 */
+	private int[] deal(RandomSource random, int numPlayers)
+	{
+		int[] owner = new int[GameBuilder.NUM_CARDS];
+		owner[SUSPECTS + random.nextInt(Game.MAX_PLAYERS)] = -1;
+		owner[WEAPONS + random.nextInt(Game.NUM_WEAPONS)] = -1;
+		owner[ROOMS + random.nextInt(Game.NUM_ROOMS)] = -1;
+		List<Integer> cards = new ArrayList<Integer>();
+		for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+		{
+			if (owner[card] != -1)
+			{
+				cards.add(card);
+			}
+		}
+		random.shuffle(cards);
+		int handSize = cards.size() / numPlayers;
+		for (int i = 0; i < cards.size(); i++)
+		{
+			owner[cards.get(i)] = i < handSize * numPlayers ? i / handSize : -2;
+		}
+		return owner;
+	}
+
+	private int mask(int[] owner, int of)
+	{
+		int mask = 0;
+		for (int card = 0; card < owner.length; card++)
+		{
+			if (owner[card] == of)
+			{
+				mask |= 1 << card;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Everything the notebook has worked out must be true
+	 */
+	private void assertSound(Notebook notebook, int[] owner)
+	{
+		for (int card = 0; card < owner.length; card++)
+		{
+			for (int seat = Notebook.CASE_FILE; seat < notebook.getNumPlayers(); seat++)
+			{
+				int status = notebook.getStatus(seat, card);
+				if (status == Notebook.HOLDS)
+				{
+					assertEquals(seat, owner[card]);
+				}
+				else if (status == Notebook.DOES_NOT_HOLD)
+				{
+					assertNotEquals(seat, owner[card]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Seat 0 watches random suggestions, and is only shown a card when they suggested.
+	 * Its deductions must always be true, and after enough suggestions it must find the answer.
+	 */
+	@Test
+	public void testDeductionsAreSound()
+	{
+		for (int numPlayers = Game.MIN_HUMAN_PLAYERS; numPlayers <= Game.MAX_HUMAN_PLAYERS; numPlayers++)
+		{
+			RandomSource random = new RandomSource(numPlayers);
+			int[] owner = deal(random, numPlayers);
+			int[] handSizes = new int[numPlayers];
+			Arrays.fill(handSizes, Integer.bitCount(mask(owner, 0)));
+			Notebook notebook = new Notebook(handSizes, mask(owner, -2));
+			notebook.observeHand(0, mask(owner, 0));
+			assertSound(notebook, owner);
+			for (int turn = 0; turn < 300 && notebook.getSolution() == null; turn++)
+			{
+				int suggester = turn % numPlayers;
+				int[] suggested = { SUSPECTS + random.nextInt(Game.MAX_PLAYERS),
+						WEAPONS + random.nextInt(Game.NUM_WEAPONS), ROOMS + random.nextInt(Game.NUM_ROOMS) };
+				int disprover = -1;
+				int shown = -1;
+				for (int seat = (suggester + 1) % numPlayers; seat != suggester && disprover == -1; seat = (seat + 1) % numPlayers)
+				{
+					for (int card : suggested)
+					{
+						if (owner[card] == seat)
+						{
+							disprover = seat;
+							shown = suggester == 0 ? card : -1;
+						}
+					}
+				}
+				notebook.observeSuggestion(suggester, suggested[0], suggested[1], suggested[2], disprover, shown);
+				assertSound(notebook, owner);
+			}
+			assertArrayEquals(new int[] { Integer.numberOfTrailingZeros(mask(owner, -1) & 0x3F),
+					Integer.numberOfTrailingZeros(mask(owner, -1) >>> WEAPONS & 0x3F) + WEAPONS,
+					Integer.numberOfTrailingZeros(mask(owner, -1) >>> ROOMS) + ROOMS }, notebook.getSolution());
+			for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+			{
+				assertEquals(owner[card] == -1 ? 1.0 : 0.0, notebook.getSolutionProbability(card), 1e-9);
+			}
+			assertArrayEquals(notebook.getSolution(), DealCounter.count(notebook).getSolution());
+		}
+	}
+
+	/**
+	 * An observation that contradicts the notebook is rejected and changes nothing
+	 */
+	@Test
+	public void testContradictionIsRejected()
+	{
+		int[] owner = deal(new RandomSource(3), 3);
+		Notebook notebook = new Notebook(new int[] { 6, 6, 6 }, 0);
+		notebook.observeHand(0, mask(owner, 0));
+		int card = Integer.numberOfTrailingZeros(mask(owner, 0));
+		notebook.observeSuggestion(1, SUSPECTS, WEAPONS, ROOMS, 2, -1);
+		String before = notebook.toString();
+		int clauses = notebook.getClauseCount();
+		try
+		{
+			notebook.observeCard(1, card);
+			fail("Seat 1 cannot hold a card seat 0 holds");
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+		assertEquals(before, notebook.toString());
+		assertEquals(clauses, notebook.getClauseCount());
+		assertEquals(Notebook.HOLDS, notebook.getStatus(0, card));
+	}
+
+	/**
+	 * A player's notebook starts with their hand and the extra cards
+	 */
+	@Test
+	public void testForPlayer()
+	{
+		List<Player> players = new ArrayList<Player>(Game.allPlayers.subList(0, 4));
+		Game game = new Game(players, Arrays.asList("a", "b", "c", "d"), 8);
+		Notebook notebook = Notebook.forPlayer(game);
+		int seat = game.getSeats().indexOf(game.getCurrentPlayer());
+		for (Card card : game.getPlayerHand())
+		{
+			assertEquals(Notebook.HOLDS, notebook.getStatus(seat, card.getID()));
+			assertEquals(Notebook.DOES_NOT_HOLD, notebook.getStatus(Notebook.CASE_FILE, card.getID()));
+		}
+		for (Card card : game.getExtraCards())
+		{
+			for (int other = Notebook.CASE_FILE; other < notebook.getNumPlayers(); other++)
+			{
+				assertEquals(Notebook.DOES_NOT_HOLD, notebook.getStatus(other, card.getID()));
+			}
+		}
+		assertEquals(game.getPlayerHand().size(), Integer.bitCount(notebook.getHeld(seat)));
+		assertEquals(game.getPlayerHand().size(), Integer.bitCount(notebook.getPossible(seat)));
+	}
+
+	/**
+	 * Seat 0's notebook after watching seats 1 and 2 make suggestions until it has three clauses
+	 */
+	private Notebook watchSuggestions(int[] owner, RandomSource random)
+	{
+		Notebook notebook = new Notebook(new int[] { 6, 6, 6 }, 0);
+		notebook.observeHand(0, mask(owner, 0));
+		for (int turn = 0; turn < 40 && notebook.getClauseCount() < 3; turn++)
+		{
+			int suggester = 1 + turn % 2;
+			int[] suggested = { SUSPECTS + random.nextInt(Game.MAX_PLAYERS),
+					WEAPONS + random.nextInt(Game.NUM_WEAPONS), ROOMS + random.nextInt(Game.NUM_ROOMS) };
+			int disprover = -1;
+			for (int seat = (suggester + 1) % 3; seat != suggester && disprover == -1; seat = (seat + 1) % 3)
+			{
+				for (int card : suggested)
+				{
+					if (owner[card] == seat)
+					{
+						disprover = seat;
+					}
+				}
+			}
+			notebook.observeSuggestion(suggester, suggested[0], suggested[1], suggested[2], disprover, -1);
+		}
+		assertEquals(3, notebook.getClauseCount());
+		return notebook;
+	}
+
+	/**
+	 * The sampled chances must be close to the chances from counting every consistent deal
+	 */
+	@Test
+	public void testSamplerMatchesEnumeration()
+	{
+		RandomSource random = new RandomSource(4);
+		Notebook notebook = watchSuggestions(deal(random, 3), random);
+		long[] inAnswer = new long[GameBuilder.NUM_CARDS];
+		long total = enumerate(notebook, new int[] { 0, 0, 0, 0 }, 0, inAnswer);
+		assertTrue(total > 0);
+		Estimate estimate = new DealSampler(notebook).sample(400000, Long.MAX_VALUE, 1);
+		assertTrue(estimate.isDone());
+		assertEquals(400000, estimate.getDeals());
+		for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+		{
+			assertEquals((double) inAnswer[card] / total, estimate.getProbability(card), 0.02);
+		}
+	}
+
+	/**
+	 * The memoized counts must be exactly the counts from trying every deal
+	 */
+	@Test
+	public void testCounterMatchesEnumeration()
+	{
+		for (int seed = 0; seed < 4; seed++)
+		{
+			RandomSource random = new RandomSource(seed);
+			Notebook notebook = watchSuggestions(deal(random, 3), random);
+			long[] inAnswer = new long[GameBuilder.NUM_CARDS];
+			long total = enumerate(notebook, new int[] { 0, 0, 0, 0 }, 0, inAnswer);
+			DealCounter counter = DealCounter.count(notebook);
+			assertEquals(total, counter.getTotal());
+			for (int card = 0; card < GameBuilder.NUM_CARDS; card++)
+			{
+				assertEquals((double) inAnswer[card] / total, counter.getProbability(card), 1e-12);
+			}
+			assertNull(DealCounter.count(notebook, 10));
+		}
+	}
+
+	/**
+	 * Count the deals consistent with the notebook by trying every owner for every card
+	 * @param owners - The cards given to each seat so far, then the CaseFile
+	 * @param inAnswer - Adds the number of deals with each card in the answer
+	 */
+	private long enumerate(Notebook notebook, int[] owners, int card, long[] inAnswer)
+	{
+		if (card == GameBuilder.NUM_CARDS)
+		{
+			for (int i = 0; i < notebook.getClauseCount(); i++)
+			{
+				if ((owners[notebook.getClauseSeat(i)] & notebook.getClauseMask(i)) == 0)
+				{
+					return 0;
+				}
+			}
+			for (int answer = owners[3]; answer != 0; answer &= answer - 1)
+			{
+				inAnswer[Integer.numberOfTrailingZeros(answer)]++;
+			}
+			return 1;
+		}
+		long count = 0;
+		for (int seat = Notebook.CASE_FILE; seat < 3; seat++)
+		{
+			int index = seat == Notebook.CASE_FILE ? 3 : seat;
+			int type = card < WEAPONS ? 0x3F : card < ROOMS ? 0x3F << WEAPONS : 0x1FF << ROOMS;
+			boolean full = seat == Notebook.CASE_FILE ? (owners[3] & type) != 0 : Integer.bitCount(owners[seat]) == 6;
+			if (!full && (notebook.getPossible(seat) & 1 << card) != 0)
+			{
+				owners[index] |= 1 << card;
+				count += enumerate(notebook, owners, card + 1, inAnswer);
+				owners[index] &= ~(1 << card);
+			}
+		}
+		return count;
+	}
+}
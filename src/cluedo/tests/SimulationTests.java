@@ -0,0 +1,106 @@
+package cluedo.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import cluedo.engine.Agent;
+import cluedo.engine.Command;
+import cluedo.engine.Engine;
+import cluedo.engine.RandomAgent;
+import cluedo.game.Game;
+import cluedo.game.GameBuilder;
+import cluedo.model.Player;
+import cluedo.model.cards.Card;
+import cluedo.model.cards.RoomCard;
+import cluedo.model.cards.SuspectCard;
+import cluedo.model.cards.WeaponCard;
+import cluedo.simulation.Simulation;
+import cluedo.simulation.SimulationResult;
+import cluedo.utility.RandomSource;
+
+public class SimulationTests
+{
+	/**
+	 * Plays like a RandomAgent, but sometimes makes a wild accusation,
+	 * so it is usually eliminated early
+	 */
+	private static class GuessingAgent implements Agent
+	{
+		private final RandomSource random;
+		private final RandomAgent agent;
+
+		GuessingAgent(RandomSource random)
+		{
+			this.random = random;
+			agent = new RandomAgent(random.split());
+		}
+
+		@Override
+		public Command nextCommand(Engine engine)
+		{
+			if (random.nextInt(20) != 0)
+			{
+				return agent.nextCommand(engine);
+			}
+			Player player = engine.getGame().getCurrentPlayer();
+			return Command.accuse(player, (SuspectCard) GameBuilder.getCard(random.nextInt(Game.MAX_PLAYERS)),
+					(WeaponCard) GameBuilder.getCard(Game.MAX_PLAYERS + random.nextInt(Game.NUM_WEAPONS)),
+					(RoomCard) GameBuilder.getCard(Game.MAX_PLAYERS + Game.NUM_WEAPONS + random.nextInt(Game.NUM_ROOMS)));
+		}
+
+		@Override
+		public Card chooseCardToReveal(Engine engine, Player suggester, Set<Card> cards)
+		{
+			return agent.chooseCardToReveal(engine, suggester, cards);
+		}
+	}
+
+	/**
+	 * The same seed plays the same games, however they are scheduled,
+	 * and wins are credited to the seats the winners had at the start
+	 * even after the players before them are eliminated
+	 */
+	@Test
+	public void testRunIsRepeatable()
+	{
+		int numSeats = 3;
+		Simulation simulation = new Simulation(Arrays.<Function<RandomSource, ? extends Agent>>asList(
+				GuessingAgent::new, GuessingAgent::new, RandomAgent::new));
+		SimulationResult first = simulation.run(200, 7);
+		SimulationResult second = simulation.run(200, 7);
+
+		assertEquals(200, first.getGames());
+		assertEquals(first.getUnfinishedGames(), second.getUnfinishedGames());
+		assertEquals(first.getNoWinnerGames(), second.getNoWinnerGames());
+		assertEquals(first.getTurns(), second.getTurns());
+		assertEquals(first.getSuggestions(), second.getSuggestions());
+		assertEquals(first.getEliminations(), second.getEliminations());
+		for (int character = 0; character < Game.MAX_PLAYERS; character++)
+		{
+			assertEquals(first.getCharacterWins(character), second.getCharacterWins(character));
+		}
+
+		//Games with eliminations must still credit seats that exist
+		assertTrue(first.getEliminations() > 0);
+		long won = first.getGames() - first.getUnfinishedGames() - first.getNoWinnerGames();
+		long seatWins = 0;
+		for (int seat = 0; seat < Game.MAX_HUMAN_PLAYERS; seat++)
+		{
+			assertEquals(first.getSeatWins(seat), second.getSeatWins(seat));
+			if (seat >= numSeats)
+			{
+				assertEquals(0, first.getSeatWins(seat));
+			}
+			seatWins += first.getSeatWins(seat);
+		}
+		assertTrue(won > 0);
+		assertEquals(won, seatWins);
+		//The guessers are usually out before the last seat can win
+		assertTrue(first.getSeatWins(2) > first.getSeatWins(0) + first.getSeatWins(1));
+	}
+}
@@ -21,18 +21,27 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Collections;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 
 import cluedo.board.Board;
+import cluedo.engine.Agent;
+import cluedo.engine.Command;
+import cluedo.engine.Driver;
+import cluedo.engine.Engine;
+import cluedo.engine.RandomAgent;
+import cluedo.engine.Result;
 import cluedo.exceptions.IllegalMethodCallException;
 import cluedo.exceptions.InvalidMoveException;
 import cluedo.exceptions.NoAvailableExitException;
 import cluedo.game.Game;
 import cluedo.game.GameBuilder;
+import cluedo.game.GameListener;
 import cluedo.model.Cell;
+import cluedo.model.Piece;
 import cluedo.model.Player;
 import cluedo.model.Weapon;
 import cluedo.model.cards.Card;
@@ -40,11 +49,21 @@ import cluedo.model.cards.RoomCard;
 import cluedo.model.cards.SuspectCard;
 import cluedo.model.cards.WeaponCard;
 import cluedo.utility.Heading.Direction;
+import cluedo.utility.RandomSource;
 
 public class Controller
 {
 	private Game model;
+	/**
+	 * Plays the computer players' turns in the model
+	 */
+	private Driver driver;
 	private GraphicalUserInterface view;
+	/**
+	 * The image for each piece, by name.
+	 * Belongs to this Controller so that separate windows do not share it.
+	 */
+	private final Map<String,Image> pieceImages = new HashMap<String,Image>();
 
 	private static final BasicStroke WALL_THICKNESS = new BasicStroke(7.0f);
 	private static final Color NORMAL_CELL_COLOUR = new Color(255,248,111);
@@ -52,7 +71,6 @@ public class Controller
 	private static final Color ROOM_COLOR = new Color(206,218,224);
 	private static final Color EXIT_COLOR = Color.GREEN; //May require for later
 
-	private static final Map<String,Image> PIECE_IMAGES = new HashMap<String,Image>();	
 	private static final String BOARD_TITLE = "Cluedo Game - %s playing with %s remaining moves";
 
 
@@ -78,8 +96,8 @@ public class Controller
 
 		fillBoolean(availablePlayers, Game.allPlayers.size(), true);
 
-		while (activePlayers.size() < Game.MIN_HUMAN_PLAYERS // Always ask until we have the minimum number
-				// Once we have the min, and less than the max, only continue if the players want to
+		while (activePlayers.isEmpty() // Always ask for at least one person, computer players can fill the other seats
+				// Once we have one, and less than the max, only continue if the players want to
 				|| (activePlayers.size() < Game.MAX_HUMAN_PLAYERS && view.dialogYesNo("Any more players?", "Do you want to add more players? You currently have " + activePlayers.size())))
 		{
 			Optional<String> name = promptUserName();
@@ -109,7 +127,7 @@ public class Controller
 			availablePlayers.add(selectedPlayerIndex.get(), false);
 		}
 
-		if (activePlayers.size() >= Game.MIN_HUMAN_PLAYERS)
+		if (!activePlayers.isEmpty())
 		{
 			assert activePlayers.size() == playerNames.size();
 			SimpleEntry<List<Player>, List<String>> pair = new SimpleEntry<List<Player>, List<String>>(activePlayers, playerNames);
@@ -121,6 +139,50 @@ public class Controller
 		}
 	}
 
+	/**
+	 * Ask how many computer players should join the people,
+	 * with enough of them for the game to have at least Game.MIN_HUMAN_PLAYERS players.
+	 * The computer players take the characters nobody picked.
+	 * @param players The characters of the people in turn order. The computer players' characters are added.
+	 * @param names The names of the people. The computer players' names are added.
+	 * @return Optional.of(the agent of each player, null for the people). Optional.empty() if the user cancelled.
+	 */
+	private Optional<List<Agent>> addComputerPlayers(List<Player> players, List<String> names)
+	{
+		int minimum = Math.max(0, Game.MIN_HUMAN_PLAYERS - players.size());
+		int maximum = Game.MAX_HUMAN_PLAYERS - players.size();
+		Optional<Integer> selected = Optional.of(0);
+		if (maximum > 0)
+		{
+			List<String> options = new ArrayList<String>();
+			List<Boolean> available = new ArrayList<Boolean>();
+			for (int i = minimum; i <= maximum; i++)
+			{
+				options.add(i == 1 ? "1 computer player" : i + " computer players");
+				available.add(true);
+			}
+			selected = view.dialogRadioButtons("Computer players", "How many computer players should join the game?", options, available);
+		}
+		if (!selected.isPresent())
+		{
+			return Optional.empty();
+		}
+		List<Agent> agents = new ArrayList<Agent>(Collections.<Agent>nCopies(players.size(), null));
+		RandomSource random = new RandomSource();
+		int computers = minimum + selected.get();
+		for (Player character : Game.allPlayers)
+		{
+			if (computers > 0 && !players.contains(character))
+			{
+				players.add(character);
+				names.add("Computer (" + character.getName() + ")");
+				agents.add(new RandomAgent(random.split()));
+				computers--;
+			}
+		}
+		return Optional.of(agents);
+	}
+
 	/**
 	 * Get the user's name.
 	 * @return Optional.of(userName) if the user entered a name. Optional.empty() if they cancelled.
@@ -170,8 +232,11 @@ public class Controller
 	{
 		view.newBoard(getImages(),initialisePieces());
 		setBoardToolTip();
-		//Setup initial player
-		newTurn();
+		//The first roll was made before the listener was added
+		int[] diceRoll = model.getDiceRoll();
+		showDice(diceRoll[0], diceRoll[1]);
+		//Setup initial player, who may be a computer player
+		playComputerTurns();
 		//Add listeners here
 
 		view.addNewGameListener(newGameListener());
@@ -217,11 +282,18 @@ public class Controller
 					{
 						List<Player> p = activePlayers.get().getKey();
 						List<String> s = activePlayers.get().getValue();
+						Optional<List<Agent>> agents = addComputerPlayers(p, s);
+						if (!agents.isPresent())
+						{
+							return;
+						}
 						
 						view.setVisible(false);
 						view.destroyBoard();
 						
 						model = new Game(p,s);
+						model.addListener(gameListener());
+						driver = new Driver(new Engine(model), agents.get());
 						extraCards = model.getExtraCards();
 						
 						// Non even distribution of cards, show them to everyone.
@@ -266,13 +338,13 @@ public class Controller
 		ActionListener listener = new ActionListener(){
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
-				if(model.getRemainingMoves() > 0)
+				if(model.getRemainingMoves() > 0 && model.canMove())
 				{
 					view.dialogError("Cannot End Turn", "Must use all your moves before ending your turn");
 					return;
 				}
 				model.nextTurn();
-				newTurn();
+				playComputerTurns();
 			}
 		};
 		return listener;
@@ -409,9 +481,7 @@ public class Controller
 					//Move the player
 					try 
 					{
-						String characterName = model.getCurrentPlayer().getName();
-						Cell cell = model.move(direction);
-						view.animatePlayerMove(getPieceImage(characterName), cell);
+						model.move(direction);
 					} 
 					catch (InvalidMoveException e1) 
 					{
@@ -452,9 +522,7 @@ public class Controller
 						{
 							if(cell.getX() == x && cell.getY() == y)
 							{
-								String playerName = model.getCurrentPlayer().getName();
-								Cell toExit = model.takeExit(cell);
-								view.changePieceLocation(getPieceImage(playerName), toExit);
+								model.takeExit(cell);
 								if(model.isInRoom())
 								{
 									view.dialogInformation("Entered a room", "You used the secret passage to enter the " + model.getCurrentRoom().getName());
@@ -545,7 +613,6 @@ public class Controller
 						return;
 					}
 					Map<Player, Set<Card>> disproved = model.makeSuggestion(murderWeapon, murderer);
-					updateBoard();
 					if (!disproved.isEmpty())
 					{
 						Map<Player, Card> disprover = new HashMap<Player, Card>();
@@ -553,8 +620,6 @@ public class Controller
 						Player disprovingPlayer = null;
 						Set<Card> disprovingHandSet = null;
 
-						List<Card> disprovingHandList = new ArrayList<Card>();
-
 						for (Player p : disproved.keySet())
 						{
 							disprovingPlayer = p;
@@ -565,24 +630,14 @@ public class Controller
 						assert disprovingHandSet != null;
 						assert disprovingPlayer != null;
 
-						for (Card c : disprovingHandSet)
-						{
-							disprovingHandList.add(c);
-						}
 						String disproverName = model.getHumanName(disprovingPlayer);
-						String currentPlayerName = model.getHumanName(model.getCurrentPlayer());
-
-						view.dialogInformation(disproverName,String.format("%s, you can disprove the suggestion...", disproverName));
-						String question = String.format("%s choose a card to reveal to %s:", disproverName, currentPlayerName);
-						//radio buttons
-						Optional<Card> disproveCard = Optional.empty();
-						while(!disproveCard.isPresent())
-						{
-							disproveCard = chooseCard(disprovingHandList, "card", question);
-						}
-						disprover.put(disprovingPlayer, disproveCard.get());
+						Agent agent = driver.getAgent(disprovingPlayer);
+						Card disproveCard = agent != null
+								? agent.chooseCardToReveal(driver.getEngine(), model.getCurrentPlayer(), disprovingHandSet)
+								: promptReveal(disprovingPlayer, model.getCurrentPlayer(), disprovingHandSet);
+						disprover.put(disprovingPlayer, disproveCard);
 						model.removeCard(disprover);
-						view.dialogInformation("Suggestion disproved", disproverName + " has shown you the card, " + disproveCard.get().getName());
+						view.dialogInformation("Suggestion disproved", disproverName + " has shown you the card, " + disproveCard.getName());
 					}
 					else
 					{
@@ -600,7 +655,15 @@ public class Controller
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
 				//Get accusing player
-				List<Player> activePlayers = model.getActivePlayers();
+				List<Player> activePlayers = new ArrayList<Player>();
+				for(Player player : model.getActivePlayers())
+				{
+					//Computer players make their own accusations
+					if(driver.getAgent(player) == null)
+					{
+						activePlayers.add(player);
+					}
+				}
 				List<Boolean> available = new ArrayList<Boolean>(activePlayers.size());
 				List<String> playerNames = new ArrayList<String>(activePlayers.size());
 				for(Player player :activePlayers)
@@ -643,7 +706,6 @@ public class Controller
 				String playerName = model.getHumanName(accusingPlayer);
 				Player currentPlayer = model.getCurrentPlayer();
 				boolean won = model.makeAccusation(accusingPlayer, murderWeapon, murderRoom, murderer);
-				updateBoard();
 				if(won)
 				{
 					view.dialogInformation(playerName + " you win!", "Congratulations on finding the murderer, " + accusingPlayer.getName() + "!");
@@ -651,27 +713,106 @@ public class Controller
 				else
 				{
 					view.dialogError("Game Over " + playerName, playerName + ", you've made a very serious accusation and we have evidence to the contrary. You will no longer be able to participate in this investigation.");
-					if(accusingPlayer == currentPlayer && !model.isGameOver())
-					{
-						newTurn();
-					}
 				}
-				//Go back to main menu
 				if(model.isGameOver())
 				{
-					if(!won)
+					endGame(won);
+				}
+				else if(accusingPlayer == currentPlayer)
+				{
+					playComputerTurns();
+				}
+			}
+		};
+		return listener;
+	}
+
+	/**
+	 * Show the answer if nobody won, and go back to the main menu
+	 * @param won - true if the game ended with a correct accusation
+	 */
+	private void endGame(boolean won)
+	{
+		if(!won)
+		{
+			List<Card> answer = model.getAnswer();
+			String answerText = String.format("All players have been eliminated. Answer: %s killed John Boddy in the %s with the %s", answer.get(0).getName(), answer.get(2).getName(), answer.get(1).getName());
+			view.dialogInformation("No winners", answerText);
+		}
+		view.destroyBoard();
+		view.setVisible(true);
+	}
+
+	/**
+	 * Let the computer players take their turns until it is a person's turn,
+	 * then set up that person's turn.
+	 * People are asked to reveal a card when they have to disprove a computer player's suggestion,
+	 * and told about the computer players' accusations.
+	 */
+	private void playComputerTurns()
+	{
+		Engine engine = driver.getEngine();
+		boolean won = false;
+		while(!model.isGameOver())
+		{
+			if(engine.getPendingDisprover() != null)
+			{
+				Card card = promptReveal(engine.getPendingDisprover(), model.getCurrentPlayer(), engine.getPendingCards());
+				engine.execute(Command.disprove(card));
+			}
+			else if(driver.isStuck())
+			{
+				view.dialogError("Computer player stuck", model.getHumanName(model.getCurrentPlayer()) + " cannot find a legal move, so the game has been abandoned.");
+				view.destroyBoard();
+				view.setVisible(true);
+				return;
+			}
+			else if(driver.isAgentTurn())
+			{
+				Result result = driver.step();
+				if(result.isAccepted() && result.getType() == Command.Type.ACCUSE)
+				{
+					String name = model.getHumanName(result.getPlayer());
+					if(result.isCorrect())
 					{
+						won = true;
 						List<Card> answer = model.getAnswer();
-						String answerText = String.format("All players have been eliminated. Answer: %s killed John Boddy in the %s with the %s", answer.get(0).getName(), answer.get(2).getName(), answer.get(1).getName());
-						view.dialogInformation("No winners", answerText);
+						view.dialogInformation(name + " wins", String.format("%s solved the murder: %s killed John Boddy in the %s with the %s", name, answer.get(0).getName(), answer.get(2).getName(), answer.get(1).getName()));
+					}
+					else
+					{
+						view.dialogInformation(name + " is out", name + " made a wrong accusation and can no longer participate in this investigation.");
 					}
-
-					view.destroyBoard();
-					view.setVisible(true);
 				}
 			}
-		};
-		return listener;
+			else
+			{
+				newTurn();
+				return;
+			}
+		}
+		endGame(won);
+	}
+
+	/**
+	 * Ask a person which card they reveal to disprove a suggestion
+	 * @param disprover - The person disproving the suggestion
+	 * @param suggester - The player who made the suggestion
+	 * @param cards - The cards the person can reveal
+	 * @return The card the person chose
+	 */
+	private Card promptReveal(Player disprover, Player suggester, Set<Card> cards)
+	{
+		String disproverName = model.getHumanName(disprover);
+		view.dialogInformation(disproverName,String.format("%s, you can disprove the suggestion...", disproverName));
+		String question = String.format("%s choose a card to reveal to %s:", disproverName, model.getHumanName(suggester));
+		//radio buttons
+		Optional<Card> card = Optional.empty();
+		while(!card.isPresent())
+		{
+			card = chooseCard(new ArrayList<Card>(cards), "card", question);
+		}
+		return card.get();
 	}
 
 	/**
@@ -684,12 +825,8 @@ public class Controller
 	{
 		Player player = model.getCurrentPlayer();
 		String playerName = model.getHumanName(player);
-		int[] diceRoll = model.getDiceRoll();
-		Image leftDie = getImage("die" + diceRoll[0]);
-		Image rightDie = getImage("die" + diceRoll[1]);
 		updateBoardTitle();
 
-		view.changeDice(leftDie, rightDie);
 		view.dialogInformation(playerName + "'s turn", playerName + " it is your turn");
 		//Show exits if the player is in the room
 		if(model.isInRoom())
@@ -738,23 +875,45 @@ public class Controller
 	}
 
 	/**
-	 * Update the position of all pieces (players and weapons)
-	 * on the BoardCanvas.
+	 * Create a listener that updates the BoardCanvas
+	 * when the game changes, so only the pieces that
+	 * actually moved are redrawn
+	 * @return A new GameListener
 	 */
-	private void updateBoard()
+	private GameListener gameListener()
 	{
-		for(Player player : Game.allPlayers)
-		{
-			Image piece = getPieceImage(player.getName());
-			Cell pos = model.getPosition(player);
-			view.changePieceLocation(piece, pos);
-		}
-		for(Weapon weapon : model.getWeapons())
-		{
-			Image piece = getPieceImage(weapon.getName());
-			Cell pos = model.getPosition(weapon);
-			view.changePieceLocation(piece, pos);
-		}		
+		GameListener listener = new GameListener(){
+			@Override
+			public void pieceMoved(Piece piece, Cell from, Cell to)
+			{
+				String name = piece instanceof Player ? ((Player) piece).getName() : ((Weapon) piece).getName();
+				//Only moves of one cell are animated, anything else is just redrawn
+				view.animatePlayerMove(getPieceImage(name), to);
+			}
+
+			@Override
+			public void turnChanged(Player player)
+			{
+				updateBoardTitle();
+			}
+
+			@Override
+			public void diceRolled(int die1, int die2)
+			{
+				showDice(die1, die2);
+			}
+		};
+		return listener;
+	}
+
+	/**
+	 * Display the dice on the board
+	 * @param die1 - The first die, from 1 to 6
+	 * @param die2 - The second die, from 1 to 6
+	 */
+	private void showDice(int die1, int die2)
+	{
+		view.changeDice(getImage("die" + die1), getImage("die" + die2));
 	}
 	
 	/**
@@ -931,12 +1090,12 @@ public class Controller
 	}
 	/**
 	 * Get all the pieces and their locations from the game.
-	 * Adds the items to PIECE_IMAGES.
+	 * Adds the items to pieceImages.
 	 * @return the images of pieces and their locations.
 	 */
 	private Map<Image,Cell> initialisePieces()
 	{
-		// We need to modify PIECE_IMAGES here because otherwise the references
+		// We need to modify pieceImages here because otherwise the references
 		// for the images in the map differ.
 		// We can't pass in the resulting map from this method to another because
 		// we lose the name associated with each image.
@@ -949,7 +1108,7 @@ public class Controller
 			String weaponName = weapon.getName();
 			Image image = getImage(weaponName);
 
-			PIECE_IMAGES.put(weaponName, image);
+			pieceImages.put(weaponName, image);
 			pieces.put(image, model.getPosition(weapon));
 		}
 
@@ -958,25 +1117,25 @@ public class Controller
 			String playerName = player.getName();
 			Image image = getImage(playerName);
 
-			PIECE_IMAGES.put(playerName, image);
+			pieceImages.put(playerName, image);
 			pieces.put(image, model.getPosition(player));
 		}
 		return pieces;
 	}
 
 	/**
-	 * Retrieve the associated image from PIECE_IMAGES.
-	 * @param name The name of the mapping to image in PIECE_IMAGES.
-	 * @throws IllegalArgumentException if the name is not in PIECE_IMAGES.
+	 * Retrieve the associated image from pieceImages.
+	 * @param name The name of the mapping to image in pieceImages.
+	 * @throws IllegalArgumentException if the name is not in pieceImages.
 	 * @return The associated image for name.
 	 */
 	private Image getPieceImage(String name)
 	{
-		if(!PIECE_IMAGES.containsKey(name))
+		if(!pieceImages.containsKey(name))
 		{
 			throw new IllegalArgumentException("There does not exist an image for the piece " + name);
 		}
-		return PIECE_IMAGES.get(name);
+		return pieceImages.get(name);
 	}
 
 	/**
@@ -165,7 +165,7 @@ public class TextUserInterface
 				nextAction++;
 			}
 
-			if (game.getRemainingMoves() <= 0) // If we have no remaining moves, we may end our turn.
+			if (game.getRemainingMoves() <= 0 || !game.canMove()) // If we have no remaining moves, or cannot use them, we may end our turn.
 			{
 				options.add("End turn");
 				regex.add("done|next|wait");
@@ -1221,12 +1221,19 @@ public class TextUserInterface
 
 		for (int piece = 0; piece < count; piece++)
 		{
+			final int number = piece;
 			Piece p = new Piece()
 			{ // We can't use lambdas because they have the same reference.
 				public void display()
 				{
 
 				}
+
+				@Override
+				public int getPieceNumber()
+				{
+					return number;
+				}
 			};
 			pieces.add(p);
 		}
@@ -0,0 +1,134 @@
+package cluedo.utility;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A source of random numbers owned by a single Game.
+ *
+ * Uses the same SplitMix64 algorithm as java.util.SplittableRandom, so it
+ * is fast and does not synchronise, but unlike SplittableRandom the state can be
+ * read and restored. This means a game can be reproduced exactly from its seed,
+ * and can be paused and resumed without changing the dice rolls that follow.
+ *
+ * Not thread safe: each thread (or game) should have its own RandomSource,
+ * which can be created with split().
+ */
+public final class RandomSource
+{
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long state;
+
+	/**
+	 * A source with a random seed
+	 */
+	public RandomSource()
+	{
+		this(randomSeed());
+	}
+
+	/**
+	 * @param seed - Two sources with the same seed return the same numbers
+	 */
+	public RandomSource(long seed)
+	{
+		this.state = seed;
+	}
+
+	/**
+	 * @return A seed that is different on each call
+	 */
+	public static long randomSeed()
+	{
+		// SplittableRandom's default constructor is thread safe and never blocks
+		return new SplittableRandom().nextLong();
+	}
+
+	/**
+	 * @return The next random long, any value is equally likely
+	 */
+	public long nextLong()
+	{
+		return mix64(nextState());
+	}
+
+	/**
+	 * @param bound - The upper bound (exclusive). Must be positive.
+	 * @return A random number between 0 (inclusive) and bound (exclusive)
+	 * @throws IllegalArgumentException if bound is not positive
+	 */
+	public int nextInt(int bound)
+	{
+		if (bound <= 0)
+		{
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		int r = mix32(nextState());
+		int m = bound - 1;
+		if ((bound & m) == 0)
+		{
+			// Power of two
+			return r & m;
+		}
+		// Reject the values that would make the result biased
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextState()) >>> 1)
+		{
+		}
+		return r;
+	}
+
+	/**
+	 * Randomly permute the list, with every permutation equally likely.
+	 * @param list - The list to shuffle, must be modifiable
+	 */
+	public <E> void shuffle(List<E> list)
+	{
+		for (int i = list.size(); i > 1; i--)
+		{
+			int j = nextInt(i);
+			list.set(j, list.set(i - 1, list.get(j)));
+		}
+	}
+
+	/**
+	 * @return A new source that is seeded from this one,
+	 * for handing to another thread or game
+	 */
+	public RandomSource split()
+	{
+		return new RandomSource(nextLong());
+	}
+
+	/**
+	 * @return The current state, which can be given to setState
+	 * to repeat the numbers that follow
+	 */
+	public long getState()
+	{
+		return state;
+	}
+
+	public void setState(long state)
+	{
+		this.state = state;
+	}
+
+	private long nextState()
+	{
+		return state += GOLDEN_GAMMA;
+	}
+
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+}
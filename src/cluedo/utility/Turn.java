@@ -91,6 +91,18 @@ public class Turn<E> implements Iterator<E>, Cloneable
 	{
 		return pos;
 	}
+	/**
+	 * Move the iterator so that next() returns the item at pos
+	 * @param pos - Must be a valid index in the list
+	 */
+	public void setPos(int pos) 
+	{
+		if(pos < 0 || pos >= list.size())
+		{
+			throw new IllegalArgumentException("Position must be an index in the list");
+		}
+		this.pos = pos;
+	}
 	public List<E> getList() 
 	{
 		return list;